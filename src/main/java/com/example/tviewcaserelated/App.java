@@ -3,6 +3,7 @@ package com.example.tviewcaserelated;
 import com.example.tviewcaserelated.config.DatabaseConfig;
 import com.example.tviewcaserelated.executor.LimitedQueryExecutor;
 import com.example.tviewcaserelated.model.CaseRelatedData;
+import com.example.tviewcaserelated.runtime.ExecutionRuntime;
 
 import java.math.BigDecimal;
 import java.sql.Connection;
@@ -54,6 +55,7 @@ public class App {
             System.err.println("\n✗ ERROR: " + e.getMessage());
             e.printStackTrace();
         } finally {
+            ExecutionRuntime.shutdownShared();
             DatabaseConfig.shutdown();
         }
         
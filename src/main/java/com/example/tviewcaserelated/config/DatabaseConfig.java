@@ -2,6 +2,7 @@ package com.example.tviewcaserelated.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -154,6 +155,21 @@ public class DatabaseConfig {
         return defaultValue;
     }
     
+    /**
+     * Get double property with default value.
+     */
+    public static double getDoubleProperty(String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value != null && !value.isEmpty()) {
+            try {
+                return Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid double for {}: {}, using default: {}", key, value, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+    
     /**
      * Get boolean property with default value.
      */
@@ -202,6 +218,14 @@ public class DatabaseConfig {
         return "Pool not initialized";
     }
     
+    /**
+     * The pool's HikariCP MXBean, or null until the pool has been created.
+     */
+    public static HikariPoolMXBean getPoolMXBean() {
+        HikariDataSource ds = dataSource;
+        return ds != null ? ds.getHikariPoolMXBean() : null;
+    }
+    
     /**
      * Gracefully shutdown the connection pool.
      */
@@ -0,0 +1,135 @@
+package com.example.tviewcaserelated.dimension;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory copy of a small reference table, as key to values.
+ *
+ * <p>{@code loadSql} returns the key in column 1 and the value in column 2; a key
+ * may have several values, kept in load order, like the rows a join would produce.
+ * The table is loaded on first use and reloaded once it is older than
+ * {@code refreshIntervalMs}. A reload runs on the thread that finds the copy stale;
+ * other threads keep reading the previous copy meanwhile, and if the reload fails
+ * the previous copy stays in use.</p>
+ */
+public class Dimension {
+
+    private static final Logger logger = LoggerFactory.getLogger(Dimension.class);
+
+    private final String name;
+    private final String loadSql;
+    private final long refreshIntervalMs;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+
+    private volatile Snapshot snapshot;
+
+    public Dimension(String name, String loadSql, long refreshIntervalMs) {
+        this.name = name;
+        this.loadSql = loadSql;
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    /**
+     * Load the table if it has not been loaded, or reload it if it is stale.
+     *
+     * @throws SQLException if the first load fails
+     */
+    public void refresh(DataSource dataSource) throws SQLException {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.loadedMillis < refreshIntervalMs) {
+            return;
+        }
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = load(dataSource);
+                }
+            }
+            return;
+        }
+        if (!reloading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            snapshot = load(dataSource);
+        } catch (SQLException e) {
+            logger.warn("Could not reload dimension {}, keeping the copy from {} ms ago: {}",
+                    name, System.currentTimeMillis() - current.loadedMillis, e.getMessage());
+        } finally {
+            reloading.set(false);
+        }
+    }
+
+    private Snapshot load(DataSource dataSource) throws SQLException {
+        long startTime = System.currentTimeMillis();
+        Map<String, List<String>> values = new HashMap<>();
+        int rows = 0;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(loadSql)) {
+            stmt.setFetchSize(1000);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String key = rs.getString(1);
+                    if (key != null) {
+                        values.computeIfAbsent(key, k -> new ArrayList<>(1)).add(rs.getString(2));
+                        rows++;
+                    }
+                }
+            }
+        }
+        logger.info("Loaded dimension {}: {} rows, {} keys in {} ms",
+                name, rows, values.size(), System.currentTimeMillis() - startTime);
+        return new Snapshot(values, System.currentTimeMillis());
+    }
+
+    /**
+     * Values of a key, empty if the key is absent or null.
+     *
+     * @throws IllegalStateException if the table has not been loaded
+     */
+    public List<String> get(String key) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Dimension " + name + " has not been loaded");
+        }
+        if (key == null) {
+            return Collections.emptyList();
+        }
+        return current.values.getOrDefault(key, Collections.emptyList());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Number of keys in the current copy, or -1 if not loaded.
+     */
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? -1 : current.values.size();
+    }
+
+    private static final class Snapshot {
+        private final Map<String, List<String>> values;
+        private final long loadedMillis;
+
+        Snapshot(Map<String, List<String>> values, long loadedMillis) {
+            this.values = values;
+            this.loadedMillis = loadedMillis;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.tviewcaserelated.dimension;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.model.CaseRelatedData;
+import com.example.tviewcaserelated.sql.SqlQueries;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * SEID and TOUR by ROID from {@code entemp}, in place of the two entemp joins of
+ * the main query (see {@link SqlQueries#withoutEntempJoins(String)}).
+ *
+ * <p>Both joins are LEFT JOINs on ROID, so a row whose ROID has several matching
+ * SEIDs or TOURs appears once per combination, and a row without a match appears
+ * once with NULL. {@link #combinations(String)} and {@link #fill} reproduce that.</p>
+ */
+public class EntempDimensions {
+
+    private final DataSource dataSource;
+    private final Dimension seid;
+    private final Dimension tour;
+
+    /**
+     * Create with the refresh interval from properties.
+     */
+    public EntempDimensions(DataSource dataSource) {
+        this(dataSource, DatabaseConfig.getLongProperty("dimension.refresh-interval-ms", 900_000));
+    }
+
+    public EntempDimensions(DataSource dataSource, long refreshIntervalMs) {
+        this.dataSource = dataSource;
+        this.seid = new Dimension("entemp.seid", SqlQueries.ENTEMP_SEID_DIMENSION, refreshIntervalMs);
+        this.tour = new Dimension("entemp.tour", SqlQueries.ENTEMP_TOUR_DIMENSION, refreshIntervalMs);
+    }
+
+    /**
+     * Load or reload both dimensions if needed; call before a run.
+     *
+     * @throws SQLException if a dimension has never loaded and cannot be loaded now
+     */
+    public void refresh() throws SQLException {
+        seid.refresh(dataSource);
+        tour.refresh(dataSource);
+    }
+
+    /**
+     * Rows the joined query returns for one row with this ROID.
+     */
+    public int combinations(String roid) {
+        return Math.max(1, seid.get(roid).size()) * Math.max(1, tour.get(roid).size());
+    }
+
+    /**
+     * Set SEID and TOUR of the {@code index}-th combination for the row's ROID
+     * (0 until {@link #combinations(String)}).
+     */
+    public void fill(CaseRelatedData data, int index) {
+        List<String> seids = seid.get(data.getRoid());
+        List<String> tours = tour.get(data.getRoid());
+        int tourCount = Math.max(1, tours.size());
+        int seidIndex = index / tourCount;
+        int tourIndex = index % tourCount;
+        data.setSeid(seidIndex < seids.size() ? seids.get(seidIndex) : null);
+        data.setTour(tourIndex < tours.size() ? tours.get(tourIndex) : null);
+    }
+
+    public Dimension getSeid() {
+        return seid;
+    }
+
+    public Dimension getTour() {
+        return tour;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.tviewcaserelated.enrich;
+
+import com.example.tviewcaserelated.sql.SqlQueries;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The per-row PL/SQL calls of the main query that split enrichment resolves on the
+ * client. Each lookup evaluates exactly the expression of the inline query over
+ * bound arguments {@code p1..pN}, and its result is read with the getter the
+ * {@link com.example.tviewcaserelated.mapper.ResultSetMapper} uses for the column.
+ */
+public enum EnrichedFunction {
+
+    /** {@code C_CASEIND}: {@code GETSEGIND(roid, tinsid)}. */
+    SEGIND("GETSEGIND(p1, p2)", 2, Type.STRING),
+
+    /** {@code STATIND} of an open case: {@code STATIND(tinsid)}. */
+    STATIND("STATIND(p1)", 1, Type.INTEGER),
+
+    /** {@code ASSNQUE} of an A/C/I segment: {@code GETASSNQUE(tin, tintt, tinfs, assncff, assnro)}. */
+    ASSNQUE("GETASSNQUE(p1, p2, p3, p4, p5)", 5, Type.STRING),
+
+    /** {@code PICKDT}: {@code TRUNC(ASSNPICKDT(tin, tinfs, tintt, status, proid, roid))}. */
+    PICKDT("TRUNC(ASSNPICKDT(p1, p2, p3, p4, p5, p6))", 6, Type.DATE),
+
+    /** {@code QPICKIND} of a domestic address: {@code ASSNQPICK(tin, tinfs, tintt, proid)}, recoded. */
+    QPICK(qpickind("ASSNQPICK(p1, p2, p3, p4)"), 4, Type.STRING),
+
+    /** {@code QPICKIND} of a foreign / APO / FPO address, via {@code INTLQPICK(tin, tinfs, tintt, status)}. */
+    QPICK_INTL(qpickind("ASSNQPICK(p1, p2, p3, INTLQPICK(p1, p2, p3, p4))"), 4, Type.STRING);
+
+    private enum Type { STRING, INTEGER, DATE }
+
+    private final String expression;
+    private final int argCount;
+    private final Type type;
+
+    EnrichedFunction(String expression, int argCount, Type type) {
+        this.expression = expression;
+        this.argCount = argCount;
+        this.type = type;
+    }
+
+    public int getArgCount() {
+        return argCount;
+    }
+
+    /**
+     * Lookup statement for up to {@code batchSize} argument tuples.
+     */
+    public String lookupSql(int batchSize) {
+        return SqlQueries.enrichmentLookup(expression, argCount, batchSize);
+    }
+
+    /**
+     * Read the function result from a lookup row.
+     */
+    Object read(ResultSet rs, int column) throws SQLException {
+        switch (type) {
+            case INTEGER:
+                int value = rs.getInt(column);
+                return rs.wasNull() ? null : value;
+            case DATE:
+                return rs.getDate(column);
+            default:
+                return rs.getString(column);
+        }
+    }
+
+    private static String qpickind(String call) {
+        return "DECODE(" + call + ", ',0', '0,0', '1,1', '2,2', '3,3', '4,4', '5,5', '6,6', '7,7', '?')";
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.tviewcaserelated.enrich;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded, concurrent cache of PL/SQL function results by argument tuple.
+ *
+ * <p>Entries are spread over {@value #SEGMENTS} independently locked LRU segments,
+ * so lookups from many query threads rarely contend. NULL results are cached too.
+ * Hits and misses are counted per function.</p>
+ */
+public class FunctionCache {
+
+    private static final int SEGMENTS = 16;
+    private static final Object NULL = new Object();
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Map<EnrichedFunction, LongAdder> hits = new EnumMap<>(EnrichedFunction.class);
+    private final Map<EnrichedFunction, LongAdder> misses = new EnumMap<>(EnrichedFunction.class);
+
+    /**
+     * @param maxEntries Entries kept across all functions
+     */
+    public FunctionCache(int maxEntries) {
+        int perSegment = Math.max(1, maxEntries / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        for (EnrichedFunction function : EnrichedFunction.values()) {
+            hits.put(function, new LongAdder());
+            misses.put(function, new LongAdder());
+        }
+    }
+
+    /**
+     * Cached result, counting a hit or a miss.
+     *
+     * @return true if {@code key} was cached; its value is passed to {@code found}
+     */
+    boolean lookup(Key key, Consumer<Object> found) {
+        Object value;
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value == null) {
+            misses.get(key.function).increment();
+            return false;
+        }
+        hits.get(key.function).increment();
+        found.accept(value == NULL ? null : value);
+        return true;
+    }
+
+    void put(Key key, Object value) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value == null ? NULL : value);
+        }
+    }
+
+    private Segment segmentFor(Key key) {
+        return segments[Math.floorMod(key.hashCode(), SEGMENTS)];
+    }
+
+    public long getHits(EnrichedFunction function) {
+        return hits.get(function).sum();
+    }
+
+    public long getMisses(EnrichedFunction function) {
+        return misses.get(function).sum();
+    }
+
+    public long getHits() {
+        return hits.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getMisses() {
+        return misses.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Share of lookups answered from the cache, 0..1.
+     */
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d entries, hit rate %.1f%% (%s)", size(), getHitRate() * 100,
+                Arrays.stream(EnrichedFunction.values())
+                        .filter(f -> getHits(f) + getMisses(f) > 0)
+                        .map(f -> String.format("%s %.1f%%", f,
+                                100.0 * getHits(f) / (getHits(f) + getMisses(f))))
+                        .collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * A function and its arguments.
+     */
+    static final class Key {
+        private final EnrichedFunction function;
+        private final Object[] args;
+        private final int hash;
+
+        Key(EnrichedFunction function, Object... args) {
+            this.function = function;
+            this.args = args;
+            this.hash = 31 * function.ordinal() + Arrays.hashCode(args);
+        }
+
+        EnrichedFunction getFunction() {
+            return function;
+        }
+
+        Object[] getArgs() {
+            return args;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return function == other.function && Arrays.equals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<Key, Object> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+            return size() > capacity;
+        }
+    }
+}
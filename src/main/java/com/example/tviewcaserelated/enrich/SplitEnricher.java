@@ -0,0 +1,211 @@
+package com.example.tviewcaserelated.enrich;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.model.CaseRelatedData;
+import com.example.tviewcaserelated.sql.SqlQueries;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Split enrichment: resolves the per-row PL/SQL columns of the main query on the
+ * client instead of calling the functions for every row.
+ *
+ * <p>The grade query is rewritten by {@link #rewrite(String)} to return the raw
+ * function inputs. For every fetched row, {@link Batch#add} works out which
+ * function calls the inline query would make (including its DECODE/CASE branches),
+ * answers what it can from the shared {@link FunctionCache}, and queues the rest.
+ * {@link Batch#resolve(Connection)} then evaluates the distinct missing calls in
+ * batched lookup statements, {@code batchSize} argument tuples per round trip, and
+ * fills in the rows. Calls are cached by their full argument tuple, so a function
+ * whose result depends on more than {@code (TIN, TINFS, TINTT)} is still exact.</p>
+ */
+public class SplitEnricher {
+
+    private final FunctionCache cache;
+    private final int batchSize;
+    private final int queryTimeoutSeconds;
+    private final Map<EnrichedFunction, String> lookupSql = new EnumMap<>(EnrichedFunction.class);
+    private final LongAdder lookupQueries = new LongAdder();
+
+    /**
+     * Create enricher with configuration from properties.
+     */
+    public SplitEnricher() {
+        this(new FunctionCache(DatabaseConfig.getIntProperty("enrichment.cache-size", 100_000)),
+                DatabaseConfig.getIntProperty("enrichment.batch-size", 100),
+                DatabaseConfig.getIntProperty("executor.query-timeout", 300));
+    }
+
+    /**
+     * Create enricher with custom configuration.
+     */
+    public SplitEnricher(FunctionCache cache, int batchSize, int queryTimeoutSeconds) {
+        this.cache = cache;
+        this.batchSize = Math.max(1, batchSize);
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        for (EnrichedFunction function : EnrichedFunction.values()) {
+            lookupSql.put(function, function.lookupSql(this.batchSize));
+        }
+    }
+
+    /**
+     * The split-enrichment variant of a grade query.
+     */
+    public String rewrite(String query) {
+        return SqlQueries.withSplitEnrichment(query);
+    }
+
+    /**
+     * Pending function calls of one result set.
+     */
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    public FunctionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Lookup statements executed so far.
+     */
+    public long getLookupQueries() {
+        return lookupQueries.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Split enrichment: %s, %,d lookup queries", cache, getLookupQueries());
+    }
+
+    /**
+     * Function calls of the rows of one result set; not thread-safe.
+     */
+    public final class Batch {
+        private final Map<EnrichedFunction, Map<FunctionCache.Key, List<Consumer<Object>>>> missing =
+                new EnumMap<>(EnrichedFunction.class);
+
+        private Batch() {
+        }
+
+        /**
+         * Work out the function columns of the current row of a split-enrichment
+         * query, filling {@code data} now where the cache or the row has the answer.
+         */
+        public void add(ResultSet rs, CaseRelatedData data) throws SQLException {
+            Object tin = rs.getObject("TIN");
+            Object tintt = rs.getObject("TINTT");
+            Object tinfs = rs.getObject("TINFS");
+            Object tinsid = rs.getObject("TINSID");
+            Object proid = rs.getObject("PROID");
+            String status = rs.getString("X_STATUS");
+            String segind = rs.getString("X_SEGIND");
+            String city = rs.getString("X_CITY");
+            Object zip = rs.getObject("X_ZIPCDE");
+
+            call(EnrichedFunction.SEGIND, v -> data.setCCaseind((String) v), rs.getObject("ROID"), tinsid);
+            // DECODE(b.STATUS, 'O', STATIND(a.TINSID), 0)
+            if ("O".equals(status)) {
+                call(EnrichedFunction.STATIND, v -> data.setStatind((Integer) v), tinsid);
+            } else {
+                data.setStatind(0);
+            }
+            // CASE WHEN b.segind IN ('A', 'C', 'I') THEN GETASSNQUE(...) ELSE b.ASSNRO END
+            if ("A".equals(segind) || "C".equals(segind) || "I".equals(segind)) {
+                call(EnrichedFunction.ASSNQUE, v -> data.setAssnque((String) v),
+                        tin, tintt, tinfs, rs.getObject("X_ASSNCFF"), rs.getObject("X_ASSNRO"));
+            } else {
+                data.setAssnque(rs.getString("X_ASSNRO"));
+            }
+            call(EnrichedFunction.PICKDT, v -> data.setPickdt((Date) v),
+                    tin, tinfs, tintt, status, proid, rs.getObject("X_ROID"));
+            // Zip code 00000, APO and FPO addresses use the international queue pick
+            boolean international = (zip instanceof Number && ((Number) zip).doubleValue() == 0)
+                    || "APO".equals(city) || "FPO".equals(city);
+            if (international) {
+                call(EnrichedFunction.QPICK_INTL, v -> data.setQpickind((String) v), tin, tinfs, tintt, status);
+            } else {
+                call(EnrichedFunction.QPICK, v -> data.setQpickind((String) v), tin, tinfs, tintt, proid);
+            }
+        }
+
+        private void call(EnrichedFunction function, Consumer<Object> setter, Object... args) {
+            FunctionCache.Key key = new FunctionCache.Key(function, args);
+            if (!cache.lookup(key, setter)) {
+                missing.computeIfAbsent(function, f -> new LinkedHashMap<>())
+                        .computeIfAbsent(key, k -> new ArrayList<>()).add(setter);
+            }
+        }
+
+        /**
+         * Evaluate the calls the cache could not answer and fill in their rows.
+         *
+         * @throws SQLException if a lookup fails or does not return a value for a call
+         */
+        public void resolve(Connection conn) throws SQLException {
+            for (Map.Entry<EnrichedFunction, Map<FunctionCache.Key, List<Consumer<Object>>>> entry
+                    : missing.entrySet()) {
+                EnrichedFunction function = entry.getKey();
+                List<FunctionCache.Key> keys = new ArrayList<>(entry.getValue().keySet());
+                try (PreparedStatement stmt = conn.prepareStatement(lookupSql.get(function))) {
+                    stmt.setQueryTimeout(queryTimeoutSeconds);
+                    for (int from = 0; from < keys.size(); from += batchSize) {
+                        List<FunctionCache.Key> batch = keys.subList(from, Math.min(keys.size(), from + batchSize));
+                        lookup(stmt, function, batch, entry.getValue());
+                    }
+                }
+            }
+            missing.clear();
+        }
+
+        private void lookup(PreparedStatement stmt, EnrichedFunction function, List<FunctionCache.Key> batch,
+                            Map<FunctionCache.Key, List<Consumer<Object>>> waiting) throws SQLException {
+            int parameter = 1;
+            for (int i = 0; i < batchSize; i++) {
+                int n = Math.min(i, batch.size() - 1);
+                stmt.setInt(parameter++, n + 1);
+                for (Object arg : batch.get(n).getArgs()) {
+                    if (arg == null) {
+                        stmt.setNull(parameter++, Types.VARCHAR);
+                    } else {
+                        stmt.setObject(parameter++, arg);
+                    }
+                }
+            }
+            BitSet answered = new BitSet(batch.size());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int n = rs.getInt(1) - 1;
+                    if (n < 0 || n >= batch.size() || answered.get(n)) {
+                        continue;
+                    }
+                    answered.set(n);
+                    FunctionCache.Key key = batch.get(n);
+                    Object value = function.read(rs, 2);
+                    cache.put(key, value);
+                    for (Consumer<Object> setter : waiting.get(key)) {
+                        setter.accept(value);
+                    }
+                }
+            }
+            lookupQueries.increment();
+            if (answered.cardinality() < batch.size()) {
+                throw new SQLException("Lookup of " + function + " answered " + answered.cardinality()
+                        + " of " + batch.size() + " calls");
+            }
+        }
+    }
+}
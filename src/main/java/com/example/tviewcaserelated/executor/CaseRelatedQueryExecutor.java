@@ -1,10 +1,27 @@
 package com.example.tviewcaserelated.executor;
 
 import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.dimension.EntempDimensions;
+import com.example.tviewcaserelated.enrich.SplitEnricher;
+import com.example.tviewcaserelated.mapper.Column;
+import com.example.tviewcaserelated.mapper.ColumnIndex;
+import com.example.tviewcaserelated.mapper.CompactCaseRow;
+import com.example.tviewcaserelated.mapper.CompactRowMapper;
 import com.example.tviewcaserelated.mapper.ResultSetMapper;
 import com.example.tviewcaserelated.model.CaseRelatedData;
 import com.example.tviewcaserelated.model.ExecutionSummary;
 import com.example.tviewcaserelated.model.QueryResult;
+import com.example.tviewcaserelated.model.SegmentedList;
+import com.example.tviewcaserelated.runtime.ConcurrencyLimiter;
+import com.example.tviewcaserelated.runtime.Deadline;
+import com.example.tviewcaserelated.runtime.ExecutionRuntime;
+import com.example.tviewcaserelated.runtime.HikariPoolPressureProbe;
+import com.example.tviewcaserelated.runtime.RunProgress;
+import com.example.tviewcaserelated.schedule.GradeGroupPlanner;
+import com.example.tviewcaserelated.schedule.GradeScheduler;
+import com.example.tviewcaserelated.schedule.HedgingPolicy;
+import com.example.tviewcaserelated.split.GradeChunk;
+import com.example.tviewcaserelated.split.GradeRangeSplitter;
 import com.example.tviewcaserelated.sql.SqlQueries;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,55 +33,170 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 /**
  * Parallel query executor for Tviewcaserelated.sql.
- * Executes queries for different grade values concurrently using a thread pool.
+ * Executes queries for different grade values concurrently on the shared execution runtime.
  * 
  * <p>Features:</p>
  * <ul>
  *   <li>Parallel execution by grade value</li>
+ *   <li>Per-grade results delivered in completion order</li>
+ *   <li>Optional intra-grade splitting into TINSID ranges</li>
+ *   <li>Largest-first scheduling from historical grade costs</li>
+ *   <li>Optional hedged second attempts for straggling tasks</li>
+ *   <li>Optional multi-grade statements, demultiplexed by C_GRADE</li>
+ *   <li>Optional run-scoped tables for the grade-independent CTEs</li>
+ *   <li>Optional split enrichment: per-row PL/SQL columns resolved through a client cache</li>
+ *   <li>Optional entemp dimensions: SEID and TOUR filled from memory instead of joined</li>
  *   <li>Configurable thread pool and fetch size</li>
+ *   <li>Shared execution runtime (platform or virtual threads)</li>
  *   <li>Connection pooling via HikariCP</li>
  *   <li>Detailed execution metrics</li>
- *   <li>Timeout handling for long-running queries</li>
+ *   <li>Optional deadline per run; live statements are cancelled when it expires</li>
  * </ul>
  */
 public class CaseRelatedQueryExecutor {
     
     private static final Logger logger = LoggerFactory.getLogger(CaseRelatedQueryExecutor.class);
+    private static final long HEDGE_CHECK_INTERVAL_MS = 50;
     
-    private final int threadPoolSize;
     private final int fetchSize;
     private final int queryTimeoutSeconds;
+    private final int runTimeoutSeconds;
     private final DataSource dataSource;
     private final ResultSetMapper mapper;
+    private final CompactRowMapper compactMapper;
+    private final GradeRangeSplitter splitter;
+    private final GradeScheduler scheduler;
+    private final HedgingPolicy hedging;
+    private final GradeGroupPlanner planner;
+    private final boolean sharedCtes;
+    private final SplitEnricher enricher;
+    private final EntempDimensions entemp;
     
     /**
      * Create executor with default configuration from properties.
      */
     public CaseRelatedQueryExecutor() {
-        this.threadPoolSize = DatabaseConfig.getIntProperty("executor.thread-pool-size", 4);
-        this.fetchSize = DatabaseConfig.getIntProperty("executor.fetch-size", 1000);
-        this.queryTimeoutSeconds = DatabaseConfig.getIntProperty("executor.query-timeout", 300);
-        this.dataSource = DatabaseConfig.getDataSource();
-        this.mapper = new ResultSetMapper();
+        this(builder(DatabaseConfig.getDataSource()));
         
-        logger.info("Executor initialized: threads={}, fetchSize={}, timeout={}s",
-                threadPoolSize, fetchSize, queryTimeoutSeconds);
+        logger.info("Executor initialized: fetchSize={}, timeout={}s, run deadline={}, split={}, hedging={}, "
+                        + "grouping={}, shared CTEs={}, split enrichment={}, entemp dimensions={}", fetchSize,
+                queryTimeoutSeconds, runTimeoutSeconds > 0 ? runTimeoutSeconds + "s" : "none", splitter.isEnabled(), hedging.isEnabled(), planner.getMode(),
+                sharedCtes, enricher != null, entemp != null);
     }
     
     /**
      * Create executor with custom configuration.
+     *
+     * @param threadPoolSize Ignored; tasks run on the shared {@link ExecutionRuntime},
+     *                       sized by {@code executor.thread-pool-size}
+     * @deprecated Thread and connection concurrency are settings of the shared runtime;
+     *             use {@link #CaseRelatedQueryExecutor(int, int)} or {@link #builder(DataSource)}.
      */
+    @Deprecated
     public CaseRelatedQueryExecutor(int threadPoolSize, int fetchSize, int queryTimeoutSeconds) {
-        this.threadPoolSize = threadPoolSize;
-        this.fetchSize = fetchSize;
-        this.queryTimeoutSeconds = queryTimeoutSeconds;
-        this.dataSource = DatabaseConfig.getDataSource();
+        this(fetchSize, queryTimeoutSeconds);
+        logger.warn("Ignoring threadPoolSize={}: executors share one runtime, sized by executor.thread-pool-size",
+                threadPoolSize);
+    }
+    
+    /**
+     * Create executor with custom configuration.
+     * Thread and connection concurrency come from the shared {@link ExecutionRuntime}.
+     */
+    public CaseRelatedQueryExecutor(int fetchSize, int queryTimeoutSeconds) {
+        this(builder(DatabaseConfig.getDataSource()).fetchSize(fetchSize).queryTimeoutSeconds(queryTimeoutSeconds));
+    }
+    
+    private CaseRelatedQueryExecutor(Builder builder) {
+        this.fetchSize = builder.fetchSize;
+        this.queryTimeoutSeconds = builder.queryTimeoutSeconds;
+        this.runTimeoutSeconds = builder.runTimeoutSeconds;
+        this.dataSource = builder.dataSource;
         this.mapper = new ResultSetMapper();
+        this.compactMapper = new CompactRowMapper();
+        this.splitter = builder.splitter != null ? builder.splitter : new GradeRangeSplitter(dataSource);
+        this.scheduler = builder.scheduler != null ? builder.scheduler : new GradeScheduler(dataSource);
+        this.hedging = builder.hedging != null ? builder.hedging : new HedgingPolicy(scheduler.getHistory());
+        this.planner = builder.planner != null ? builder.planner : new GradeGroupPlanner(scheduler.getHistory());
+        this.sharedCtes = builder.sharedCtes;
+        this.enricher = builder.enricherSet ? builder.enricher : configuredEnricher();
+        this.entemp = builder.entempSet ? builder.entemp : configuredEntemp(dataSource);
+    }
+    
+    /**
+     * Builder for an executor on an explicit data source, e.g. for tests or a second
+     * database. Anything not set comes from the properties, as for
+     * {@link #CaseRelatedQueryExecutor()}.
+     */
+    public static Builder builder(DataSource dataSource) {
+        return new Builder(dataSource);
+    }
+    
+    private static SplitEnricher configuredEnricher() {
+        return DatabaseConfig.getBooleanProperty("enrichment.split.enabled", false) ? new SplitEnricher() : null;
+    }
+    
+    private static EntempDimensions configuredEntemp(DataSource dataSource) {
+        return DatabaseConfig.getBooleanProperty("dimension.entemp.enabled", false)
+                ? new EntempDimensions(dataSource) : null;
+    }
+    
+    /**
+     * The statement text for a grade, chunk or group query of a run.
+     */
+    private String prepare(String sql, SharedCteTables shared) {
+        String prepared = shared != null ? shared.rewrite(sql) : sql;
+        if (entemp != null) {
+            prepared = SqlQueries.withoutEntempJoins(prepared);
+        }
+        return enricher != null ? enricher.rewrite(prepared) : prepared;
+    }
+    
+    /**
+     * Load or reload the entemp dimensions before a run, if they are used.
+     */
+    private void refreshDimensions() throws SQLException {
+        if (entemp != null) {
+            entemp.refresh();
+        }
+    }
+    
+    /**
+     * Map the current row into {@code target}: one object, or one per SEID/TOUR
+     * combination with entemp dimensions.
+     */
+    private void readRow(ResultSet rs, ColumnIndex columns, SplitEnricher.Batch enrichment,
+                         List<CaseRelatedData> target) throws SQLException {
+        if (entemp == null) {
+            CaseRelatedData data = mapper.mapRow(rs, columns);
+            if (enrichment != null) {
+                enrichment.add(rs, data);
+            }
+            target.add(data);
+            return;
+        }
+        for (CaseRelatedData data : mapper.mapRows(rs, columns, entemp)) {
+            if (enrichment != null) {
+                enrichment.add(rs, data);
+            }
+            target.add(data);
+        }
     }
     
     /**
@@ -86,108 +218,554 @@ public class CaseRelatedQueryExecutor {
      * @throws Exception if execution fails
      */
     public List<CaseRelatedData> executeParallel(int[] grades) throws Exception {
-        logger.info("Starting parallel execution with {} threads for grades: {}",
-                threadPoolSize, Arrays.toString(grades));
+        return executeParallel(grades, result -> { });
+    }
+    
+    /**
+     * Execute queries in parallel and hand each grade's result to {@code onGradeComplete}
+     * as soon as its last chunk finishes, in completion order, so callers can use the
+     * fastest grade without waiting for the slowest one.
+     *
+     * <p>The callback runs on the calling thread, one grade at a time. The returned list
+     * is a {@link SegmentedList} view over the per-grade lists in the requested grade
+     * order; no rows are copied.</p>
+     *
+     * <p>If the {@link GradeGroupPlanner} groups grades, each group runs as one
+     * multi-grade statement and its grades are delivered together when it finishes.
+     * With shared CTEs enabled and more than one statement to run, the
+     * grade-independent CTEs are materialized once into {@link SharedCteTables} that
+     * all statements read, and dropped when the run ends.</p>
+     *
+     * @param grades          Array of grade values to query
+     * @param onGradeComplete Called once per successful grade, in completion order
+     * @return List of all results from all grades
+     * @throws Exception if execution fails
+     */
+    public List<CaseRelatedData> executeParallel(int[] grades, Consumer<QueryResult> onGradeComplete)
+            throws Exception {
+        ExecutionRuntime runtime = ExecutionRuntime.shared();
+        refreshDimensions();
+        logger.info("Starting parallel execution ({} threads, {} concurrent queries) for grades: {}",
+                runtime.getMode(), runtime.getConcurrency(), Arrays.toString(grades));
         
-        ExecutorService executor = Executors.newFixedThreadPool(threadPoolSize,
-                r -> {
-                    Thread t = new Thread(r);
-                    t.setName("QueryExecutor-" + t.getId());
-                    return t;
-                });
+        GradeGroupPlanner.Plan plan = planner.plan(grades, runtime.getConcurrency());
+        GradeScheduler.Schedule schedule = plan.isPerGrade()
+                ? scheduler.schedule(splitter.plan(grades), runtime.getConcurrency()) : null;
+        int statements = schedule != null ? schedule.getChunks().size() : plan.getGroups().size();
+        SharedCteTables shared = sharedCtes && statements > 1 ? materializeSharedCtes() : null;
+        try {
+            return schedule != null
+                    ? executeScheduled(runtime, grades, plan, schedule, shared, onGradeComplete)
+                    : executeGrouped(runtime, grades, plan, shared, onGradeComplete);
+        } finally {
+            if (shared != null) {
+                shared.close();
+            }
+        }
+    }
+    
+    /**
+     * Shared CTE tables for a run, or null (queries compute the CTEs themselves) if
+     * they cannot be created, e.g. without CREATE TABLE privilege.
+     */
+    private SharedCteTables materializeSharedCtes() {
+        try {
+            return SharedCteTables.create(dataSource);
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Could not materialize shared CTEs, running without them: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Run one statement per grade or chunk, in schedule order, with hedging.
+     */
+    private List<CaseRelatedData> executeScheduled(ExecutionRuntime runtime, int[] grades,
+                                                   GradeGroupPlanner.Plan plan, GradeScheduler.Schedule schedule,
+                                                   SharedCteTables shared, Consumer<QueryResult> onGradeComplete)
+            throws Exception {
+        List<GradeChunk> chunks = schedule.getChunks();
         
-        List<Future<QueryResult>> futures = new ArrayList<>();
+        CompletionService<QueryResult> completion = new ExecutorCompletionService<>(runtime);
+        Map<Future<QueryResult>, Attempt> attempts = new HashMap<>();
+        Map<GradeChunk, List<Future<QueryResult>>> attemptsByChunk = new HashMap<>();
+        Map<Integer, Integer> chunksLeft = new HashMap<>();
         long startTime = System.currentTimeMillis();
+        Deadline deadline = Deadline.ofTimeout(runTimeoutSeconds, TimeUnit.SECONDS);
+        RunProgress progress = new RunProgress(chunks);
         
-        // Submit tasks for each grade
-        for (int grade : grades) {
-            futures.add(executor.submit(() -> executeForGrade(grade)));
+        // Submit tasks for each grade, or for each chunk of a split grade, largest first
+        for (GradeChunk chunk : chunks) {
+            String sql = prepare(chunk.getSql(), shared);
+            submitAttempt(completion, new Attempt(chunk, sql, deadline.child(), progress.track(chunk), false),
+                    attempts, attemptsByChunk);
+            chunksLeft.merge(chunk.getGrade(), 1, Integer::sum);
+        }
+        
+        // Collect chunk results as they finish; a grade is delivered once all its chunks are in
+        Map<Integer, QueryResult> resultsByGrade = new HashMap<>();
+        Map<Integer, SortedMap<Integer, QueryResult>> partsByGrade = new HashMap<>();
+        Set<Integer> failedGrades = new LinkedHashSet<>();
+        Set<GradeChunk> resolved = new HashSet<>();
+        int hedgeBudget = hedging.budget(chunks.size());
+        long firstGradeMs = -1;
+        
+        while (resolved.size() < chunks.size()) {
+            long wait = deadline.remaining(TimeUnit.NANOSECONDS);
+            if (hedgeBudget > 0) {
+                wait = Math.min(wait, TimeUnit.MILLISECONDS.toNanos(HEDGE_CHECK_INTERVAL_MS));
+            }
+            Future<QueryResult> future;
+            try {
+                future = completion.poll(wait, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted waiting for results; cancelling remaining queries");
+                deadline.expire();
+                attempts.keySet().forEach(f -> f.cancel(true));
+                break;
+            }
+            if (future == null) {
+                if (deadline.isExpired()) {
+                    expire(deadline, progress, attempts.keySet());
+                    break;
+                }
+                if (hedgeStraggler(runtime, completion, chunks, resolved, attempts, attemptsByChunk, deadline)) {
+                    hedgeBudget--;
+                }
+                continue;
+            }
+            
+            Attempt attempt = attempts.get(future);
+            GradeChunk chunk = attempt.chunk;
+            if (resolved.contains(chunk)) {
+                // Losing attempt of a hedged chunk
+                continue;
+            }
+            QueryResult part = null;
+            Throwable failure = null;
+            try {
+                part = future.get();
+            } catch (CancellationException e) {
+                failure = e;
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            }
+            
+            if (failure != null && isAnyRunning(attemptsByChunk.get(chunk), future)) {
+                logger.warn("Attempt for {} failed ({}); waiting for the other attempt", chunk, failure.getMessage());
+                continue;
+            }
+            resolved.add(chunk);
+            int grade = chunk.getGrade();
+            if (failure != null) {
+                failedGrades.add(grade);
+                if (failure instanceof CancellationException) {
+                    logger.debug("Query for {} cancelled", chunk);
+                } else {
+                    logger.error("Query for {} failed: {}", chunk, failure.getMessage());
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Stack trace:", failure);
+                    }
+                }
+            } else {
+                partsByGrade.computeIfAbsent(grade, g -> new TreeMap<>()).put(chunk.getChunkIndex(), part);
+                cancelOtherAttempts(attemptsByChunk.get(chunk), future, attempts);
+                progress.track(chunk).complete(part.getRecordCount());
+                if (attempt.hedge) {
+                    hedging.recordWon();
+                    logger.info("Hedged attempt for {} won", chunk);
+                }
+            }
+            
+            if (chunksLeft.merge(grade, -1, Integer::sum) > 0 || failedGrades.contains(grade)) {
+                continue;
+            }
+            // Stitch chunks back into one result per grade
+            QueryResult result = QueryResult.merge(grade, new ArrayList<>(partsByGrade.get(grade).values()));
+            resultsByGrade.put(grade, result);
+            if (firstGradeMs < 0) {
+                firstGradeMs = System.currentTimeMillis() - startTime;
+                logger.info("First grade ready after {} ms", firstGradeMs);
+            }
+            logger.info("Grade {}: {} records in {} ms ({} chunk(s), thread: {})",
+                    result.getGrade(), result.getRecordCount(), result.getExecutionTimeMs(),
+                    result.getChunkCount(), result.getThreadName());
+            try {
+                onGradeComplete.accept(result);
+            } catch (RuntimeException e) {
+                // JDBC ignores interrupts: cancel the live statements, then drop unstarted tasks
+                deadline.expire();
+                attempts.keySet().forEach(f -> f.cancel(true));
+                throw e;
+            }
         }
         
-        // Collect results
-        List<CaseRelatedData> allResults = new ArrayList<>();
+        // Grades that never completed (failed chunk or run deadline) are incomplete
+        for (int grade : grades) {
+            Map<Integer, QueryResult> parts = partsByGrade.getOrDefault(grade, Collections.emptySortedMap());
+            if (!resultsByGrade.containsKey(grade) && !parts.isEmpty()) {
+                logger.error("Grade {} incomplete, discarding {} successful chunk(s)", grade, parts.size());
+            }
+        }
         List<QueryResult> queryResults = new ArrayList<>();
-        int failedQueries = 0;
+        List<CaseRelatedData> allResults = collect(grades, resultsByGrade, failedGrades, queryResults);
         
-        for (Future<QueryResult> future : futures) {
+        long totalTime = System.currentTimeMillis() - startTime;
+        logSummary(runtime, queryResults, totalTime, failedGrades.size());
+        if (hedging.isEnabled()) {
+            logger.info("{}", hedging);
+        }
+        scheduler.complete(schedule, queryResults, totalTime);
+        if (failedGrades.isEmpty()) {
+            planner.complete(plan, totalTime);
+        }
+        
+        return allResults;
+    }
+    
+    /**
+     * Run grouped grades: one multi-grade statement per group, rows split back into
+     * per-grade results by {@code C_GRADE}. Groups are not split or hedged; each
+     * group's grades are delivered to {@code onGradeComplete} when it finishes.
+     */
+    private List<CaseRelatedData> executeGrouped(ExecutionRuntime runtime, int[] grades, GradeGroupPlanner.Plan plan,
+                                                 SharedCteTables shared, Consumer<QueryResult> onGradeComplete) {
+        logger.info("Running {} grade(s) as {} statement(s): {}", grades.length, plan.getGroups().size(), plan);
+        CompletionService<List<QueryResult>> completion = new ExecutorCompletionService<>(runtime);
+        Map<Future<List<QueryResult>>, int[]> groupsByFuture = new HashMap<>();
+        long startTime = System.currentTimeMillis();
+        Deadline deadline = Deadline.ofTimeout(runTimeoutSeconds, TimeUnit.SECONDS);
+        
+        for (int[] group : plan.getGroups()) {
+            Deadline groupDeadline = deadline.child();
+            String groupSql = prepare(SqlQueries.multiGradeQuery(group.length), shared);
+            groupsByFuture.put(completion.submit(() -> executeForGroup(group, groupSql, groupDeadline)), group);
+        }
+        
+        Map<Integer, QueryResult> resultsByGrade = new HashMap<>();
+        Set<Integer> failedGrades = new LinkedHashSet<>();
+        for (int done = 0; done < groupsByFuture.size(); done++) {
+            Future<List<QueryResult>> future;
             try {
-                QueryResult result = future.get(queryTimeoutSeconds + 60, TimeUnit.SECONDS);
-                allResults.addAll(result.getData());
-                queryResults.add(result);
-                
-                logger.info("Grade {:2d}: {:>8,d} records in {:>6,d} ms (thread: {})",
-                        result.getGrade(), result.getRecordCount(),
-                        result.getExecutionTimeMs(), result.getThreadName());
-                        
-            } catch (TimeoutException e) {
-                failedQueries++;
-                logger.error("Query timed out after {} seconds", queryTimeoutSeconds + 60);
+                future = completion.poll(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted waiting for results; cancelling remaining queries");
+                deadline.expire();
+                groupsByFuture.keySet().forEach(f -> f.cancel(true));
+                break;
+            }
+            if (future == null) {
+                int cancelled = deadline.expire();
+                groupsByFuture.keySet().forEach(f -> f.cancel(true));
+                logger.error("{}: cancelled {} live statement(s); {} of {} group(s) complete",
+                        deadline.describe(), cancelled, done, groupsByFuture.size());
+                break;
+            }
+            int[] group = groupsByFuture.get(future);
+            List<QueryResult> results;
+            try {
+                results = future.get();
+            } catch (CancellationException e) {
+                logger.debug("Query for grades {} cancelled", Arrays.toString(group));
+                continue;
             } catch (ExecutionException e) {
-                failedQueries++;
-                logger.error("Query execution failed: {}", e.getCause().getMessage());
+                logger.error("Query for grades {} failed: {}", Arrays.toString(group), e.getCause().getMessage());
                 if (logger.isDebugEnabled()) {
                     logger.debug("Stack trace:", e.getCause());
                 }
+                continue;
             } catch (InterruptedException e) {
-                failedQueries++;
                 Thread.currentThread().interrupt();
-                logger.error("Query interrupted");
+                break;
+            }
+            for (QueryResult result : results) {
+                resultsByGrade.put(result.getGrade(), result);
+                logger.info("Grade {}: {} records in {} ms (grades {}, thread: {})",
+                        result.getGrade(), result.getRecordCount(), result.getExecutionTimeMs(),
+                        Arrays.toString(group), result.getThreadName());
+                try {
+                    onGradeComplete.accept(result);
+                } catch (RuntimeException e) {
+                    deadline.expire();
+                    groupsByFuture.keySet().forEach(f -> f.cancel(true));
+                    throw e;
+                }
             }
         }
         
-        // Shutdown executor
-        executor.shutdown();
-        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
-            logger.warn("Executor did not terminate gracefully, forcing shutdown");
-            executor.shutdownNow();
-        }
-        
-        // Log summary
+        List<QueryResult> queryResults = new ArrayList<>();
+        List<CaseRelatedData> allResults = collect(grades, resultsByGrade, failedGrades, queryResults);
         long totalTime = System.currentTimeMillis() - startTime;
-        ExecutionSummary summary = new ExecutionSummary(queryResults, totalTime, failedQueries);
-        
+        logSummary(runtime, queryResults, totalTime, failedGrades.size());
+        if (failedGrades.isEmpty()) {
+            planner.complete(plan, totalTime);
+        }
+        return allResults;
+    }
+    
+    /**
+     * Results in the requested grade order as one view; grades without a result are
+     * added to {@code failedGrades}.
+     */
+    private static List<CaseRelatedData> collect(int[] grades, Map<Integer, QueryResult> resultsByGrade,
+                                                 Set<Integer> failedGrades, List<QueryResult> queryResults) {
+        List<List<CaseRelatedData>> segments = new ArrayList<>();
+        for (int grade : grades) {
+            QueryResult result = resultsByGrade.get(grade);
+            if (result == null) {
+                failedGrades.add(grade);
+                continue;
+            }
+            queryResults.add(result);
+            segments.add(result.getData());
+        }
+        return new SegmentedList<>(segments);
+    }
+    
+    private void logSummary(ExecutionRuntime runtime, List<QueryResult> queryResults,
+                            long totalTime, int failedCount) {
+        ExecutionSummary summary = new ExecutionSummary(queryResults, totalTime, failedCount);
         logger.info("Execution complete: {}", summary);
-        logger.info("Pool stats: {}", DatabaseConfig.getPoolStats());
+        logger.info("Pool stats: {}, {}", DatabaseConfig.getPoolStats(), runtime);
+        if (enricher != null) {
+            logger.info("{}", enricher);
+        }
+    }
+    
+    private void submitAttempt(CompletionService<QueryResult> completion, Attempt attempt,
+                               Map<Future<QueryResult>, Attempt> attempts,
+                               Map<GradeChunk, List<Future<QueryResult>>> attemptsByChunk) {
+        Future<QueryResult> future = completion.submit(
+                () -> executeForChunk(attempt.chunk, attempt.sql, attempt.deadline, attempt.tracker));
+        attempts.put(future, attempt);
+        attemptsByChunk.computeIfAbsent(attempt.chunk, c -> new ArrayList<>()).add(future);
+    }
+    
+    /**
+     * Launch a second attempt for the first chunk (in schedule order) that has run past
+     * its grade's hedging threshold, if there is a free query permit and nobody is
+     * waiting on the pool. At most one attempt is launched per check.
+     *
+     * @return true if an attempt was launched
+     */
+    private boolean hedgeStraggler(ExecutionRuntime runtime, CompletionService<QueryResult> completion,
+                                   List<GradeChunk> chunks, Set<GradeChunk> resolved,
+                                   Map<Future<QueryResult>, Attempt> attempts,
+                                   Map<GradeChunk, List<Future<QueryResult>>> attemptsByChunk,
+                                   Deadline deadline) {
+        ConcurrencyLimiter limiter = runtime.getLimiter();
+        if (limiter.getInFlight() >= limiter.getLimit()
+                || HikariPoolPressureProbe.configured().getThreadsAwaitingConnection() > 0) {
+            return false;
+        }
+        for (GradeChunk chunk : chunks) {
+            List<Future<QueryResult>> chunkAttempts = attemptsByChunk.get(chunk);
+            if (resolved.contains(chunk) || chunkAttempts.size() > 1) {
+                continue;
+            }
+            long threshold = hedging.thresholdMs(chunk.getGrade(), chunk.getChunkCount());
+            Attempt first = attempts.get(chunkAttempts.get(0));
+            long running = first.tracker.getRunningMs();
+            if (threshold < 0 || running < threshold) {
+                continue;
+            }
+            logger.warn("Hedging {}: running {} ms, threshold {} ms; launching a second attempt",
+                    chunk, running, threshold);
+            submitAttempt(completion, new Attempt(chunk, first.sql, deadline.child(), new RunProgress.Tracker(), true),
+                    attempts, attemptsByChunk);
+            hedging.recordFired();
+            return true;
+        }
+        return false;
+    }
+    
+    private static boolean isAnyRunning(List<Future<QueryResult>> chunkAttempts, Future<QueryResult> except) {
+        for (Future<QueryResult> other : chunkAttempts) {
+            if (other != except && !other.isDone()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Cancel the losing attempts of a chunk: cancel their statements so the
+     * connections are released, and their futures in case they have not started.
+     */
+    private static void cancelOtherAttempts(List<Future<QueryResult>> chunkAttempts, Future<QueryResult> winner,
+                                            Map<Future<QueryResult>, Attempt> attempts) {
+        for (Future<QueryResult> other : chunkAttempts) {
+            if (other != winner && !other.isDone()) {
+                attempts.get(other).deadline.expire();
+                other.cancel(true);
+            }
+        }
+    }
+    
+    /**
+     * One execution of a chunk: the original, or a hedged second attempt.
+     * Each attempt has its own child deadline so the loser can be cancelled alone.
+     */
+    private static final class Attempt {
+        final GradeChunk chunk;
+        final String sql;
+        final Deadline deadline;
+        final RunProgress.Tracker tracker;
+        final boolean hedge;
         
-        return allResults;
+        Attempt(GradeChunk chunk, String sql, Deadline deadline, RunProgress.Tracker tracker, boolean hedge) {
+            this.chunk = chunk;
+            this.sql = sql;
+            this.deadline = deadline;
+            this.tracker = tracker;
+            this.hedge = hedge;
+        }
+    }
+    
+    /**
+     * The run deadline passed: cancel live statements so their connections are
+     * released, drop tasks that have not started, and report how far the run got.
+     */
+    private void expire(Deadline deadline, RunProgress progress, Collection<Future<QueryResult>> futures) {
+        int cancelled = deadline.expire();
+        for (Future<QueryResult> future : futures) {
+            future.cancel(true);
+        }
+        logger.error("{}: cancelled {} live statement(s); progress: {}", deadline.describe(), cancelled, progress);
+        logger.error("In flight when cancelled: {}", progress.describeRunning());
     }
     
     /**
-     * Execute query for a single grade value.
+     * Execute query for a single grade, or one TINSID range of a split grade.
      * This method is called in parallel from the thread pool.
      *
-     * @param grade The grade value to filter by
+     * @param chunk    The grade (and optional TINSID range) to query
+     * @param sql      The chunk's query, possibly reading shared CTE tables
+     * @param deadline Run deadline; the statement is cancelled when it expires
+     * @param tracker  Progress reporting for this chunk
      * @return QueryResult containing data and metrics
-     * @throws SQLException if database error occurs
+     * @throws SQLException if database error occurs or the deadline expires
      */
-    private QueryResult executeForGrade(int grade) throws SQLException {
+    private QueryResult executeForChunk(GradeChunk chunk, String sql, Deadline deadline,
+                                        RunProgress.Tracker tracker) throws SQLException {
         List<CaseRelatedData> results = new ArrayList<>();
         long startTime = System.currentTimeMillis();
         
-        logger.debug("Starting query for grade {} on thread {}",
-                grade, Thread.currentThread().getName());
+        deadline.check(chunk);
+        tracker.start();
+        logger.debug("Starting query for {} on thread {}",
+                chunk, Thread.currentThread().getName());
         
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SqlQueries.TVIEWCASERELATED_QUERY)) {
-            
-            // Configure statement
-            stmt.setFetchSize(fetchSize);
-            stmt.setQueryTimeout(queryTimeoutSeconds);
-            stmt.setInt(1, grade);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            // Execute and process results
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    results.add(mapper.mapRow(rs));
+            deadline.register(stmt);
+            try {
+                // Configure statement
+                stmt.setFetchSize(fetchSize);
+                stmt.setQueryTimeout(deadline.queryTimeoutSeconds(queryTimeoutSeconds));
+                chunk.bind(stmt);
+                
+                // Execute and process results
+                SplitEnricher.Batch enrichment = enricher != null ? enricher.newBatch() : null;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ColumnIndex columns = mapper.columns(rs);
+                    int reported = 0;
+                    while (rs.next()) {
+                        readRow(rs, columns, enrichment, results);
+                        if (results.size() - reported >= fetchSize) {
+                            reported = results.size();
+                            tracker.rows(reported);
+                        }
+                    }
+                }
+                if (enrichment != null) {
+                    enrichment.resolve(conn);
                 }
+            } finally {
+                deadline.unregister(stmt);
             }
+        } catch (SQLException | RuntimeException e) {
+            tracker.fail();
+            throw e;
         }
+        tracker.complete(results.size());
         
         long executionTime = System.currentTimeMillis() - startTime;
-        logger.debug("Completed query for grade {}: {} records in {} ms",
-                grade, results.size(), executionTime);
+        logger.debug("Completed query for {}: {} records in {} ms",
+                chunk, results.size(), executionTime);
         
-        return new QueryResult(grade, results, results.size(), executionTime);
+        return new QueryResult(chunk.getGrade(), results, results.size(), executionTime);
+    }
+    
+    /**
+     * Execute one multi-grade statement and split its rows by {@code C_GRADE}.
+     *
+     * @param group    Grades bound into the statement
+     * @param sql      Multi-grade query for the group
+     * @param deadline Run deadline; the statement is cancelled when it expires
+     * @return One result per grade, in group order
+     * @throws SQLException if database error occurs, the deadline expires, or a row
+     *                      belongs to a grade outside the group
+     */
+    private List<QueryResult> executeForGroup(int[] group, String sql, Deadline deadline) throws SQLException {
+        Map<Integer, List<CaseRelatedData>> rowsByGrade = new HashMap<>();
+        for (int grade : group) {
+            rowsByGrade.put(grade, new ArrayList<>());
+        }
+        long startTime = System.currentTimeMillis();
+        
+        deadline.check("grades " + Arrays.toString(group));
+        logger.debug("Starting query for grades {} on thread {}",
+                Arrays.toString(group), Thread.currentThread().getName());
+        
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            deadline.register(stmt);
+            try {
+                stmt.setFetchSize(fetchSize);
+                stmt.setQueryTimeout(deadline.queryTimeoutSeconds(queryTimeoutSeconds));
+                for (int i = 0; i < group.length; i++) {
+                    stmt.setInt(i + 1, group[i]);
+                }
+                
+                SplitEnricher.Batch enrichment = enricher != null ? enricher.newBatch() : null;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ColumnIndex columns = mapper.columns(rs);
+                    while (rs.next()) {
+                        Integer grade = columns != null
+                                ? rs.getInt(columns.of(Column.C_GRADE)) : rs.getInt(Column.C_GRADE.name());
+                        if (rs.wasNull()) {
+                            grade = null;
+                        }
+                        List<CaseRelatedData> rows = grade != null ? rowsByGrade.get(grade) : null;
+                        if (rows == null) {
+                            throw new SQLException("Row with C_GRADE " + grade
+                                    + " returned for grades " + Arrays.toString(group));
+                        }
+                        readRow(rs, columns, enrichment, rows);
+                    }
+                }
+                if (enrichment != null) {
+                    enrichment.resolve(conn);
+                }
+            } finally {
+                deadline.unregister(stmt);
+            }
+        }
+        
+        long executionTime = System.currentTimeMillis() - startTime;
+        List<QueryResult> results = new ArrayList<>(group.length);
+        for (int grade : group) {
+            List<CaseRelatedData> rows = rowsByGrade.get(grade);
+            results.add(new QueryResult(grade, rows, rows.size(), executionTime));
+        }
+        logger.debug("Completed query for grades {}: {} records in {} ms",
+                Arrays.toString(group), results.stream().mapToInt(QueryResult::getRecordCount).sum(), executionTime);
+        return results;
     }
     
     /**
@@ -198,10 +776,68 @@ public class CaseRelatedQueryExecutor {
      * @throws SQLException if database error occurs
      */
     public List<CaseRelatedData> executeSingle(int grade) throws SQLException {
-        QueryResult result = executeForGrade(grade);
+        refreshDimensions();
+        GradeChunk chunk = GradeChunk.wholeGrade(grade);
+        Deadline deadline = Deadline.ofTimeout(runTimeoutSeconds, TimeUnit.SECONDS);
+        QueryResult result = executeForChunk(chunk, prepare(chunk.getSql(), null), deadline, new RunProgress(List.of(chunk)).track(chunk));
         return result.getData();
     }
     
+    /**
+     * Execute the query for one whole grade and keep the rows as {@link CompactCaseRow}s,
+     * for full-grade results that would not fit the heap as {@link CaseRelatedData}.
+     *
+     * <p>Runs the plain query: the PL/SQL columns are computed inline and SEID and TOUR
+     * joined, whether or not split enrichment or entemp dimensions are configured, as
+     * both fill in {@link CaseRelatedData} objects.</p>
+     *
+     * @param grade The grade value to query
+     * @return Compact rows for that grade
+     * @throws SQLException if database error occurs or the run deadline expires
+     */
+    public List<CompactCaseRow> executeCompact(int grade) throws SQLException {
+        GradeChunk chunk = GradeChunk.wholeGrade(grade);
+        Deadline deadline = Deadline.ofTimeout(runTimeoutSeconds, TimeUnit.SECONDS);
+        List<CompactCaseRow> results = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
+        
+        deadline.check(chunk);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(chunk.getSql())) {
+            
+            deadline.register(stmt);
+            try {
+                stmt.setFetchSize(fetchSize);
+                stmt.setQueryTimeout(deadline.queryTimeoutSeconds(queryTimeoutSeconds));
+                chunk.bind(stmt);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ColumnIndex columns = compactMapper.columns(rs);
+                    while (rs.next()) {
+                        results.add(compactMapper.mapRow(rs, columns));
+                    }
+                }
+            } finally {
+                deadline.unregister(stmt);
+            }
+        }
+        
+        logger.debug("Completed compact query for {}: {} records in {} ms",
+                chunk, results.size(), System.currentTimeMillis() - startTime);
+        return results;
+    }
+    
+    /**
+     * Drop shared CTE tables older than {@code executor.shared-cte.stale-minutes}, left
+     * by runs that died before cleaning up. Runs never sweep on their own; call this
+     * only when no run that long can still be active.
+     *
+     * @return Number of tables dropped; 0 if the property is 0 or less
+     */
+    public int dropStaleSharedCteTables() {
+        long minutes = DatabaseConfig.getLongProperty("executor.shared-cte.stale-minutes", 240);
+        return minutes > 0 ? SharedCteTables.dropStale(dataSource, minutes) : 0;
+    }
+    
     /**
      * Get count of records for a grade without fetching all data.
      *
@@ -210,10 +846,8 @@ public class CaseRelatedQueryExecutor {
      * @throws SQLException if database error occurs
      */
     public int getCountForGrade(int grade) throws SQLException {
-        String countQuery = "SELECT COUNT(*) FROM ENT WHERE grade = ?";
-        
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(countQuery)) {
+             PreparedStatement stmt = conn.prepareStatement(SqlQueries.GRADE_ROW_COUNT)) {
             
             stmt.setInt(1, grade);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -224,4 +858,98 @@ public class CaseRelatedQueryExecutor {
         }
         return 0;
     }
+    
+    /**
+     * Optional collaborators and settings of a {@link CaseRelatedQueryExecutor}; see
+     * {@link CaseRelatedQueryExecutor#builder(DataSource)}.
+     */
+    public static final class Builder {
+        
+        private final DataSource dataSource;
+        private int fetchSize = DatabaseConfig.getIntProperty("executor.fetch-size", 1000);
+        private int queryTimeoutSeconds = DatabaseConfig.getIntProperty("executor.query-timeout", 300);
+        private int runTimeoutSeconds = DatabaseConfig.getIntProperty("executor.run-timeout", 0);
+        private GradeRangeSplitter splitter;
+        private GradeScheduler scheduler;
+        private HedgingPolicy hedging;
+        private GradeGroupPlanner planner;
+        private boolean sharedCtes = DatabaseConfig.getBooleanProperty("executor.shared-cte.enabled", false);
+        private SplitEnricher enricher;
+        private boolean enricherSet;
+        private EntempDimensions entemp;
+        private boolean entempSet;
+        
+        private Builder(DataSource dataSource) {
+            this.dataSource = Objects.requireNonNull(dataSource, "dataSource");
+        }
+        
+        public Builder fetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+            return this;
+        }
+        
+        public Builder queryTimeoutSeconds(int queryTimeoutSeconds) {
+            this.queryTimeoutSeconds = queryTimeoutSeconds;
+            return this;
+        }
+        
+        /**
+         * Deadline for a whole run; 0 for none.
+         */
+        public Builder runTimeoutSeconds(int runTimeoutSeconds) {
+            this.runTimeoutSeconds = runTimeoutSeconds;
+            return this;
+        }
+        
+        public Builder splitter(GradeRangeSplitter splitter) {
+            this.splitter = splitter;
+            return this;
+        }
+        
+        /**
+         * Scheduler; its cost history also backs the default hedging policy and
+         * grouping planner.
+         */
+        public Builder scheduler(GradeScheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+        
+        public Builder hedging(HedgingPolicy hedging) {
+            this.hedging = hedging;
+            return this;
+        }
+        
+        public Builder planner(GradeGroupPlanner planner) {
+            this.planner = planner;
+            return this;
+        }
+        
+        public Builder sharedCtes(boolean sharedCtes) {
+            this.sharedCtes = sharedCtes;
+            return this;
+        }
+        
+        /**
+         * Split enrichment; null for the inline PL/SQL columns.
+         */
+        public Builder enricher(SplitEnricher enricher) {
+            this.enricher = enricher;
+            this.enricherSet = true;
+            return this;
+        }
+        
+        /**
+         * Entemp dimensions; null for the joined SEID and TOUR columns.
+         */
+        public Builder entemp(EntempDimensions entemp) {
+            this.entemp = entemp;
+            this.entempSet = true;
+            return this;
+        }
+        
+        public CaseRelatedQueryExecutor build() {
+            return new CaseRelatedQueryExecutor(this);
+        }
+    }
 }
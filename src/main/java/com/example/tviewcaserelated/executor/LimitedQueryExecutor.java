@@ -1,9 +1,15 @@
 package com.example.tviewcaserelated.executor;
 
 import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.mapper.ColumnIndex;
 import com.example.tviewcaserelated.mapper.ResultSetMapper;
 import com.example.tviewcaserelated.model.CaseRelatedData;
+import com.example.tviewcaserelated.model.QueryResult;
+import com.example.tviewcaserelated.runtime.Deadline;
+import com.example.tviewcaserelated.runtime.ExecutionRuntime;
 import com.example.tviewcaserelated.sql.SqlQueries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.sql.*;
@@ -19,13 +25,23 @@ import java.util.concurrent.*;
  * - Verify SQL has no errors (ORA-xxxxx)
  * - See sample data
  * - Test without loading millions of rows
+ * 
+ * <p>The limit is pushed into the statement ({@link SqlQueries#limitedQuery(int)},
+ * unless {@code limited.fetch-first=false} for pre-12c databases) and capped with
+ * {@code setMaxRows}; once the limit is reached the statement is cancelled, so the
+ * database stops work on a result nobody will read. A grade that is not done after
+ * {@code limited.timeout-seconds} is cancelled the same way.</p>
  */
 public class LimitedQueryExecutor {
     
-    private final int threadPoolSize;
+    private static final Logger logger = LoggerFactory.getLogger(LimitedQueryExecutor.class);
+    
     private final int rowLimitPerGrade;
     private final DataSource dataSource;
     private final ResultSetMapper mapper;
+    private final boolean fetchFirst;
+    private final int timeoutSeconds;
+    private final String sql;
     
     /**
      * Create executor with default 100 rows per grade limit.
@@ -40,10 +56,32 @@ public class LimitedQueryExecutor {
      * @param rowLimitPerGrade Max rows to fetch per grade (e.g., 100)
      */
     public LimitedQueryExecutor(int rowLimitPerGrade) {
-        this.threadPoolSize = DatabaseConfig.getIntProperty("executor.thread-pool-size", 4);
+        this(DatabaseConfig.getDataSource(), rowLimitPerGrade,
+                DatabaseConfig.getBooleanProperty("limited.fetch-first", true));
+    }
+    
+    /**
+     * Create executor with a custom data source.
+     * 
+     * @param fetchFirst Limit rows in SQL ({@code FETCH FIRST}); false relies on
+     *                   {@code setMaxRows} and cancellation only
+     */
+    public LimitedQueryExecutor(DataSource dataSource, int rowLimitPerGrade, boolean fetchFirst) {
+        this(dataSource, rowLimitPerGrade, fetchFirst, DatabaseConfig.getIntProperty("limited.timeout-seconds", 300));
+    }
+    
+    /**
+     * Create executor with a custom data source and wait per grade.
+     * 
+     * @param timeoutSeconds Wait for each grade's result before its statement is cancelled
+     */
+    public LimitedQueryExecutor(DataSource dataSource, int rowLimitPerGrade, boolean fetchFirst, int timeoutSeconds) {
         this.rowLimitPerGrade = rowLimitPerGrade;
-        this.dataSource = DatabaseConfig.getDataSource();
+        this.dataSource = dataSource;
         this.mapper = new ResultSetMapper();
+        this.fetchFirst = fetchFirst;
+        this.timeoutSeconds = timeoutSeconds;
+        this.sql = fetchFirst ? SqlQueries.limitedQuery(rowLimitPerGrade) : SqlQueries.TVIEWCASERELATED_QUERY;
     }
     
     /**
@@ -52,36 +90,49 @@ public class LimitedQueryExecutor {
     public List<CaseRelatedData> executeParallel() throws Exception {
         int[] grades = DatabaseConfig.getGrades();
         
-        ExecutorService executor = Executors.newFixedThreadPool(threadPoolSize);
-        List<Future<GradeResult>> futures = new ArrayList<>();
+        ExecutionRuntime runtime = ExecutionRuntime.shared();
+        List<Future<QueryResult>> futures = new ArrayList<>();
+        List<Deadline> deadlines = new ArrayList<>();
+        Deadline run = Deadline.none();
         
         System.out.println("\n=== LIMITED MODE (Testing) ===");
-        System.out.println("Max rows per grade: " + rowLimitPerGrade);
+        System.out.println("Max rows per grade: " + rowLimitPerGrade + (fetchFirst ? " (FETCH FIRST)" : " (setMaxRows)"));
         System.out.println("Grades: " + java.util.Arrays.toString(grades));
+        System.out.println("Threads: " + runtime.getMode());
         System.out.println();
         
         long startTime = System.currentTimeMillis();
         
         for (int grade : grades) {
-            futures.add(executor.submit(() -> executeForGrade(grade)));
+            Deadline deadline = run.child();
+            deadlines.add(deadline);
+            futures.add(runtime.submit(() -> executeForGrade(grade, deadline)));
         }
         
         // Collect results
         List<CaseRelatedData> allResults = new ArrayList<>();
         
-        for (Future<GradeResult> future : futures) {
+        for (int i = 0; i < futures.size(); i++) {
+            Future<QueryResult> future = futures.get(i);
             try {
-                GradeResult result = future.get(5, TimeUnit.MINUTES);
-                allResults.addAll(result.rows);
+                QueryResult result = future.get(timeoutSeconds, TimeUnit.SECONDS);
+                allResults.addAll(result.getData());
                 System.out.printf("  Grade %2d: %,d rows fetched in %,d ms%n",
-                        result.grade, result.rows.size(), result.timeMs);
+                        result.getGrade(), result.getRecordCount(), result.getExecutionTimeMs());
+            } catch (TimeoutException e) {
+                // Like the row limit: stop the statement, not just the wait
+                deadlines.get(i).expire();
+                future.cancel(true);
+                System.err.println("  Grade " + grades[i] + ": no result after " + timeoutSeconds + " s; cancelled");
+            } catch (InterruptedException e) {
+                run.expire();
+                futures.forEach(f -> f.cancel(true));
+                throw e;
             } catch (Exception e) {
                 System.err.println("  Error: " + e.getMessage());
             }
         }
         
-        executor.shutdown();
-        
         long totalTime = System.currentTimeMillis() - startTime;
         System.out.printf("%nTotal: %,d rows in %,d ms%n", allResults.size(), totalTime);
         
@@ -91,38 +142,51 @@ public class LimitedQueryExecutor {
     /**
      * Execute for single grade with row limit.
      */
-    private GradeResult executeForGrade(int grade) throws SQLException {
+    public QueryResult executeForGrade(int grade) throws SQLException {
+        return executeForGrade(grade, Deadline.none());
+    }
+    
+    private QueryResult executeForGrade(int grade, Deadline deadline) throws SQLException {
         List<CaseRelatedData> rows = new ArrayList<>();
         long startTime = System.currentTimeMillis();
         
+        deadline.check("grade " + grade);
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SqlQueries.TVIEWCASERELATED_QUERY)) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setFetchSize(Math.min(rowLimitPerGrade, 500));
-            stmt.setInt(1, grade);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                int count = 0;
-                while (rs.next() && count < rowLimitPerGrade) {
-                    rows.add(mapper.mapRow(rs));
-                    count++;
+            deadline.register(stmt);
+            try {
+                stmt.setFetchSize(Math.min(rowLimitPerGrade, 500));
+                stmt.setMaxRows(rowLimitPerGrade);
+                stmt.setInt(1, grade);
+                if (fetchFirst) {
+                    stmt.setInt(2, rowLimitPerGrade);
                 }
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ColumnIndex columns = mapper.columns(rs);
+                    // Check the limit first: another next() could cost a round trip
+                    while (rows.size() < rowLimitPerGrade && rs.next()) {
+                        rows.add(mapper.mapRow(rs, columns));
+                    }
+                    if (rows.size() >= rowLimitPerGrade) {
+                        cancel(stmt, grade);
+                    }
+                }
+            } finally {
+                deadline.unregister(stmt);
             }
         }
         
         long timeMs = System.currentTimeMillis() - startTime;
-        return new GradeResult(grade, rows, timeMs);
+        return new QueryResult(grade, rows, rows.size(), timeMs);
     }
     
-    private static class GradeResult {
-        final int grade;
-        final List<CaseRelatedData> rows;
-        final long timeMs;
-        
-        GradeResult(int grade, List<CaseRelatedData> rows, long timeMs) {
-            this.grade = grade;
-            this.rows = rows;
-            this.timeMs = timeMs;
+    private void cancel(Statement stmt, int grade) {
+        try {
+            stmt.cancel();
+        } catch (SQLException e) {
+            logger.debug("Cancel after row limit failed for grade {}: {}", grade, e.getMessage());
         }
     }
 }
@@ -0,0 +1,159 @@
+package com.example.tviewcaserelated.executor;
+
+import com.example.tviewcaserelated.sql.SqlQueries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * The grade-independent CTEs of the main query, materialized once for a run.
+ *
+ * <p>{@code filtered_timetin} (with its {@code case_org} call per TIMETIN row) and
+ * {@code entmod_eligible} do not depend on the grade, yet every grade query
+ * recomputes them. This creates them once as run-scoped tables
+ * ({@code TVCR_TT_<run>} / {@code TVCR_EE_<run>}) that the run's queries read
+ * instead, via {@link SqlQueries#withSharedCtes(String, String, String)}.</p>
+ *
+ * <p>Global temporary tables do not fit: their rows are private to the session that
+ * inserted them, and a run's queries use many pooled connections. The tables are
+ * dropped by {@link #close()}. Tables of a run that died before cleaning up are only
+ * dropped by an explicit {@link #dropStale(DataSource, long)}: their age cannot tell
+ * a dead run from a long one that is still reading them.</p>
+ */
+public final class SharedCteTables implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedCteTables.class);
+    private static final Pattern TABLE_NAME = Pattern.compile("TVCR_(TT|EE)_[A-Z0-9]+");
+
+    private final DataSource dataSource;
+    private final String timetinTable;
+    private final String entmodTable;
+    private final List<String> created = new ArrayList<>();
+    private boolean closed;
+
+    private SharedCteTables(DataSource dataSource, String runId) {
+        this.dataSource = dataSource;
+        this.timetinTable = "TVCR_TT_" + runId;
+        this.entmodTable = "TVCR_EE_" + runId;
+    }
+
+    /**
+     * Materialize the CTEs for a new run.
+     *
+     * @throws SQLException if the tables cannot be created; anything already
+     *                      created is dropped again
+     */
+    public static SharedCteTables create(DataSource dataSource) throws SQLException {
+        String runId = (Long.toString(System.currentTimeMillis(), 36)
+                + Integer.toString(ThreadLocalRandom.current().nextInt(36 * 36 * 36), 36)).toUpperCase(Locale.ROOT);
+        SharedCteTables tables = new SharedCteTables(dataSource, runId);
+        long startTime = System.currentTimeMillis();
+        try (Connection conn = dataSource.getConnection()) {
+            for (String ddl : SqlQueries.sharedCteDdl(tables.timetinTable, tables.entmodTable)) {
+                try (PreparedStatement stmt = conn.prepareStatement(ddl)) {
+                    stmt.execute();
+                }
+                if (ddl.startsWith("CREATE TABLE")) {
+                    tables.created.add(ddl.split(" ")[2]);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            tables.close();
+            throw e;
+        }
+        logger.info("Materialized shared CTEs into {} and {} in {} ms",
+                tables.timetinTable, tables.entmodTable, System.currentTimeMillis() - startTime);
+        return tables;
+    }
+
+    /**
+     * A grade query that reads these tables instead of computing the CTEs.
+     */
+    public String rewrite(String query) {
+        return SqlQueries.withSharedCtes(query, timetinTable, entmodTable);
+    }
+
+    public String getTimetinTable() {
+        return timetinTable;
+    }
+
+    public String getEntmodTable() {
+        return entmodTable;
+    }
+
+    /**
+     * Drop the run's tables. Failures are logged; the next run sweeps them up.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!created.isEmpty()) {
+            drop(dataSource, created);
+        }
+    }
+
+    /**
+     * Drop shared CTE tables older than {@code minutes}, whichever run created them.
+     * A maintenance call: run it only when no run can still be using tables that old,
+     * e.g. from a job outside the extraction window.
+     *
+     * @return Number of tables dropped
+     */
+    public static int dropStale(DataSource dataSource, long minutes) {
+        List<String> stale = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SqlQueries.STALE_SHARED_CTE_TABLES)) {
+            stmt.setLong(1, minutes);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String name = rs.getString(1);
+                    if (name != null && TABLE_NAME.matcher(name).matches()) {
+                        stale.add(name);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not look up stale shared CTE tables: {}", e.getMessage());
+            return 0;
+        }
+        if (!stale.isEmpty()) {
+            logger.warn("Dropping {} shared CTE table(s) older than {} minutes: {}", stale.size(), minutes, stale);
+        }
+        return drop(dataSource, stale);
+    }
+
+    private static int drop(DataSource dataSource, List<String> tables) {
+        int dropped = 0;
+        try (Connection conn = dataSource.getConnection()) {
+            for (String table : tables) {
+                try (PreparedStatement stmt = conn.prepareStatement("DROP TABLE " + table + " PURGE")) {
+                    stmt.execute();
+                    dropped++;
+                } catch (SQLException e) {
+                    logger.warn("Could not drop shared CTE table {}: {}", table, e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not drop shared CTE tables {}: {}", tables, e.getMessage());
+        }
+        return dropped;
+    }
+
+    @Override
+    public String toString() {
+        return timetinTable + ", " + entmodTable;
+    }
+}
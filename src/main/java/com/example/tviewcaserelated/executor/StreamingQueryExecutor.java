@@ -1,21 +1,44 @@
 package com.example.tviewcaserelated.executor;
 
 import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.mapper.ColumnIndex;
+import com.example.tviewcaserelated.mapper.Projection;
 import com.example.tviewcaserelated.mapper.ResultSetMapper;
 import com.example.tviewcaserelated.model.CaseRelatedData;
-import com.example.tviewcaserelated.sql.SqlQueries;
+import com.example.tviewcaserelated.model.QueryResult;
+import com.example.tviewcaserelated.runtime.Deadline;
+import com.example.tviewcaserelated.runtime.ExecutionRuntime;
+import com.example.tviewcaserelated.runtime.RunProgress;
+import com.example.tviewcaserelated.schedule.GradeScheduler;
+import com.example.tviewcaserelated.split.GradeChunk;
+import com.example.tviewcaserelated.split.GradeRangeSplitter;
+import com.example.tviewcaserelated.stream.CaseRowPublisher;
+import com.example.tviewcaserelated.stream.Checkpoint;
+import com.example.tviewcaserelated.stream.ChunkCheckpoint;
+import com.example.tviewcaserelated.stream.ChunkSpliterator;
+import com.example.tviewcaserelated.stream.RowPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Memory-efficient streaming query executor.
@@ -27,114 +50,523 @@ public class StreamingQueryExecutor {
     
     private static final Logger logger = LoggerFactory.getLogger(StreamingQueryExecutor.class);
     
-    private final int threadPoolSize;
     private final int fetchSize;
     private final int queryTimeoutSeconds;
+    private final int runTimeoutSeconds;
     private final DataSource dataSource;
     private final ResultSetMapper mapper;
+    private final Projection projection;
+    private final GradeRangeSplitter splitter;
+    private final GradeScheduler scheduler;
+    private final boolean pipelineEnabled;
+    private final int pipelineCapacity;
+    private final int pipelineConsumers;
+    private final Path checkpointFile;
+    private final long checkpointIntervalMs;
+    private final int checkpointAttempts;
+    private final long checkpointRetryDelayMs;
     
     public StreamingQueryExecutor() {
-        this.threadPoolSize = DatabaseConfig.getIntProperty("executor.thread-pool-size", 4);
-        this.fetchSize = DatabaseConfig.getIntProperty("executor.fetch-size", 500); // Smaller default
-        this.queryTimeoutSeconds = DatabaseConfig.getIntProperty("executor.query-timeout", 600);
-        this.dataSource = DatabaseConfig.getDataSource();
+        this(DatabaseConfig.getDataSource(), null, null,
+                DatabaseConfig.getIntProperty("executor.fetch-size", 500), // Smaller default
+                DatabaseConfig.getIntProperty("executor.query-timeout", 600));
+    }
+    
+    /**
+     * Create executor with explicit collaborators, e.g. a custom data source.
+     * A null splitter or scheduler is created from configuration.
+     */
+    public StreamingQueryExecutor(DataSource dataSource, GradeRangeSplitter splitter, GradeScheduler scheduler,
+                                  int fetchSize, int queryTimeoutSeconds) {
+        this(dataSource, splitter, scheduler, Projection.all(), fetchSize, queryTimeoutSeconds);
+    }
+    
+    /**
+     * Create executor that queries and maps only the projected columns; the other
+     * fields of the streamed rows are null.
+     */
+    public StreamingQueryExecutor(DataSource dataSource, GradeRangeSplitter splitter, GradeScheduler scheduler,
+                                  Projection projection, int fetchSize, int queryTimeoutSeconds) {
+        this.projection = projection;
+        this.fetchSize = fetchSize;
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        this.runTimeoutSeconds = DatabaseConfig.getIntProperty("executor.run-timeout", 0);
+        this.dataSource = dataSource;
         this.mapper = new ResultSetMapper();
+        this.splitter = splitter != null ? splitter : new GradeRangeSplitter(dataSource);
+        this.scheduler = scheduler != null ? scheduler : new GradeScheduler(dataSource);
+        this.pipelineEnabled = DatabaseConfig.getBooleanProperty("streaming.pipeline.enabled", true);
+        this.pipelineCapacity = DatabaseConfig.getIntProperty("streaming.pipeline.queue-capacity", 10000);
+        this.pipelineConsumers = DatabaseConfig.getIntProperty("streaming.pipeline.consumers", 1);
+        this.checkpointFile = Path.of(DatabaseConfig.getProperty("streaming.checkpoint.file", "stream-checkpoint.properties"));
+        this.checkpointIntervalMs = DatabaseConfig.getLongProperty("streaming.checkpoint.flush-interval-ms", 1000);
+        this.checkpointAttempts = Math.max(1, DatabaseConfig.getIntProperty("streaming.checkpoint.max-attempts", 3));
+        this.checkpointRetryDelayMs = DatabaseConfig.getLongProperty("streaming.checkpoint.retry-delay-ms", 1000);
     }
     
     /**
      * Execute queries and process each row with a callback.
      * Does NOT store results in memory - processes and discards.
      * 
+     * <p>With {@code streaming.pipeline.enabled} the callback runs on dedicated
+     * consumer threads fed through a bounded queue, so fetch loops (and their
+     * connections) are not held up by a slow callback. With more than one consumer
+     * the callback must be thread-safe.</p>
+     * 
      * @param rowProcessor Callback to process each row
      * @return Total number of rows processed
+     * @throws IllegalStateException if the callback throws; rows still queued are
+     *                               then not processed
+     * @throws TimeoutException      if {@code executor.run-timeout} expires before
+     *                               every chunk is streamed
      */
     public long executeParallelStreaming(Consumer<CaseRelatedData> rowProcessor) throws Exception {
         int[] grades = DatabaseConfig.getGrades();
-        
-        ExecutorService executor = Executors.newFixedThreadPool(threadPoolSize);
+        ExecutionRuntime runtime = ExecutionRuntime.shared();
+        GradeScheduler.Schedule schedule = scheduler.schedule(splitter.plan(grades), runtime.getConcurrency());
+        List<GradeChunk> chunks = schedule.getChunks();
+
         AtomicLong totalRows = new AtomicLong(0);
-        AtomicInteger completedGrades = new AtomicInteger(0);
+        AtomicInteger completedChunks = new AtomicInteger(0);
+        Map<Integer, Queue<QueryResult>> partsByGrade = new LinkedHashMap<>();
+        Set<Integer> failedGrades = ConcurrentHashMap.newKeySet();
+        for (int grade : grades) {
+            partsByGrade.put(grade, new ConcurrentLinkedQueue<>());
+        }
         
         System.out.println("\n=== STREAMING MODE (Memory Efficient) ===");
         System.out.println("Processing grades: " + java.util.Arrays.toString(grades));
+        System.out.println("Tasks: " + chunks.size());
         System.out.println("Fetch size: " + fetchSize);
-        System.out.println("Threads: " + threadPoolSize);
+        System.out.println("Threads: " + runtime.getMode() + ", max concurrent queries: " + runtime.getConcurrency());
+        
+        // Decouple the callback from the fetch loops
+        RowPipeline<CaseRelatedData> pipeline = null;
+        if (rowProcessor != null && pipelineEnabled) {
+            pipeline = new RowPipeline<>("RowConsumer", pipelineCapacity, pipelineConsumers, rowProcessor);
+            System.out.println("Pipeline: queue " + pipelineCapacity + ", consumers " + pipelineConsumers);
+        }
+        Consumer<CaseRelatedData> sink = pipeline != null ? pipeline : rowProcessor;
         System.out.println();
         
         long startTime = System.currentTimeMillis();
+        Deadline deadline = Deadline.ofTimeout(runTimeoutSeconds, TimeUnit.SECONDS);
+        RunProgress progress = new RunProgress(chunks);
         
-        // Submit streaming tasks
-        CompletableFuture<?>[] futures = new CompletableFuture[grades.length];
-        for (int i = 0; i < grades.length; i++) {
-            final int grade = grades[i];
+        // Submit streaming tasks, largest first
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            final GradeChunk chunk = chunks.get(i);
+            final RunProgress.Tracker tracker = progress.track(chunk);
             futures[i] = CompletableFuture.runAsync(() -> {
                 try {
-                    long count = streamForGrade(grade, rowProcessor);
+                    long chunkStart = System.currentTimeMillis();
+                    long count = streamForChunk(chunk, sink, deadline, tracker);
+                    long elapsed = System.currentTimeMillis() - chunkStart;
                     totalRows.addAndGet(count);
-                    int done = completedGrades.incrementAndGet();
-                    System.out.printf("  [%d/%d] Grade %2d: %,d rows processed%n", 
-                            done, grades.length, grade, count);
+                    partsByGrade.get(chunk.getGrade()).add(
+                            new QueryResult(chunk.getGrade(), List.of(), (int) count, elapsed));
+                    int done = completedChunks.incrementAndGet();
+                    System.out.printf("  [%d/%d] %s: %,d rows processed%n", 
+                            done, chunks.size(), chunk, count);
                 } catch (SQLException e) {
-                    logger.error("Error processing grade {}: {}", grade, e.getMessage());
+                    failedGrades.add(chunk.getGrade());
+                    logger.error("Error processing {}: {}", chunk, e.getMessage());
                 }
-            }, executor);
+            }, runtime);
         }
         
-        // Wait for all to complete
-        CompletableFuture.allOf(futures).join();
+        // Wait for all fetches, then for the consumers to drain the queue.
+        // At the deadline, cancel live statements; remaining tasks then fail fast.
+        boolean expired;
+        try {
+            expired = !awaitChunks(futures, deadline, progress);
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+        }
+        if (expired) {
+            throw new TimeoutException(deadline.describe() + " after " + totalRows.get()
+                    + " row(s); progress: " + progress);
+        }
         
-        executor.shutdown();
-        executor.awaitTermination(1, TimeUnit.MINUTES);
+        List<QueryResult> gradeResults = new ArrayList<>();
+        for (int grade : grades) {
+            Queue<QueryResult> parts = partsByGrade.get(grade);
+            if (!failedGrades.contains(grade) && !parts.isEmpty()) {
+                gradeResults.add(QueryResult.merge(grade, new ArrayList<>(parts)));
+            }
+        }
         
         long totalTime = System.currentTimeMillis() - startTime;
         System.out.printf("%n=== COMPLETE ===%n");
         System.out.printf("Total rows: %,d in %,d ms (%.0f rows/sec)%n", 
                 totalRows.get(), totalTime, (totalRows.get() * 1000.0) / totalTime);
+        scheduler.complete(schedule, gradeResults, totalTime);
         
         return totalRows.get();
     }
     
     /**
-     * Execute for single grade with streaming.
+     * Wait for every chunk task; if the deadline passes first, cancel the live
+     * statements and wait for the tasks to fail.
+     *
+     * @return False if the deadline passed
+     */
+    private static boolean awaitChunks(CompletableFuture<?>[] futures, Deadline deadline, RunProgress progress)
+            throws InterruptedException, ExecutionException {
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures);
+        try {
+            all.get(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            int cancelled = deadline.expire();
+            logger.error("{}: cancelled {} live statement(s); progress: {}", deadline.describe(), cancelled, progress);
+            logger.error("In flight when cancelled: {}", progress.describeRunning());
+            all.join();
+            return false;
+        }
+    }
+    
+    /**
+     * Execute for single grade (or TINSID range of a split grade) with streaming.
      * Returns count only, doesn't store data.
      */
-    private long streamForGrade(int grade, Consumer<CaseRelatedData> rowProcessor) throws SQLException {
+    private long streamForChunk(GradeChunk chunk, Consumer<CaseRelatedData> rowProcessor,
+                                Deadline deadline, RunProgress.Tracker tracker) throws SQLException {
         long count = 0;
+        long reported = 0;
         
+        deadline.check(chunk);
+        tracker.start();
         try (Connection conn = dataSource.getConnection()) {
             // CRITICAL: Set these for streaming
             conn.setAutoCommit(false);
             
             try (PreparedStatement stmt = conn.prepareStatement(
-                    SqlQueries.TVIEWCASERELATED_QUERY,
+                    projection.apply(chunk.getSql()),
                     ResultSet.TYPE_FORWARD_ONLY,
                     ResultSet.CONCUR_READ_ONLY)) {
                 
-                stmt.setFetchSize(fetchSize);
-                stmt.setQueryTimeout(queryTimeoutSeconds);
-                stmt.setInt(1, grade);
+                deadline.register(stmt);
+                try {
+                    stmt.setFetchSize(fetchSize);
+                    stmt.setQueryTimeout(deadline.queryTimeoutSeconds(queryTimeoutSeconds));
+                    chunk.bind(stmt);
+                    
+                    // Use streaming ResultSet
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        ColumnIndex columns = mapper.columns(rs, projection);
+                        while (rs.next()) {
+                            CaseRelatedData data = mapper.mapRow(rs, columns);
+                            if (rowProcessor != null) {
+                                rowProcessor.accept(data);
+                            }
+                            count++;
+                            
+                            if (count - reported >= fetchSize) {
+                                reported = count;
+                                tracker.rows(count);
+                                deadline.check(chunk);
+                            }
+                            // Log progress every 10000 rows
+                            if (count % 10000 == 0) {
+                                logger.debug("{}: processed {} rows...", chunk, count);
+                            }
+                        }
+                    }
+                } finally {
+                    deadline.unregister(stmt);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            tracker.fail();
+            throw e;
+        }
+        
+        tracker.complete(count);
+        return count;
+    }
+    
+    /**
+     * Checkpointed, resumable variant of {@link #executeParallelStreaming(Consumer)}
+     * for all configured grades, using {@code streaming.checkpoint.file}.
+     */
+    public long executeResumable(Consumer<CaseRelatedData> rowProcessor) throws Exception {
+        return executeResumable(DatabaseConfig.getGrades(), checkpointFile, rowProcessor);
+    }
+    
+    /**
+     * Stream the given grades with a checkpoint, resuming an interrupted run.
+     * 
+     * <p>Each chunk is read ordered by TINSID and every TINSID's rows are handed to
+     * the callback together. The checkpoint records, per chunk, the last TINSID whose
+     * rows (and all lower ones) the callback has returned from. If {@code file} holds
+     * the checkpoint of an interrupted run over the same grades, only what lies after
+     * each chunk's checkpoint is queried again, and retries within a call skip the
+     * TINSIDs already delivered above it.</p>
+     * 
+     * <p>Delivery is at-least-once per TINSID, not exactly-once: the callback cannot
+     * confirm or undo the rows it has accepted, so it must tolerate seeing a TINSID
+     * again (e.g. upsert by TINSID). A TINSID is handed off again if the callback
+     * throws part-way through its rows (the rows it returned from are repeated), or
+     * if the process dies before the TINSID is in the checkpoint file. The file is
+     * written at most every {@code streaming.checkpoint.flush-interval-ms}, and only
+     * holds TINSIDs up to the first one still in flight; TINSIDs finished above that
+     * are delivered again after a crash, however long ago they finished.</p>
+     * 
+     * <p>Chunks that fail (ORA-08103, a dropped connection) are retried from their
+     * checkpoint up to {@code streaming.checkpoint.max-attempts} times. The file is
+     * deleted once every chunk is complete. {@code executor.run-timeout}, if set,
+     * bounds the whole call, retries included.</p>
+     * 
+     * @return Rows handed to the callback by this call
+     * @throws IllegalStateException if chunks are still incomplete after the last
+     *                               attempt, or the callback throws; the checkpoint
+     *                               is kept for the next call
+     * @throws TimeoutException      if the run deadline expires; the checkpoint is
+     *                               kept for the next call
+     */
+    public long executeResumable(int[] grades, Path file, Consumer<CaseRelatedData> rowProcessor) throws Exception {
+        Checkpoint checkpoint = Checkpoint.load(file, checkpointIntervalMs);
+        if (checkpoint != null && !checkpoint.covers(grades)) {
+            logger.warn("Checkpoint {} is for grades {}, not {}; starting a new run",
+                    file, java.util.Arrays.toString(checkpoint.getGrades()), java.util.Arrays.toString(grades));
+            checkpoint = null;
+        }
+        if (checkpoint == null) {
+            List<GradeChunk> plan = scheduler.schedule(splitter.plan(grades),
+                    ExecutionRuntime.shared().getConcurrency()).getChunks();
+            checkpoint = Checkpoint.create(file, grades, plan, checkpointIntervalMs);
+            checkpoint.save();
+        } else {
+            logger.info("Resuming from checkpoint {}: {}", file, checkpoint);
+        }
+        
+        long startTime = System.currentTimeMillis();
+        Deadline deadline = Deadline.ofTimeout(runTimeoutSeconds, TimeUnit.SECONDS);
+        long rows = 0;
+        for (int attempt = 1; attempt <= checkpointAttempts && !deadline.isExpired(); attempt++) {
+            List<ChunkCheckpoint> pending = checkpoint.getIncomplete();
+            if (pending.isEmpty()) {
+                break;
+            }
+            if (attempt > 1) {
+                logger.warn("Retrying {} incomplete chunk(s) from checkpoint (attempt {}/{})",
+                        pending.size(), attempt, checkpointAttempts);
+                Thread.sleep(checkpointRetryDelayMs);
+            }
+            try {
+                rows += streamCheckpointed(pending, rowProcessor, deadline);
+            } finally {
+                // Keep what was acknowledged, also when the callback failed the run
+                checkpoint.save();
+            }
+        }
+        
+        List<ChunkCheckpoint> incomplete = checkpoint.getIncomplete();
+        if (!incomplete.isEmpty() && deadline.isExpired()) {
+            throw new TimeoutException(deadline.describe() + " with " + incomplete.size()
+                    + " chunk(s) incomplete; run again to resume from " + file);
+        }
+        if (!incomplete.isEmpty()) {
+            throw new IllegalStateException(incomplete.size() + " chunk(s) incomplete after "
+                    + checkpointAttempts + " attempt(s); run again to resume from " + file);
+        }
+        checkpoint.delete();
+        long totalTime = System.currentTimeMillis() - startTime;
+        System.out.printf("Checkpointed run complete: %,d rows this call, %,d in total, %,d ms%n",
+                rows, checkpoint.getCommittedRows(), totalTime);
+        return rows;
+    }
+    
+    /**
+     * One attempt over the incomplete chunks of a checkpointed run.
+     * 
+     * @return Rows handed off and acknowledged in this attempt
+     */
+    private long streamCheckpointed(List<ChunkCheckpoint> pending, Consumer<CaseRelatedData> rowProcessor,
+                                    Deadline deadline) throws Exception {
+        ExecutionRuntime runtime = ExecutionRuntime.shared();
+        List<GradeChunk> chunks = new ArrayList<>();
+        for (ChunkCheckpoint chunk : pending) {
+            chunks.add(chunk.getChunk());
+        }
+        long committedBefore = 0;
+        for (ChunkCheckpoint chunk : pending) {
+            committedBefore += chunk.getCommittedRows();
+        }
+        
+        // Whole TINSIDs go through the queue, so out-of-order consumers only delay commits
+        RowPipeline<ChunkCheckpoint.Batch> pipeline = null;
+        Consumer<ChunkCheckpoint.Batch> sink = batch -> batch.deliverTo(rowProcessor);
+        if (rowProcessor != null && pipelineEnabled) {
+            pipeline = new RowPipeline<>("RowConsumer", pipelineCapacity, pipelineConsumers, sink);
+            sink = pipeline;
+        }
+        
+        RunProgress progress = new RunProgress(chunks);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[pending.size()];
+        for (int i = 0; i < pending.size(); i++) {
+            final ChunkCheckpoint chunk = pending.get(i);
+            final RunProgress.Tracker tracker = progress.track(chunk.getChunk());
+            final Consumer<ChunkCheckpoint.Batch> batchSink = sink;
+            futures[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    long count = streamFromCheckpoint(chunk, batchSink, deadline, tracker);
+                    System.out.printf("  %s: %,d rows handed off%n", chunk.getChunk(), count);
+                } catch (SQLException | RuntimeException e) {
+                    logger.error("Error processing {} (resumable from TINSID {}): {}",
+                            chunk.getChunk(), chunk.getCommittedKey(), e.getMessage());
+                }
+            }, runtime);
+        }
+        
+        try {
+            awaitChunks(futures, deadline, progress);
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+        }
+        
+        long committedAfter = 0;
+        for (ChunkCheckpoint chunk : pending) {
+            committedAfter += chunk.getCommittedRows();
+        }
+        return committedAfter - committedBefore;
+    }
+    
+    /**
+     * Read the remainder of one chunk after its checkpoint and hand it off one
+     * TINSID at a time.
+     * 
+     * @return Rows handed off
+     */
+    private long streamFromCheckpoint(ChunkCheckpoint checkpoint, Consumer<ChunkCheckpoint.Batch> sink,
+                                      Deadline deadline, RunProgress.Tracker tracker) throws SQLException {
+        GradeChunk chunk = checkpoint.remaining();
+        checkpoint.begin();
+        Long after = checkpoint.getCommittedKey();
+        long count = 0;
+        long reported = 0;
+        
+        deadline.check(chunk);
+        tracker.start();
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    projection.apply(chunk.getSql()),
+                    ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY)) {
                 
-                // Use streaming ResultSet
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        CaseRelatedData data = mapper.mapRow(rs);
-                        if (rowProcessor != null) {
-                            rowProcessor.accept(data);
+                deadline.register(stmt);
+                try {
+                    stmt.setFetchSize(fetchSize);
+                    stmt.setQueryTimeout(deadline.queryTimeoutSeconds(queryTimeoutSeconds));
+                    chunk.bind(stmt);
+                    
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        ColumnIndex columns = mapper.columns(rs, projection);
+                        // Hold back the rows of the current TINSID until the next one starts,
+                        // so a failure mid-TINSID hands off nothing of it
+                        List<CaseRelatedData> group = new ArrayList<>();
+                        long groupKey = 0;
+                        while (rs.next()) {
+                            CaseRelatedData data = mapper.mapRow(rs, columns);
+                            Long key = data.getTinsid();
+                            if (key == null) {
+                                throw new IllegalStateException("Row without TINSID in " + chunk
+                                        + "; cannot checkpoint");
+                            }
+                            if (after != null && key <= after || checkpoint.isAcknowledged(key)) {
+                                continue;
+                            }
+                            if (!group.isEmpty() && key != groupKey) {
+                                sink.accept(checkpoint.handOff(groupKey, group));
+                                group = new ArrayList<>();
+                            }
+                            groupKey = key;
+                            group.add(data);
+                            count++;
+                            
+                            if (count - reported >= fetchSize) {
+                                reported = count;
+                                tracker.rows(count);
+                                deadline.check(chunk);
+                            }
                         }
-                        count++;
-                        
-                        // Log progress every 10000 rows
-                        if (count % 10000 == 0) {
-                            logger.debug("Grade {}: processed {} rows...", grade, count);
+                        if (!group.isEmpty()) {
+                            sink.accept(checkpoint.handOff(groupKey, group));
                         }
+                        checkpoint.finish();
                     }
+                } finally {
+                    deadline.unregister(stmt);
                 }
             }
+        } catch (SQLException | RuntimeException e) {
+            tracker.fail();
+            throw e;
         }
         
+        tracker.complete(count);
         return count;
     }
     
+    /**
+     * Reactive-streams view of all configured grades.
+     * 
+     * <p>Rows are fetched only as the subscriber requests them, one cursor at a
+     * time, so a slow subscriber holds one connection and one fetch batch.
+     * Cancelling the subscription cancels the statement and returns the connection.</p>
+     */
+    public Flow.Publisher<CaseRelatedData> publish() {
+        return publish(DatabaseConfig.getGrades());
+    }
+    
+    /**
+     * Reactive-streams view of the given grades, split as configured.
+     */
+    public Flow.Publisher<CaseRelatedData> publish(int[] grades) {
+        return new CaseRowPublisher(dataSource, () -> splitter.plan(grades), mapper, projection,
+                fetchSize, queryTimeoutSeconds);
+    }
+    
+    /**
+     * Lazy stream over all configured grades.
+     * 
+     * <p>Nothing is queried until a terminal operation runs, and each chunk's query
+     * only starts when the stream reaches it, so {@code findFirst}/{@code limit}/
+     * {@code anyMatch} leave the remaining chunks unqueried. {@code .parallel()}
+     * splits at chunk boundaries into concurrent cursors. The stream MUST be closed
+     * (try-with-resources): closing cancels and releases cursors that are still open.</p>
+     */
+    public Stream<CaseRelatedData> executeAsStream() {
+        return executeAsStream(DatabaseConfig.getGrades());
+    }
+    
+    /**
+     * Lazy stream over the given grades, split as configured.
+     */
+    public Stream<CaseRelatedData> executeAsStream(int[] grades) {
+        ChunkSpliterator.Resources resources =
+                new ChunkSpliterator.Resources(dataSource, mapper, projection, fetchSize, queryTimeoutSeconds);
+        return StreamSupport.stream(() -> new ChunkSpliterator(planChunks(grades), resources),
+                        Spliterator.NONNULL, false)
+                .onClose(resources::close);
+    }
+    
+    private List<GradeChunk> planChunks(int[] grades) {
+        try {
+            return splitter.plan(grades);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not plan chunks: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * Just count rows without processing - minimal memory usage.
      */
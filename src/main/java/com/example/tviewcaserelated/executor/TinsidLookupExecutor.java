@@ -0,0 +1,173 @@
+package com.example.tviewcaserelated.executor;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.mapper.ColumnIndex;
+import com.example.tviewcaserelated.mapper.ResultSetMapper;
+import com.example.tviewcaserelated.model.CaseRelatedData;
+import com.example.tviewcaserelated.runtime.Deadline;
+import com.example.tviewcaserelated.runtime.ExecutionRuntime;
+import com.example.tviewcaserelated.sql.SqlQueries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Point lookups of Tviewcaserelated rows by TINSID, for drill-down views that need
+ * a few hundred specific cases rather than a whole grade.
+ *
+ * <p>The IDs are de-duplicated and cut into batches of {@code batchSize}; each batch
+ * is one round trip of {@link SqlQueries#tinsidLookupQuery(int)}, and the batches
+ * run in parallel on the shared {@link ExecutionRuntime}. Every batch binds exactly
+ * {@code batchSize} IDs (a short last batch repeats its last ID), so all lookups
+ * share one statement text and one cursor. When a batch fails, the statements of
+ * the others are cancelled through a {@link Deadline}, so they give their
+ * connections back instead of running to the end.</p>
+ */
+public class TinsidLookupExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TinsidLookupExecutor.class);
+
+    private final DataSource dataSource;
+    private final ResultSetMapper mapper;
+    private final int batchSize;
+    private final int fetchSize;
+    private final int queryTimeoutSeconds;
+    private final String sql;
+
+    /**
+     * Create executor with configuration from properties.
+     */
+    public TinsidLookupExecutor() {
+        this(DatabaseConfig.getDataSource(),
+                DatabaseConfig.getIntProperty("lookup.batch-size", 500),
+                DatabaseConfig.getIntProperty("executor.fetch-size", 1000),
+                DatabaseConfig.getIntProperty("executor.query-timeout", 300));
+    }
+
+    /**
+     * Create executor with custom configuration.
+     *
+     * @param batchSize TINSIDs per statement, 1 to 1000 (Oracle's IN-list limit)
+     */
+    public TinsidLookupExecutor(DataSource dataSource, int batchSize, int fetchSize, int queryTimeoutSeconds) {
+        this.dataSource = dataSource;
+        this.mapper = new ResultSetMapper();
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        this.sql = SqlQueries.tinsidLookupQuery(batchSize);
+    }
+
+    /**
+     * Fetch the rows of the given TINSIDs.
+     *
+     * @param ids TINSIDs to look up; duplicates are fetched once
+     * @return Rows by TINSID, in the order the IDs were given; IDs without rows
+     *         are absent. A TINSID can have several rows.
+     * @throws SQLException if a batch fails; the other batches are cancelled
+     */
+    public Map<Long, List<CaseRelatedData>> fetchByTinsids(long[] ids) throws SQLException {
+        long[] distinct = Arrays.stream(ids).distinct().toArray();
+        Map<Long, List<CaseRelatedData>> results = new LinkedHashMap<>();
+        if (distinct.length == 0) {
+            return results;
+        }
+        for (long id : distinct) {
+            results.put(id, null);
+        }
+        long startTime = System.currentTimeMillis();
+
+        ExecutionRuntime runtime = ExecutionRuntime.shared();
+        Deadline deadline = Deadline.none();
+        CompletionService<List<CaseRelatedData>> completion = new ExecutorCompletionService<>(runtime);
+        List<Future<List<CaseRelatedData>>> batches = new ArrayList<>();
+        for (int from = 0; from < distinct.length; from += batchSize) {
+            long[] batch = Arrays.copyOfRange(distinct, from, Math.min(distinct.length, from + batchSize));
+            batches.add(completion.submit(() -> fetchBatch(batch, deadline)));
+        }
+
+        int rows = 0;
+        boolean complete = false;
+        try {
+            // Completion order, so a failed batch is seen while the others still run
+            for (int i = 0; i < batches.size(); i++) {
+                for (CaseRelatedData data : completion.take().get()) {
+                    List<CaseRelatedData> forId = results.get(data.getTinsid());
+                    if (forId == null) {
+                        forId = new ArrayList<>(1);
+                        results.put(data.getTinsid(), forId);
+                    }
+                    forId.add(data);
+                    rows++;
+                }
+            }
+            complete = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted during TINSID lookup", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new IllegalStateException("TINSID lookup failed", e.getCause());
+        } finally {
+            if (!complete) {
+                // Interrupting the tasks does not stop a query in the driver; cancel the statements
+                deadline.expire();
+            }
+            for (Future<List<CaseRelatedData>> batch : batches) {
+                batch.cancel(true);
+            }
+        }
+        results.values().removeIf(forId -> forId == null);
+
+        logger.debug("Looked up {} TINSIDs in {} batch(es): {} rows for {} TINSIDs in {} ms", distinct.length,
+                batches.size(), rows, results.size(), System.currentTimeMillis() - startTime);
+        return results;
+    }
+
+    private List<CaseRelatedData> fetchBatch(long[] batch, Deadline deadline) throws SQLException {
+        List<CaseRelatedData> rows = new ArrayList<>(batch.length);
+        deadline.check("TINSID lookup of " + batch.length + " ID(s)");
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            deadline.register(stmt);
+            try {
+                stmt.setFetchSize(Math.min(fetchSize, Math.max(10, batch.length * 2)));
+                stmt.setQueryTimeout(queryTimeoutSeconds);
+                for (int i = 0; i < batchSize; i++) {
+                    stmt.setLong(i + 1, batch[Math.min(i, batch.length - 1)]);
+                }
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ColumnIndex columns = mapper.columns(rs);
+                    while (rs.next()) {
+                        rows.add(mapper.mapRow(rs, columns));
+                    }
+                }
+            } finally {
+                deadline.unregister(stmt);
+            }
+        }
+        return rows;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
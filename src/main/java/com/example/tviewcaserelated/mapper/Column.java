@@ -0,0 +1,41 @@
+package com.example.tviewcaserelated.mapper;
+
+/**
+ * The columns of the main query that {@link ResultSetMapper} reads, named by
+ * their result set labels, in mapping order.
+ */
+public enum Column {
+
+    // Identity
+    ROID, SEID, TIN, TINTT, TINFS, TINSID,
+    // Taxpayer info
+    TP, TP2, STREET, STREET2, CITY, STATE, ZIPCDE, TPCTRL,
+    // Risk
+    C_RISK, H_RISK, RISK, ARANK,
+    // Case indicators
+    C_CASEIND, H_CASEIND, CASEIND, CONTACTCD,
+    // Dates
+    EXTRDT, RPTDT, CLOSEDT, DT_DOD, XXDT, INITDT, DT_OA, DT_POA, PICKDT, ASSNFLD, ASSNCFF, ASSNRO,
+    PRIOR_ASSGMNT_ACT_DT,
+    // Case codes
+    C_CASECODE, CASECODE, H_CASECODE, C_SUBCODE, SUBCODE, H_SUBCODE, TIMECODE, TIMEDESC, TIMEDEF,
+    // Grades
+    C_GRADE, H_GRADE, CASEGRADE,
+    // Hours
+    HOURS, FLDHRS, EMPHRS, HRS, TOTHRS,
+    // Tour/Program
+    BODCD, TOUR, PRGNAME1, PRGNAME2,
+    // Financial
+    TOTASSD, BAL_941_14, BAL_941, AGI_AMT, TOT_IRP_INC, TOT_INC_DELQ_YR, PRIOR_YR_RET_AGI_AMT,
+    TXPER_TXPYR_AMT,
+    // Counts
+    CNT_941_14, CNT_941, TDI_CNT_941, TDACNT, TDICNT, MODCNT, PRIOR_ASSGMNT_NUM,
+    // Status indicators
+    STATIND, IND_941, FORMATTED_IND_941, HINFIND, AGEIND, CAUIND, PYRENT, PYRIND, FATCAIND,
+    FEDCONIND, FEDEMPIND, IRSEMPIND, L903, LFIIND, LLCIND, RPTIND, THEFTIND, INSPCIND, OICACCYR,
+    LDIND,
+    // Other
+    NAICSCD, CCNIPSELECTCD, ASSNQUE, DVICTCD, QPICKIND,
+    // Touch and assignment
+    EMPTOUCH, LSTTOUCH, TOTTOUCH, PROID, SELCODE, STATUS, DISPCD, CC;
+}
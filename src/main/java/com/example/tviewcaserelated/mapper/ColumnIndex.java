@@ -0,0 +1,167 @@
+package com.example.tviewcaserelated.mapper;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Positions of the mapped {@link Column}s in one result set, resolved once from
+ * {@link ResultSetMetaData}.
+ *
+ * <p>Reading a column by label makes the driver search the column metadata for
+ * that label (case-insensitively in Oracle's driver) on every call, so mapping a row
+ * by label costs about a hundred searches. With a {@code ColumnIndex} the mapper
+ * reads by position instead. Like {@link ResultSet#findColumn(String)}, a label
+ * that occurs twice resolves to its first occurrence.</p>
+ *
+ * <p>The SQL type of every column is probed at the same time, so a column that
+ * DECODE/CASE makes a DATE or VARCHAR can be read as a decimal without first
+ * failing {@code getBigDecimal} on every row (see {@link #decimalRead(Column)}).</p>
+ *
+ * <p>An index can cover a {@link Projection} of the columns only; the others then
+ * have position 0 and are not read.</p>
+ *
+ * <p>Two indexes are equal when they have the same positions and decimal reads,
+ * i.e. describe result sets of the same shape.</p>
+ */
+public final class ColumnIndex {
+
+    private static final Column[] COLUMNS = Column.values();
+
+    // Oracle type codes outside java.sql.Types (oracle.jdbc.OracleTypes)
+    private static final int ORACLE_BINARY_FLOAT = 100;
+    private static final int ORACLE_BINARY_DOUBLE = 101;
+    private static final int ORACLE_TIMESTAMPTZ = -101;
+    private static final int ORACLE_TIMESTAMPLTZ = -102;
+
+    /**
+     * How to read a column as a decimal, chosen from its SQL type.
+     */
+    public enum DecimalRead {
+        /** Numeric column: {@code getBigDecimal}. */
+        NUMBER,
+        /** Character column: {@code getString}, parsed; not a number reads as null. */
+        TEXT,
+        /** Date, time or other non-numeric column: always null. */
+        NONE,
+        /** Unrecognized type: try {@code getBigDecimal} and fall back on ORA-17004. */
+        PROBE
+    }
+
+    private final int[] positions;
+    private final DecimalRead[] decimalReads;
+    private final int hash;
+
+    private ColumnIndex(int[] positions, DecimalRead[] decimalReads) {
+        this.positions = positions;
+        this.decimalReads = decimalReads;
+        this.hash = 31 * Arrays.hashCode(positions) + Arrays.hashCode(decimalReads);
+    }
+
+    /**
+     * Resolve every mapped column of a result set.
+     *
+     * @throws SQLException if the metadata cannot be read or a column is missing
+     */
+    public static ColumnIndex of(ResultSet rs) throws SQLException {
+        return of(rs, Projection.all().columns());
+    }
+
+    /**
+     * Resolve the given columns of a result set; the others get position 0.
+     *
+     * @throws SQLException if the metadata cannot be read or a column is missing
+     */
+    public static ColumnIndex of(ResultSet rs, Set<Column> columns) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int count = meta.getColumnCount();
+        Map<String, Integer> byLabel = new HashMap<>(count * 2);
+        for (int i = 1; i <= count; i++) {
+            byLabel.putIfAbsent(meta.getColumnLabel(i).toUpperCase(Locale.ROOT), i);
+        }
+        int[] positions = new int[COLUMNS.length];
+        DecimalRead[] decimalReads = new DecimalRead[COLUMNS.length];
+        Arrays.fill(decimalReads, DecimalRead.NONE);
+        for (Column column : columns) {
+            Integer position = byLabel.get(column.name());
+            if (position == null) {
+                throw new SQLException("Column " + column + " not found in result set");
+            }
+            positions[column.ordinal()] = position;
+            decimalReads[column.ordinal()] = decimalRead(meta.getColumnType(position));
+        }
+        return new ColumnIndex(positions, decimalReads);
+    }
+
+    private static DecimalRead decimalRead(int sqlType) {
+        switch (sqlType) {
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+            case ORACLE_BINARY_FLOAT:
+            case ORACLE_BINARY_DOUBLE:
+                return DecimalRead.NUMBER;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return DecimalRead.TEXT;
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+            case Types.TIME_WITH_TIMEZONE:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case ORACLE_TIMESTAMPTZ:
+            case ORACLE_TIMESTAMPLTZ:
+                return DecimalRead.NONE;
+            default:
+                return DecimalRead.PROBE;
+        }
+    }
+
+    /**
+     * 1-based position of a column; 0 if it is not projected.
+     */
+    public int of(Column column) {
+        return positions[column.ordinal()];
+    }
+
+    /**
+     * How to read a column as a decimal in this result set.
+     */
+    public DecimalRead decimalRead(Column column) {
+        return decimalReads[column.ordinal()];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ColumnIndex)) {
+            return false;
+        }
+        ColumnIndex other = (ColumnIndex) o;
+        return hash == other.hash && Arrays.equals(positions, other.positions)
+                && Arrays.equals(decimalReads, other.decimalReads);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
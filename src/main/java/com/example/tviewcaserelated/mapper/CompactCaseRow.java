@@ -0,0 +1,249 @@
+package com.example.tviewcaserelated.mapper;
+
+import com.example.tviewcaserelated.model.CaseRelatedData;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Compact form of a {@link CaseRelatedData} row, for holding full-grade result sets
+ * in memory.
+ *
+ * <p>Instead of a boxed object per field, a row is three arrays and a null bitmap:
+ * strings as they are, integers and dates (as epoch days) in an {@code int[]}, longs
+ * and decimals (as longs scaled by {@link #DECIMAL_SCALE}) in a {@code long[]}. A
+ * decimal with more fraction digits or beyond the long range is kept as a
+ * {@link BigDecimal} on the side, so no value is changed; decimals otherwise come
+ * back at {@link #DECIMAL_SCALE}, equal by {@code compareTo} to what was read.
+ * Dates keep the day only, as {@code ResultSet.getDate} returns it.</p>
+ *
+ * <p>Rows are filled by {@link CompactRowMapper}, e.g. through
+ * {@code CaseRelatedQueryExecutor.executeCompact}; {@link #toCaseRelatedData()} turns
+ * one back into the regular row type for code that uses its getters.</p>
+ */
+public final class CompactCaseRow {
+
+    /**
+     * Fraction digits of decimals stored as scaled longs; amounts are in cents.
+     */
+    public static final int DECIMAL_SCALE = 2;
+
+    enum Kind { STRING, INT, DATE, LONG, DECIMAL }
+
+    private static final Column[] COLUMNS = Column.values();
+    private static final Kind[] KINDS = new Kind[COLUMNS.length];
+    private static final int[] SLOTS = new int[COLUMNS.length];
+    private static final int STRINGS;
+    private static final int INTS;
+    private static final int LONGS;
+    private static final MethodHandle TO_DATA;
+
+    static {
+        int strings = 0;
+        int ints = 0;
+        int longs = 0;
+        for (Column column : COLUMNS) {
+            Class<?> type = CompiledRowMapper.fieldType(column);
+            int i = column.ordinal();
+            if (type == String.class) {
+                KINDS[i] = Kind.STRING;
+                SLOTS[i] = strings++;
+            } else if (type == Integer.class || type == java.util.Date.class) {
+                KINDS[i] = type == Integer.class ? Kind.INT : Kind.DATE;
+                SLOTS[i] = ints++;
+            } else if (type == Long.class || type == BigDecimal.class) {
+                KINDS[i] = type == Long.class ? Kind.LONG : Kind.DECIMAL;
+                SLOTS[i] = longs++;
+            } else {
+                throw new IllegalStateException("No compact form for " + column + " of " + type.getName());
+            }
+        }
+        STRINGS = strings;
+        INTS = ints;
+        LONGS = longs;
+
+        Map<Column, MethodHandle> reads = new EnumMap<>(Column.class);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            for (Column column : COLUMNS) {
+                String getter;
+                Class<?> type;
+                switch (KINDS[column.ordinal()]) {
+                    case STRING:
+                        getter = "getString";
+                        type = String.class;
+                        break;
+                    case INT:
+                        getter = "getIntOrNull";
+                        type = Integer.class;
+                        break;
+                    case DATE:
+                        getter = "getDate";
+                        type = Date.class;
+                        break;
+                    case LONG:
+                        getter = "getLongOrNull";
+                        type = Long.class;
+                        break;
+                    default:
+                        getter = "getDecimal";
+                        type = BigDecimal.class;
+                        break;
+                }
+                MethodHandle read = lookup.findVirtual(CompactCaseRow.class, getter,
+                        MethodType.methodType(type, Column.class));
+                reads.put(column, MethodHandles.insertArguments(read, 1, column));
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to resolve compact row getters", e);
+        }
+        TO_DATA = CompiledRowMapper.assemble(CompactCaseRow.class, reads);
+    }
+
+    private final String[] strings = new String[STRINGS];
+    private final int[] ints = new int[INTS];
+    private final long[] longs = new long[LONGS];
+    // Bit i: primitive slot i is NULL; int slots first, then long slots
+    private final long[] nulls = new long[(INTS + LONGS + Long.SIZE - 1) / Long.SIZE];
+    // Decimals that do not fit a scaled long, by long slot; allocated on first use
+    private BigDecimal[] wide;
+
+    CompactCaseRow() {
+    }
+
+    /**
+     * Whether a column is NULL (or was not projected).
+     */
+    public boolean isNull(Column column) {
+        int i = column.ordinal();
+        if (KINDS[i] == Kind.STRING) {
+            return strings[SLOTS[i]] == null;
+        }
+        int bit = bit(i);
+        return (nulls[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    public String getString(Column column) {
+        return strings[slot(column, Kind.STRING)];
+    }
+
+    /**
+     * Value of an integer column; 0 if NULL, see {@link #isNull(Column)}.
+     */
+    public int getInt(Column column) {
+        return ints[slot(column, Kind.INT)];
+    }
+
+    public Integer getIntOrNull(Column column) {
+        return isNull(column) ? null : getInt(column);
+    }
+
+    /**
+     * Value of a date column as days since 1970-01-01; 0 if NULL.
+     */
+    public int getEpochDay(Column column) {
+        return ints[slot(column, Kind.DATE)];
+    }
+
+    public Date getDate(Column column) {
+        return isNull(column) ? null : Date.valueOf(LocalDate.ofEpochDay(getEpochDay(column)));
+    }
+
+    /**
+     * Value of a long column; 0 if NULL.
+     */
+    public long getLong(Column column) {
+        return longs[slot(column, Kind.LONG)];
+    }
+
+    public Long getLongOrNull(Column column) {
+        return isNull(column) ? null : getLong(column);
+    }
+
+    public BigDecimal getDecimal(Column column) {
+        int slot = slot(column, Kind.DECIMAL);
+        if (isNull(column)) {
+            return null;
+        }
+        if (wide != null && wide[slot] != null) {
+            return wide[slot];
+        }
+        return BigDecimal.valueOf(longs[slot], DECIMAL_SCALE);
+    }
+
+    /**
+     * The row as a regular {@link CaseRelatedData}.
+     */
+    public CaseRelatedData toCaseRelatedData() {
+        try {
+            return (CaseRelatedData) TO_DATA.invokeExact(this);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Row conversion failed", t);
+        }
+    }
+
+    void setString(Column column, String value) {
+        strings[slot(column, Kind.STRING)] = value;
+    }
+
+    void setInt(Column column, int value) {
+        ints[slot(column, Kind.INT)] = value;
+    }
+
+    void setEpochDay(Column column, int value) {
+        ints[slot(column, Kind.DATE)] = value;
+    }
+
+    void setLong(Column column, long value) {
+        longs[slot(column, Kind.LONG)] = value;
+    }
+
+    void setDecimal(Column column, BigDecimal value) {
+        int slot = slot(column, Kind.DECIMAL);
+        if (value == null) {
+            setNull(column);
+        } else if (value.scale() <= DECIMAL_SCALE && value.precision() - value.scale() + DECIMAL_SCALE <= 18) {
+            longs[slot] = value.setScale(DECIMAL_SCALE).unscaledValue().longValue();
+        } else {
+            if (wide == null) {
+                wide = new BigDecimal[LONGS];
+            }
+            wide[slot] = value;
+        }
+    }
+
+    void setNull(Column column) {
+        int i = column.ordinal();
+        if (KINDS[i] == Kind.STRING) {
+            strings[SLOTS[i]] = null;
+        } else {
+            int bit = bit(i);
+            nulls[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    static Kind kind(Column column) {
+        return KINDS[column.ordinal()];
+    }
+
+    private static int bit(int ordinal) {
+        Kind kind = KINDS[ordinal];
+        return kind == Kind.INT || kind == Kind.DATE ? SLOTS[ordinal] : INTS + SLOTS[ordinal];
+    }
+
+    private static int slot(Column column, Kind kind) {
+        int i = column.ordinal();
+        if (KINDS[i] != kind) {
+            throw new IllegalArgumentException(column + " is not a " + kind + " column");
+        }
+        return SLOTS[i];
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.tviewcaserelated.mapper;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps ResultSet rows to {@link CompactCaseRow}s, reading integers, longs and dates
+ * with the primitive getters so no boxed value is created per field. Decimals are
+ * read like {@link ResultSetMapper} does, following the probed column types.
+ */
+public class CompactRowMapper {
+
+    private static final Column[] COLUMNS = Column.values();
+
+    /**
+     * Column positions for the rows of a ResultSet; call once, after executing
+     * the query.
+     *
+     * @throws SQLException if the metadata cannot be read or a column is missing
+     */
+    public ColumnIndex columns(ResultSet rs) throws SQLException {
+        return ColumnIndex.of(rs);
+    }
+
+    /**
+     * Column positions for the rows of a ResultSet of a projected query; the
+     * other columns are NULL in the mapped rows.
+     *
+     * @throws SQLException if the metadata cannot be read or a projected column is missing
+     */
+    public ColumnIndex columns(ResultSet rs, Projection projection) throws SQLException {
+        return ColumnIndex.of(rs, projection.columns());
+    }
+
+    /**
+     * Map a single ResultSet row.
+     *
+     * @param rs      The ResultSet positioned at a valid row
+     * @param columns Column positions from {@link #columns(ResultSet)} for this ResultSet
+     * @return Populated compact row
+     * @throws SQLException if database access error occurs
+     */
+    public CompactCaseRow mapRow(ResultSet rs, ColumnIndex columns) throws SQLException {
+        CompactCaseRow row = new CompactCaseRow();
+        for (Column column : COLUMNS) {
+            int position = columns.of(column);
+            if (position == 0) {
+                row.setNull(column);
+                continue;
+            }
+            switch (CompactCaseRow.kind(column)) {
+                case STRING:
+                    row.setString(column, rs.getString(position));
+                    break;
+                case INT:
+                    int intValue = rs.getInt(position);
+                    if (rs.wasNull()) {
+                        row.setNull(column);
+                    } else {
+                        row.setInt(column, intValue);
+                    }
+                    break;
+                case DATE:
+                    Date date = rs.getDate(position);
+                    if (date == null) {
+                        row.setNull(column);
+                    } else {
+                        row.setEpochDay(column, (int) date.toLocalDate().toEpochDay());
+                    }
+                    break;
+                case LONG:
+                    long longValue = rs.getLong(position);
+                    if (rs.wasNull()) {
+                        row.setNull(column);
+                    } else {
+                        row.setLong(column, longValue);
+                    }
+                    break;
+                default:
+                    row.setDecimal(column, ResultSetMapper.getBigDecimalSafe(rs, columns, column));
+                    break;
+            }
+        }
+        return row;
+    }
+}
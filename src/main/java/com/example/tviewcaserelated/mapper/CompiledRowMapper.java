@@ -0,0 +1,252 @@
+package com.example.tviewcaserelated.mapper;
+
+import com.example.tviewcaserelated.model.CaseRelatedData;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A row mapper compiled for one result set shape: a single {@link MethodHandle}
+ * that creates a {@link CaseRelatedData} and sets every field from its column.
+ *
+ * <p>Each {@link Column} is bound to the setter named after it ({@code C_GRADE} to
+ * {@code setCGrade}); the setter's parameter type picks the read, and for decimal
+ * columns the {@link ColumnIndex.DecimalRead} probed from the metadata does. The
+ * position, read and setter of every column are fixed when the mapper is compiled,
+ * so mapping a row has no branches on the mode or column type. A new column needs
+ * only a {@link Column} constant and a setter. Columns outside a {@link Projection}
+ * get no step at all.</p>
+ *
+ * <p>The per-column steps are combined as a balanced tree rather than a chain, which
+ * keeps the handle shallow enough for the JIT to inline.</p>
+ */
+public final class CompiledRowMapper {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Map<Column, MethodHandle> SETTERS = setters();
+
+    private static final MethodHandle NEW_DATA;
+    private static final MethodHandle READ_STRING;
+    private static final MethodHandle READ_DATE;
+    private static final MethodHandle READ_LONG;
+    private static final MethodHandle READ_INT;
+    private static final MethodHandle READ_DECIMAL;
+    private static final MethodHandle READ_DECIMAL_TEXT;
+    private static final MethodHandle READ_DECIMAL_PROBE;
+    private static final MethodHandle READ_NO_DECIMAL;
+
+    static {
+        try {
+            NEW_DATA = LOOKUP.findConstructor(CaseRelatedData.class, MethodType.methodType(void.class));
+            READ_STRING = LOOKUP.findVirtual(ResultSet.class, "getString",
+                    MethodType.methodType(String.class, int.class));
+            READ_DATE = LOOKUP.findVirtual(ResultSet.class, "getDate",
+                    MethodType.methodType(Date.class, int.class));
+            READ_LONG = reader("readLong", Long.class);
+            READ_INT = reader("readInt", Integer.class);
+            READ_DECIMAL = reader("readDecimal", BigDecimal.class);
+            READ_DECIMAL_TEXT = reader("readDecimalText", BigDecimal.class);
+            READ_DECIMAL_PROBE = reader("readDecimalProbe", BigDecimal.class);
+            READ_NO_DECIMAL = MethodHandles.dropArguments(
+                    MethodHandles.constant(BigDecimal.class, null), 0, ResultSet.class, int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to resolve row mapper readers", e);
+        }
+    }
+
+    private final ColumnIndex columns;
+    private final MethodHandle handle;
+
+    private CompiledRowMapper(ColumnIndex columns, MethodHandle handle) {
+        this.columns = columns;
+        this.handle = handle;
+    }
+
+    /**
+     * Compile a mapper for result sets with the given column positions and types.
+     * Costs far more than mapping a row; reuse the mapper for every result set of
+     * the same shape.
+     */
+    public static CompiledRowMapper compile(ColumnIndex columns) {
+        Map<Column, MethodHandle> reads = new EnumMap<>(Column.class);
+        for (Map.Entry<Column, MethodHandle> entry : SETTERS.entrySet()) {
+            int position = columns.of(entry.getKey());
+            if (position == 0) {
+                continue; // not projected
+            }
+            MethodHandle read = read(entry.getValue().type().parameterType(1), columns.decimalRead(entry.getKey()));
+            reads.put(entry.getKey(), MethodHandles.insertArguments(read, 1, position));
+        }
+        return new CompiledRowMapper(columns, assemble(ResultSet.class, reads));
+    }
+
+    /**
+     * A handle {@code (source)CaseRelatedData} that creates the object and sets each
+     * column in {@code reads} from its {@code (source)value} handle.
+     */
+    static MethodHandle assemble(Class<?> source, Map<Column, MethodHandle> reads) {
+        List<MethodHandle> steps = new ArrayList<>(reads.size());
+        for (Map.Entry<Column, MethodHandle> entry : reads.entrySet()) {
+            MethodHandle setter = SETTERS.get(entry.getKey());
+            MethodHandle read = entry.getValue().asType(MethodType.methodType(setter.type().parameterType(1), source));
+            // (CaseRelatedData, source)void
+            steps.add(MethodHandles.filterArguments(setter, 1, read));
+        }
+        MethodHandle fill = steps.isEmpty()
+                ? MethodHandles.empty(MethodType.methodType(void.class, CaseRelatedData.class, source))
+                : sequence(steps);
+        MethodHandle returnData = MethodHandles.dropArguments(
+                MethodHandles.identity(CaseRelatedData.class), 1, source);
+        return MethodHandles.foldArguments(
+                MethodHandles.foldArguments(returnData, fill),
+                MethodHandles.dropArguments(NEW_DATA, 0, source));
+    }
+
+    /**
+     * Type of the field a column is mapped to.
+     */
+    static Class<?> fieldType(Column column) {
+        return SETTERS.get(column).type().parameterType(1);
+    }
+
+    /**
+     * The shape this mapper was compiled for.
+     */
+    public ColumnIndex columns() {
+        return columns;
+    }
+
+    /**
+     * Map the current row of a result set of this mapper's shape.
+     *
+     * @param rs The ResultSet positioned at a valid row
+     * @return Populated CaseRelatedData object
+     * @throws SQLException if database access error occurs
+     */
+    public CaseRelatedData map(ResultSet rs) throws SQLException {
+        try {
+            return (CaseRelatedData) handle.invokeExact(rs);
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Row mapping failed", t);
+        }
+    }
+
+    private static MethodHandle read(Class<?> type, ColumnIndex.DecimalRead decimalRead) {
+        if (type == String.class) {
+            return READ_STRING;
+        } else if (type == java.util.Date.class) {
+            return READ_DATE;
+        } else if (type == Long.class) {
+            return READ_LONG;
+        } else if (type == Integer.class) {
+            return READ_INT;
+        } else if (type == BigDecimal.class) {
+            switch (decimalRead) {
+                case NUMBER:
+                    return READ_DECIMAL;
+                case TEXT:
+                    return READ_DECIMAL_TEXT;
+                case NONE:
+                    return READ_NO_DECIMAL;
+                default:
+                    return READ_DECIMAL_PROBE;
+            }
+        }
+        throw new IllegalStateException("No column read for " + type.getName());
+    }
+
+    /**
+     * Run {@code steps} in order, nesting them as a balanced tree.
+     */
+    private static MethodHandle sequence(List<MethodHandle> steps) {
+        if (steps.size() == 1) {
+            return steps.get(0);
+        }
+        int middle = steps.size() / 2;
+        return MethodHandles.foldArguments(sequence(steps.subList(middle, steps.size())),
+                sequence(steps.subList(0, middle)));
+    }
+
+    private static Map<Column, MethodHandle> setters() {
+        Map<String, Method> byName = new HashMap<>();
+        for (Method method : CaseRelatedData.class.getMethods()) {
+            if (method.getName().startsWith("set") && method.getParameterCount() == 1) {
+                byName.put(method.getName(), method);
+            }
+        }
+        Map<Column, MethodHandle> setters = new EnumMap<>(Column.class);
+        for (Column column : Column.values()) {
+            String name = setterName(column);
+            Method method = byName.get(name);
+            if (method == null) {
+                throw new IllegalStateException("No setter " + name + " for column " + column);
+            }
+            try {
+                setters.put(column, LOOKUP.unreflect(method));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Setter " + name + " is not accessible", e);
+            }
+        }
+        return setters;
+    }
+
+    /**
+     * {@code TOT_IRP_INC} to {@code setTotIrpInc}.
+     */
+    static String setterName(Column column) {
+        StringBuilder name = new StringBuilder("set");
+        for (String part : column.name().split("_")) {
+            name.append(part.charAt(0)).append(part.substring(1).toLowerCase(Locale.ROOT));
+        }
+        return name.toString();
+    }
+
+    private static MethodHandle reader(String name, Class<?> type) throws ReflectiveOperationException {
+        return LOOKUP.findStatic(CompiledRowMapper.class, name,
+                MethodType.methodType(type, ResultSet.class, int.class));
+    }
+
+    private static Long readLong(ResultSet rs, int position) throws SQLException {
+        long value = rs.getLong(position);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Integer readInt(ResultSet rs, int position) throws SQLException {
+        int value = rs.getInt(position);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static BigDecimal readDecimal(ResultSet rs, int position) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(position);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static BigDecimal readDecimalText(ResultSet rs, int position) throws SQLException {
+        return ResultSetMapper.toBigDecimal(rs.getString(position));
+    }
+
+    private static BigDecimal readDecimalProbe(ResultSet rs, int position) throws SQLException {
+        try {
+            return readDecimal(rs, position);
+        } catch (SQLException e) {
+            if (e.getErrorCode() == 17004) {
+                return ResultSetMapper.toBigDecimal(rs.getObject(position));
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.tviewcaserelated.mapper;
+
+import com.example.tviewcaserelated.sql.SqlQueries;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The columns a caller needs from the main query.
+ *
+ * <p>{@link #apply(String)} cuts the outer {@code SELECT} list of a main query down
+ * to these columns, so Oracle can drop the unused {@code main_data} expressions
+ * (including their PL/SQL calls) and send fewer bytes per row;
+ * {@link ResultSetMapper#columns(java.sql.ResultSet, Projection)} then maps only
+ * these fields and leaves the others null. {@code TINSID} is always included, as
+ * paging and checkpoints key on it.</p>
+ */
+public final class Projection {
+
+    private static final Projection ALL = new Projection(EnumSet.allOf(Column.class));
+
+    private final Set<Column> columns;
+
+    private Projection(EnumSet<Column> columns) {
+        this.columns = Collections.unmodifiableSet(columns);
+    }
+
+    /**
+     * Every column; leaves queries unchanged.
+     */
+    public static Projection all() {
+        return ALL;
+    }
+
+    public static Projection of(Column... columns) {
+        return of(Arrays.asList(columns));
+    }
+
+    public static Projection of(Collection<Column> columns) {
+        EnumSet<Column> projected = EnumSet.of(Column.TINSID);
+        projected.addAll(columns);
+        return projected.size() == Column.values().length ? ALL : new Projection(projected);
+    }
+
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    public boolean includes(Column column) {
+        return columns.contains(column);
+    }
+
+    /**
+     * The projected columns, in mapping order.
+     */
+    public Set<Column> columns() {
+        return columns;
+    }
+
+    /**
+     * A main query variant selecting only the projected columns.
+     *
+     * @throws IllegalArgumentException if the query does not select from {@code main_data}
+     */
+    public String apply(String query) {
+        if (isAll()) {
+            return query;
+        }
+        return SqlQueries.withProjection(query, columns.stream().map(Column::name).collect(Collectors.toList()));
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "all columns" : columns.toString();
+    }
+}
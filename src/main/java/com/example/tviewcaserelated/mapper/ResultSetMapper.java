@@ -1,11 +1,20 @@
 package com.example.tviewcaserelated.mapper;
 
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.dimension.EntempDimensions;
 import com.example.tviewcaserelated.model.CaseRelatedData;
 
 import java.math.BigDecimal;
+import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.tviewcaserelated.mapper.Column.*;
 
 /**
  * Maps ResultSet rows to CaseRelatedData objects.
@@ -13,171 +22,320 @@ import java.sql.Types;
  * 
  * FIXED: ORA-17004 - Some columns can be DATE or VARCHAR depending on DECODE/CASE results.
  * Using safe type conversion methods that handle Oracle's dynamic typing.
+ *
+ * <p>By default the positions of all columns are resolved once per ResultSet
+ * ({@link #columns(ResultSet)}, {@link ColumnIndex}) and rows are read by position,
+ * instead of by label for every column of every row.</p>
+ *
+ * <p>With {@code mapper.compiled} an indexed mapper maps rows with a
+ * {@link CompiledRowMapper} instead of {@link #mapRow(ResultSet, ColumnIndex)}'s
+ * hand-written body, compiled once per result set shape.</p>
+ *
+ * <p>Rows of a projected query ({@link Projection}) are mapped with the index from
+ * {@link #columns(ResultSet, Projection)}; fields outside the projection stay null.</p>
  */
 public class ResultSetMapper {
     
+    private final boolean indexed;
+    private final Map<ColumnIndex, CompiledRowMapper> compiled;
+    
     /**
-     * Map a single ResultSet row to CaseRelatedData.
+     * Create mapper; {@code mapper.indexed} chooses reading by position (default) or
+     * by label, {@code mapper.compiled} the compiled mapper for indexed reads.
+     */
+    public ResultSetMapper() {
+        this(DatabaseConfig.getBooleanProperty("mapper.indexed", true),
+                DatabaseConfig.getBooleanProperty("mapper.compiled", false));
+    }
+    
+    /**
+     * @param indexed Resolve column positions once per ResultSet and read by position
+     */
+    public ResultSetMapper(boolean indexed) {
+        this(indexed, false);
+    }
+    
+    /**
+     * @param indexed  Resolve column positions once per ResultSet and read by position
+     * @param compiled Map indexed reads with a {@link CompiledRowMapper}; ignored
+     *                 unless {@code indexed}
+     */
+    public ResultSetMapper(boolean indexed, boolean compiled) {
+        this.indexed = indexed;
+        this.compiled = indexed && compiled ? new ConcurrentHashMap<>() : null;
+    }
+    
+    public boolean isIndexed() {
+        return indexed;
+    }
+    
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+    
+    /**
+     * Column positions for the rows of a ResultSet, to pass to
+     * {@link #mapRow(ResultSet, ColumnIndex)}; null if this mapper reads by label.
+     * Call once, after executing the query.
+     *
+     * @throws SQLException if the metadata cannot be read or a column is missing
+     */
+    public ColumnIndex columns(ResultSet rs) throws SQLException {
+        if (!indexed) {
+            return null;
+        }
+        return canonical(ColumnIndex.of(rs));
+    }
+    
+    /**
+     * Column positions for the rows of a ResultSet of a query with a projection
+     * applied. The projection needs the positions, so this also resolves them for a
+     * mapper that reads by label.
+     *
+     * @throws SQLException if the metadata cannot be read or a projected column is missing
+     */
+    public ColumnIndex columns(ResultSet rs, Projection projection) throws SQLException {
+        if (projection.isAll()) {
+            return columns(rs);
+        }
+        return canonical(ColumnIndex.of(rs, projection.columns()));
+    }
+    
+    /**
+     * The index the mapper was compiled with, so later lookups match by identity.
+     */
+    private ColumnIndex canonical(ColumnIndex columns) {
+        return compiled != null ? compiled.computeIfAbsent(columns, CompiledRowMapper::compile).columns() : columns;
+    }
+    
+    /**
+     * Map a single ResultSet row to CaseRelatedData, reading columns by label.
      *
      * @param rs The ResultSet positioned at a valid row
      * @return Populated CaseRelatedData object
      * @throws SQLException if database access error occurs
      */
     public CaseRelatedData mapRow(ResultSet rs) throws SQLException {
+        return mapRow(rs, null);
+    }
+    
+    /**
+     * Map a single ResultSet row to CaseRelatedData.
+     *
+     * @param rs      The ResultSet positioned at a valid row
+     * @param columns Column positions from {@link #columns(ResultSet)} for this
+     *                ResultSet, or null to read by label
+     * @return Populated CaseRelatedData object
+     * @throws SQLException if database access error occurs
+     */
+    public CaseRelatedData mapRow(ResultSet rs, ColumnIndex columns) throws SQLException {
+        if (compiled != null && columns != null) {
+            return compiled.computeIfAbsent(columns, CompiledRowMapper::compile).map(rs);
+        }
         CaseRelatedData data = new CaseRelatedData();
         
         // Identity fields
-        data.setRoid(rs.getString("ROID"));
-        data.setSeid(rs.getString("SEID"));
-        data.setTin(rs.getString("TIN"));
-        data.setTintt(rs.getString("TINTT"));
-        data.setTinfs(rs.getString("TINFS"));
-        data.setTinsid(getLongOrNull(rs, "TINSID"));
+        data.setRoid(getString(rs, columns, ROID));
+        data.setSeid(getString(rs, columns, SEID));
+        data.setTin(getString(rs, columns, TIN));
+        data.setTintt(getString(rs, columns, TINTT));
+        data.setTinfs(getString(rs, columns, TINFS));
+        data.setTinsid(getLongOrNull(rs, columns, TINSID));
         
         // Taxpayer info
-        data.setTp(rs.getString("TP"));
-        data.setTp2(rs.getString("TP2"));
-        data.setStreet(rs.getString("STREET"));
-        data.setStreet2(rs.getString("STREET2"));
-        data.setCity(rs.getString("CITY"));
-        data.setState(rs.getString("STATE"));
-        data.setZipcde(getIntOrNull(rs, "ZIPCDE"));
-        data.setTpctrl(rs.getString("TPCTRL"));
+        data.setTp(getString(rs, columns, TP));
+        data.setTp2(getString(rs, columns, TP2));
+        data.setStreet(getString(rs, columns, STREET));
+        data.setStreet2(getString(rs, columns, STREET2));
+        data.setCity(getString(rs, columns, CITY));
+        data.setState(getString(rs, columns, STATE));
+        data.setZipcde(getIntOrNull(rs, columns, ZIPCDE));
+        data.setTpctrl(getString(rs, columns, TPCTRL));
         
         // Risk fields
-        data.setCRisk(getIntOrNull(rs, "C_RISK"));
-        data.setHRisk(getIntOrNull(rs, "H_RISK"));
-        data.setRisk(getIntOrNull(rs, "RISK"));
-        data.setArank(rs.getString("ARANK"));
+        data.setCRisk(getIntOrNull(rs, columns, C_RISK));
+        data.setHRisk(getIntOrNull(rs, columns, H_RISK));
+        data.setRisk(getIntOrNull(rs, columns, RISK));
+        data.setArank(getString(rs, columns, ARANK));
         
         // Case indicators
-        data.setCCaseind(rs.getString("C_CASEIND"));
-        data.setHCaseind(rs.getString("H_CASEIND"));
-        data.setCaseind(rs.getString("CASEIND"));
-        data.setContactcd(rs.getString("CONTACTCD"));
+        data.setCCaseind(getString(rs, columns, C_CASEIND));
+        data.setHCaseind(getString(rs, columns, H_CASEIND));
+        data.setCaseind(getString(rs, columns, CASEIND));
+        data.setContactcd(getString(rs, columns, CONTACTCD));
         
         // Date fields
-        data.setExtrdt(rs.getDate("EXTRDT"));
-        data.setRptdt(rs.getDate("RPTDT"));
-        data.setClosedt(rs.getDate("CLOSEDT"));
-        data.setDtDod(rs.getDate("DT_DOD"));
-        data.setXxdt(rs.getDate("XXDT"));
-        data.setInitdt(rs.getDate("INITDT"));
-        data.setDtOa(rs.getDate("DT_OA"));
-        data.setDtPoa(rs.getDate("DT_POA"));
-        data.setPickdt(rs.getDate("PICKDT"));
-        data.setAssnfld(rs.getDate("ASSNFLD"));
-        data.setAssncff(rs.getDate("ASSNCFF"));
-        data.setAssnro(rs.getDate("ASSNRO"));
-        data.setPriorAssgmntActDt(rs.getDate("PRIOR_ASSGMNT_ACT_DT"));
+        data.setExtrdt(getDate(rs, columns, EXTRDT));
+        data.setRptdt(getDate(rs, columns, RPTDT));
+        data.setClosedt(getDate(rs, columns, CLOSEDT));
+        data.setDtDod(getDate(rs, columns, DT_DOD));
+        data.setXxdt(getDate(rs, columns, XXDT));
+        data.setInitdt(getDate(rs, columns, INITDT));
+        data.setDtOa(getDate(rs, columns, DT_OA));
+        data.setDtPoa(getDate(rs, columns, DT_POA));
+        data.setPickdt(getDate(rs, columns, PICKDT));
+        data.setAssnfld(getDate(rs, columns, ASSNFLD));
+        data.setAssncff(getDate(rs, columns, ASSNCFF));
+        data.setAssnro(getDate(rs, columns, ASSNRO));
+        data.setPriorAssgmntActDt(getDate(rs, columns, PRIOR_ASSGMNT_ACT_DT));
         
         // Case codes
-        data.setCCasecode(rs.getString("C_CASECODE"));
-        data.setCasecode(rs.getString("CASECODE"));
-        data.setHCasecode(rs.getString("H_CASECODE"));
-        data.setCSubcode(rs.getString("C_SUBCODE"));
-        data.setSubcode(rs.getString("SUBCODE"));
-        data.setHSubcode(rs.getString("H_SUBCODE"));
-        data.setTimecode(rs.getString("TIMECODE"));
-        data.setTimedesc(rs.getString("TIMEDESC"));
-        data.setTimedef(rs.getString("TIMEDEF"));
+        data.setCCasecode(getString(rs, columns, C_CASECODE));
+        data.setCasecode(getString(rs, columns, CASECODE));
+        data.setHCasecode(getString(rs, columns, H_CASECODE));
+        data.setCSubcode(getString(rs, columns, C_SUBCODE));
+        data.setSubcode(getString(rs, columns, SUBCODE));
+        data.setHSubcode(getString(rs, columns, H_SUBCODE));
+        data.setTimecode(getString(rs, columns, TIMECODE));
+        data.setTimedesc(getString(rs, columns, TIMEDESC));
+        data.setTimedef(getString(rs, columns, TIMEDEF));
         
         // Grade fields
-        data.setCGrade(getIntOrNull(rs, "C_GRADE"));
-        data.setHGrade(getIntOrNull(rs, "H_GRADE"));
-        data.setCasegrade(getIntOrNull(rs, "CASEGRADE"));
+        data.setCGrade(getIntOrNull(rs, columns, C_GRADE));
+        data.setHGrade(getIntOrNull(rs, columns, H_GRADE));
+        data.setCasegrade(getIntOrNull(rs, columns, CASEGRADE));
         
         // Hours fields - use safe BigDecimal getter
-        data.setHours(getBigDecimalSafe(rs, "HOURS"));
-        data.setFldhrs(getBigDecimalSafe(rs, "FLDHRS"));
-        data.setEmphrs(getBigDecimalSafe(rs, "EMPHRS"));
-        data.setHrs(getBigDecimalSafe(rs, "HRS"));
-        data.setTothrs(getBigDecimalSafe(rs, "TOTHRS"));
+        data.setHours(getBigDecimalSafe(rs, columns, HOURS));
+        data.setFldhrs(getBigDecimalSafe(rs, columns, FLDHRS));
+        data.setEmphrs(getBigDecimalSafe(rs, columns, EMPHRS));
+        data.setHrs(getBigDecimalSafe(rs, columns, HRS));
+        data.setTothrs(getBigDecimalSafe(rs, columns, TOTHRS));
         
         // Tour/Program
-        data.setBodcd(rs.getString("BODCD"));
-        data.setTour(rs.getString("TOUR"));
-        data.setPrgname1(rs.getString("PRGNAME1"));
-        data.setPrgname2(rs.getString("PRGNAME2"));
+        data.setBodcd(getString(rs, columns, BODCD));
+        data.setTour(getString(rs, columns, TOUR));
+        data.setPrgname1(getString(rs, columns, PRGNAME1));
+        data.setPrgname2(getString(rs, columns, PRGNAME2));
         
         // Financial fields - use safe BigDecimal getter
-        data.setTotassd(getBigDecimalSafe(rs, "TOTASSD"));
-        data.setBal94114(getBigDecimalSafe(rs, "BAL_941_14"));
-        data.setBal941(getBigDecimalSafe(rs, "BAL_941"));
-        data.setAgiAmt(getBigDecimalSafe(rs, "AGI_AMT"));
-        data.setTotIrpInc(getBigDecimalSafe(rs, "TOT_IRP_INC"));
-        data.setTotIncDelqYr(getBigDecimalSafe(rs, "TOT_INC_DELQ_YR"));
-        data.setPriorYrRetAgiAmt(getBigDecimalSafe(rs, "PRIOR_YR_RET_AGI_AMT"));
-        data.setTxperTxpyrAmt(getBigDecimalSafe(rs, "TXPER_TXPYR_AMT"));
+        data.setTotassd(getBigDecimalSafe(rs, columns, TOTASSD));
+        data.setBal94114(getBigDecimalSafe(rs, columns, BAL_941_14));
+        data.setBal941(getBigDecimalSafe(rs, columns, BAL_941));
+        data.setAgiAmt(getBigDecimalSafe(rs, columns, AGI_AMT));
+        data.setTotIrpInc(getBigDecimalSafe(rs, columns, TOT_IRP_INC));
+        data.setTotIncDelqYr(getBigDecimalSafe(rs, columns, TOT_INC_DELQ_YR));
+        data.setPriorYrRetAgiAmt(getBigDecimalSafe(rs, columns, PRIOR_YR_RET_AGI_AMT));
+        data.setTxperTxpyrAmt(getBigDecimalSafe(rs, columns, TXPER_TXPYR_AMT));
         
         // Count fields
-        data.setCnt94114(getIntOrNull(rs, "CNT_941_14"));
-        data.setCnt941(getIntOrNull(rs, "CNT_941"));
-        data.setTdiCnt941(getIntOrNull(rs, "TDI_CNT_941"));
-        data.setTdacnt(getIntOrNull(rs, "TDACNT"));
-        data.setTdicnt(getIntOrNull(rs, "TDICNT"));
-        data.setModcnt(getIntOrNull(rs, "MODCNT"));
-        data.setPriorAssgmntNum(getIntOrNull(rs, "PRIOR_ASSGMNT_NUM"));
+        data.setCnt94114(getIntOrNull(rs, columns, CNT_941_14));
+        data.setCnt941(getIntOrNull(rs, columns, CNT_941));
+        data.setTdiCnt941(getIntOrNull(rs, columns, TDI_CNT_941));
+        data.setTdacnt(getIntOrNull(rs, columns, TDACNT));
+        data.setTdicnt(getIntOrNull(rs, columns, TDICNT));
+        data.setModcnt(getIntOrNull(rs, columns, MODCNT));
+        data.setPriorAssgmntNum(getIntOrNull(rs, columns, PRIOR_ASSGMNT_NUM));
         
         // Status indicators
-        data.setStatind(getIntOrNull(rs, "STATIND"));
-        data.setInd941(getIntOrNull(rs, "IND_941"));
-        data.setFormattedInd941(rs.getString("FORMATTED_IND_941"));
-        data.setHinfind(rs.getString("HINFIND"));
-        data.setAgeind(rs.getString("AGEIND"));
-        data.setCauind(getIntOrNull(rs, "CAUIND"));
-        data.setPyrent(getIntOrNull(rs, "PYRENT"));
-        data.setPyrind(getIntOrNull(rs, "PYRIND"));
-        data.setFatcaind(rs.getString("FATCAIND"));
-        data.setFedconind(rs.getString("FEDCONIND"));
-        data.setFedempind(rs.getString("FEDEMPIND"));
-        data.setIrsempind(rs.getString("IRSEMPIND"));
-        data.setL903(rs.getString("L903"));
-        data.setLfiind(getIntOrNull(rs, "LFIIND"));
-        data.setLlcind(rs.getString("LLCIND"));
-        data.setRptind(rs.getString("RPTIND"));
-        data.setTheftind(rs.getString("THEFTIND"));
-        data.setInspcind(rs.getString("INSPCIND"));
-        data.setOicaccyr(rs.getString("OICACCYR"));
-        data.setLdind(rs.getString("LDIND"));
+        data.setStatind(getIntOrNull(rs, columns, STATIND));
+        data.setInd941(getIntOrNull(rs, columns, IND_941));
+        data.setFormattedInd941(getString(rs, columns, FORMATTED_IND_941));
+        data.setHinfind(getString(rs, columns, HINFIND));
+        data.setAgeind(getString(rs, columns, AGEIND));
+        data.setCauind(getIntOrNull(rs, columns, CAUIND));
+        data.setPyrent(getIntOrNull(rs, columns, PYRENT));
+        data.setPyrind(getIntOrNull(rs, columns, PYRIND));
+        data.setFatcaind(getString(rs, columns, FATCAIND));
+        data.setFedconind(getString(rs, columns, FEDCONIND));
+        data.setFedempind(getString(rs, columns, FEDEMPIND));
+        data.setIrsempind(getString(rs, columns, IRSEMPIND));
+        data.setL903(getString(rs, columns, L903));
+        data.setLfiind(getIntOrNull(rs, columns, LFIIND));
+        data.setLlcind(getString(rs, columns, LLCIND));
+        data.setRptind(getString(rs, columns, RPTIND));
+        data.setTheftind(getString(rs, columns, THEFTIND));
+        data.setInspcind(getString(rs, columns, INSPCIND));
+        data.setOicaccyr(getString(rs, columns, OICACCYR));
+        data.setLdind(getString(rs, columns, LDIND));
         
         // Other fields
-        data.setNaicscd(rs.getString("NAICSCD"));
-        data.setCcnipselectcd(rs.getString("CCNIPSELECTCD"));
+        data.setNaicscd(getString(rs, columns, NAICSCD));
+        data.setCcnipselectcd(getString(rs, columns, CCNIPSELECTCD));
         
         // ASSNQUE can be DATE or VARCHAR depending on CASE branch - read as String
-        data.setAssnque(rs.getString("ASSNQUE"));
+        data.setAssnque(getString(rs, columns, ASSNQUE));
         
-        data.setDvictcd(rs.getString("DVICTCD"));
-        data.setQpickind(rs.getString("QPICKIND"));
+        data.setDvictcd(getString(rs, columns, DVICTCD));
+        data.setQpickind(getString(rs, columns, QPICKIND));
         
         // Touch fields - use safe BigDecimal getter
-        data.setEmptouch(getBigDecimalSafe(rs, "EMPTOUCH"));
-        data.setLsttouch(getBigDecimalSafe(rs, "LSTTOUCH"));
-        data.setTottouch(getBigDecimalSafe(rs, "TOTTOUCH"));
+        data.setEmptouch(getBigDecimalSafe(rs, columns, EMPTOUCH));
+        data.setLsttouch(getBigDecimalSafe(rs, columns, LSTTOUCH));
+        data.setTottouch(getBigDecimalSafe(rs, columns, TOTTOUCH));
         
-        data.setProid(rs.getString("PROID"));
-        data.setSelcode(rs.getString("SELCODE"));
-        data.setStatus(rs.getString("STATUS"));
-        data.setDispcd(getIntOrNull(rs, "DISPCD"));
-        data.setCc(rs.getString("CC"));
+        data.setProid(getString(rs, columns, PROID));
+        data.setSelcode(getString(rs, columns, SELCODE));
+        data.setStatus(getString(rs, columns, STATUS));
+        data.setDispcd(getIntOrNull(rs, columns, DISPCD));
+        data.setCc(getString(rs, columns, CC));
         
         return data;
     }
     
+    /**
+     * Map the current row of a query without the entemp joins, filling SEID and
+     * TOUR from the dimensions. Yields one object per SEID/TOUR combination of the
+     * row's ROID, the rows the joined query would have returned.
+     *
+     * @param rs      The ResultSet positioned at a valid row
+     * @param columns Column positions for this ResultSet, or null to read by label
+     * @param entemp  Loaded entemp dimensions
+     * @return Populated CaseRelatedData objects, at least one
+     * @throws SQLException if database access error occurs
+     */
+    public List<CaseRelatedData> mapRows(ResultSet rs, ColumnIndex columns, EntempDimensions entemp)
+            throws SQLException {
+        CaseRelatedData first = mapRow(rs, columns);
+        int combinations = entemp.combinations(first.getRoid());
+        List<CaseRelatedData> rows = new ArrayList<>(combinations);
+        entemp.fill(first, 0);
+        rows.add(first);
+        for (int i = 1; i < combinations; i++) {
+            CaseRelatedData data = mapRow(rs, columns);
+            entemp.fill(data, i);
+            rows.add(data);
+        }
+        return rows;
+    }
+    
+    // Position 0: not projected, left null
+    
+    private static String getString(ResultSet rs, ColumnIndex columns, Column column) throws SQLException {
+        if (columns == null) {
+            return rs.getString(column.name());
+        }
+        int position = columns.of(column);
+        return position > 0 ? rs.getString(position) : null;
+    }
+    
+    private static Date getDate(ResultSet rs, ColumnIndex columns, Column column) throws SQLException {
+        if (columns == null) {
+            return rs.getDate(column.name());
+        }
+        int position = columns.of(column);
+        return position > 0 ? rs.getDate(position) : null;
+    }
+    
     /**
      * Get Long value handling SQL NULL.
      */
-    private Long getLongOrNull(ResultSet rs, String column) throws SQLException {
-        long value = rs.getLong(column);
+    private Long getLongOrNull(ResultSet rs, ColumnIndex columns, Column column) throws SQLException {
+        if (columns != null && columns.of(column) == 0) {
+            return null;
+        }
+        long value = columns != null ? rs.getLong(columns.of(column)) : rs.getLong(column.name());
         return rs.wasNull() ? null : value;
     }
     
     /**
      * Get Integer value handling SQL NULL.
      */
-    private Integer getIntOrNull(ResultSet rs, String column) throws SQLException {
-        int value = rs.getInt(column);
+    private Integer getIntOrNull(ResultSet rs, ColumnIndex columns, Column column) throws SQLException {
+        if (columns != null && columns.of(column) == 0) {
+            return null;
+        }
+        int value = columns != null ? rs.getInt(columns.of(column)) : rs.getInt(column.name());
         return rs.wasNull() ? null : value;
     }
     
@@ -186,39 +344,65 @@ public class ResultSetMapper {
      * a different type (DATE, VARCHAR, etc.) due to Oracle DECODE/CASE expressions.
      * 
      * This fixes ORA-17004: Invalid column type: getBigDecimal not implemented
+     *
+     * <p>With a {@link ColumnIndex} the read follows the column type probed once
+     * per ResultSet, so a DATE or VARCHAR column does not throw on every row; only
+     * columns of unrecognized type take the try/catch path.</p>
      */
-    private BigDecimal getBigDecimalSafe(ResultSet rs, String column) throws SQLException {
+    static BigDecimal getBigDecimalSafe(ResultSet rs, ColumnIndex columns, Column column) throws SQLException {
+        if (columns != null) {
+            int position = columns.of(column);
+            switch (columns.decimalRead(column)) {
+                case NUMBER:
+                    BigDecimal value = rs.getBigDecimal(position);
+                    return rs.wasNull() ? null : value;
+                case TEXT:
+                    return toBigDecimal(rs.getString(position));
+                case NONE:
+                    return null;
+                default:
+                    break;
+            }
+        }
         try {
             // First try direct BigDecimal
-            BigDecimal value = rs.getBigDecimal(column);
+            BigDecimal value = columns != null
+                    ? rs.getBigDecimal(columns.of(column)) : rs.getBigDecimal(column.name());
             return rs.wasNull() ? null : value;
         } catch (SQLException e) {
             // If getBigDecimal fails, try reading as Object and convert
             if (e.getErrorCode() == 17004) {
-                Object obj = rs.getObject(column);
-                if (obj == null) {
-                    return null;
-                }
-                // Try to convert to BigDecimal
-                if (obj instanceof BigDecimal) {
-                    return (BigDecimal) obj;
-                } else if (obj instanceof Number) {
-                    return new BigDecimal(obj.toString());
-                } else if (obj instanceof String) {
-                    String str = ((String) obj).trim();
-                    if (str.isEmpty()) {
-                        return null;
-                    }
-                    try {
-                        return new BigDecimal(str);
-                    } catch (NumberFormatException nfe) {
-                        return null;
-                    }
-                }
-                // For DATE or other types, return null
-                return null;
+                return toBigDecimal(columns != null ? rs.getObject(columns.of(column)) : rs.getObject(column.name()));
             }
             throw e; // Re-throw other SQL exceptions
         }
     }
+    
+    /**
+     * Convert a column value of any type to BigDecimal; null for NULL, blank or
+     * unparsable strings, DATE and other types.
+     */
+    static BigDecimal toBigDecimal(Object obj) {
+        if (obj == null) {
+            return null;
+        }
+        // Try to convert to BigDecimal
+        if (obj instanceof BigDecimal) {
+            return (BigDecimal) obj;
+        } else if (obj instanceof Number) {
+            return new BigDecimal(obj.toString());
+        } else if (obj instanceof String) {
+            String str = ((String) obj).trim();
+            if (str.isEmpty()) {
+                return null;
+            }
+            try {
+                return new BigDecimal(str);
+            } catch (NumberFormatException nfe) {
+                return null;
+            }
+        }
+        // For DATE or other types, return null
+        return null;
+    }
 }
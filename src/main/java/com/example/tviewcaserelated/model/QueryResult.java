@@ -1,6 +1,8 @@
 package com.example.tviewcaserelated.model;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Wrapper class for query results with execution metadata.
@@ -12,7 +14,9 @@ public class QueryResult {
     private final List<CaseRelatedData> data;
     private final int recordCount;
     private final long executionTimeMs;
+    private final long workTimeMs;
     private final String threadName;
+    private final int chunkCount;
     
     /**
      * Create a new QueryResult.
@@ -27,7 +31,51 @@ public class QueryResult {
         this.data = data;
         this.recordCount = recordCount;
         this.executionTimeMs = executionTimeMs;
+        this.workTimeMs = executionTimeMs;
         this.threadName = Thread.currentThread().getName();
+        this.chunkCount = 1;
+    }
+    
+    private QueryResult(int grade, List<CaseRelatedData> data, int recordCount,
+                        long executionTimeMs, long workTimeMs, String threadName, int chunkCount) {
+        this.grade = grade;
+        this.data = data;
+        this.recordCount = recordCount;
+        this.executionTimeMs = executionTimeMs;
+        this.workTimeMs = workTimeMs;
+        this.threadName = threadName;
+        this.chunkCount = chunkCount;
+    }
+    
+    /**
+     * Stitch the results of a split grade back into a single per-grade result.
+     * Execution time is that of the slowest chunk, since chunks run concurrently;
+     * work time is the sum over all chunks.
+     * The data is a {@link SegmentedList} view over the chunk lists, not a copy.
+     *
+     * @param grade The grade the chunks belong to
+     * @param parts Chunk results, in chunk order
+     * @return Combined result for the grade
+     */
+    public static QueryResult merge(int grade, List<QueryResult> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        int recordCount = parts.stream().mapToInt(QueryResult::getRecordCount).sum();
+        List<List<CaseRelatedData>> segments = new ArrayList<>(parts.size());
+        long executionTimeMs = 0;
+        long workTimeMs = 0;
+        for (QueryResult part : parts) {
+            segments.add(part.getData());
+            executionTimeMs = Math.max(executionTimeMs, part.getExecutionTimeMs());
+            workTimeMs += part.getWorkTimeMs();
+        }
+        String threadNames = parts.stream()
+                .map(QueryResult::getThreadName)
+                .distinct()
+                .collect(Collectors.joining(","));
+        return new QueryResult(grade, new SegmentedList<>(segments), recordCount, executionTimeMs, workTimeMs,
+                threadNames, parts.size());
     }
 
     public int getGrade() {
@@ -46,9 +94,24 @@ public class QueryResult {
         return executionTimeMs;
     }
 
+    /**
+     * Execution time summed over the grade's chunks: the cost of the grade however
+     * it was split. Equals {@link #getExecutionTimeMs()} when not split.
+     */
+    public long getWorkTimeMs() {
+        return workTimeMs;
+    }
+
     public String getThreadName() {
         return threadName;
     }
+
+    /**
+     * Number of chunks the grade was split into (1 when not split).
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
     
     /**
      * Calculate records per second throughput.
@@ -60,7 +123,7 @@ public class QueryResult {
 
     @Override
     public String toString() {
-        return String.format("QueryResult{grade=%d, records=%,d, time=%,dms, thread=%s}",
-                grade, recordCount, executionTimeMs, threadName);
+        return String.format("QueryResult{grade=%d, records=%,d, time=%,dms, chunks=%d, thread=%s}",
+                grade, recordCount, executionTimeMs, chunkCount, threadName);
     }
 }
@@ -0,0 +1,95 @@
+package com.example.tviewcaserelated.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list view over several lists, one after another, without copying them.
+ *
+ * <p>Used to combine per-chunk and per-grade results: building a view costs one
+ * offset per segment instead of copying every row on the calling thread.
+ * {@link #get(int)} binary-searches the segment offsets; iteration walks the
+ * segments directly. The segments must not change size while the view is in use.</p>
+ *
+ * @param <T> Element type
+ */
+public class SegmentedList<T> extends AbstractList<T> implements RandomAccess {
+
+    private final List<List<T>> segments;
+    private final int[] offsets;
+    private final int size;
+
+    /**
+     * @param segments Lists to present as one, in order
+     */
+    public SegmentedList(List<? extends List<T>> segments) {
+        this.segments = new ArrayList<>(segments.size());
+        this.offsets = new int[segments.size()];
+        int total = 0;
+        for (List<T> segment : segments) {
+            offsets[this.segments.size()] = total;
+            this.segments.add(segment);
+            total += segment.size();
+        }
+        this.size = total;
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int segment = Arrays.binarySearch(offsets, index);
+        if (segment < 0) {
+            segment = -segment - 2;
+        } else {
+            // Several segments can start at the same offset when some are empty
+            while (segment + 1 < offsets.length && offsets[segment + 1] == index) {
+                segment++;
+            }
+        }
+        return segments.get(segment).get(index - offsets[segment]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of underlying lists.
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int segment;
+            private Iterator<T> current = segments.isEmpty() ? null : segments.get(0).iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (current != null && !current.hasNext()) {
+                    segment++;
+                    current = segment < segments.size() ? segments.get(segment).iterator() : null;
+                }
+                return current != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+}
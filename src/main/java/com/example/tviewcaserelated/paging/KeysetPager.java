@@ -0,0 +1,292 @@
+package com.example.tviewcaserelated.paging;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.mapper.ColumnIndex;
+import com.example.tviewcaserelated.mapper.Projection;
+import com.example.tviewcaserelated.mapper.ResultSetMapper;
+import com.example.tviewcaserelated.model.CaseRelatedData;
+import com.example.tviewcaserelated.runtime.ExecutionRuntime;
+import com.example.tviewcaserelated.sql.SqlQueries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Page-by-page access to the Tviewcaserelated rows for the UI, in
+ * {@code (grade, TINSID)} order.
+ *
+ * <p>Pages use keyset (seek) pagination: a page query starts strictly after the
+ * last TINSID of the previous page ({@link SqlQueries#pageQuery(int)}), so page
+ * 1,000 costs the same as page 1 instead of reading and discarding every row before
+ * it as OFFSET paging would. Pages end on a whole TINSID. A page that reaches the
+ * end of a grade continues with the next grade.</p>
+ *
+ * <p>Served pages are kept in a small LRU cache keyed by cursor token, for
+ * {@code cacheTtlMs}, so going back and forth does not query again. With prefetch
+ * enabled, serving a page also loads the next one on the shared
+ * {@link ExecutionRuntime}; a request for a page that is still loading waits for
+ * that load instead of starting another.</p>
+ */
+public class KeysetPager {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeysetPager.class);
+
+    private final DataSource dataSource;
+    private final ResultSetMapper mapper;
+    private final int[] grades;
+    private final int pageSize;
+    private final boolean prefetch;
+    private final int cacheSize;
+    private final long cacheTtlMs;
+    private final int queryTimeoutSeconds;
+    private final Projection projection;
+    private final String sql;
+
+    private final Map<String, CachedPage> cache;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    /**
+     * Create pager over the configured grades, with configuration from properties.
+     */
+    public KeysetPager() {
+        this(DatabaseConfig.getDataSource(), DatabaseConfig.getGrades(),
+                DatabaseConfig.getIntProperty("paging.page-size", 100),
+                DatabaseConfig.getBooleanProperty("paging.prefetch", true),
+                DatabaseConfig.getIntProperty("paging.cache-size", 32),
+                DatabaseConfig.getLongProperty("paging.cache-ttl-ms", 60_000),
+                DatabaseConfig.getIntProperty("executor.query-timeout", 300));
+    }
+
+    /**
+     * Create pager with custom configuration.
+     */
+    public KeysetPager(DataSource dataSource, int[] grades, int pageSize, boolean prefetch,
+                       int cacheSize, long cacheTtlMs, int queryTimeoutSeconds) {
+        this(dataSource, grades, pageSize, prefetch, cacheSize, cacheTtlMs, queryTimeoutSeconds, Projection.all());
+    }
+
+    /**
+     * Create pager with custom configuration whose pages carry only the projected
+     * columns, e.g. those of a grid; the other fields of the rows are null.
+     */
+    public KeysetPager(DataSource dataSource, int[] grades, int pageSize, boolean prefetch,
+                       int cacheSize, long cacheTtlMs, int queryTimeoutSeconds, Projection projection) {
+        if (grades.length == 0) {
+            throw new IllegalArgumentException("No grades to page over");
+        }
+        this.dataSource = dataSource;
+        this.mapper = new ResultSetMapper();
+        this.grades = grades.clone();
+        this.pageSize = Math.max(1, pageSize);
+        this.prefetch = prefetch;
+        this.cacheSize = Math.max(1, cacheSize);
+        this.cacheTtlMs = cacheTtlMs;
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        this.projection = projection;
+        this.sql = projection.apply(SqlQueries.pageQuery(this.pageSize));
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+                return size() > KeysetPager.this.cacheSize;
+            }
+        };
+    }
+
+    /**
+     * First page of the first grade.
+     */
+    public Page firstPage() {
+        return page(null);
+    }
+
+    /**
+     * Page at a cursor token.
+     *
+     * @param cursor Token from {@link Page#getNextCursor()} or {@link Page#getCursor()},
+     *               or null for the first page
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     * @throws IllegalStateException    if the page query fails
+     */
+    public Page page(String cursor) {
+        PageCursor position = cursor == null ? PageCursor.startOf(grades[0]) : PageCursor.decode(cursor);
+        if (indexOf(position.getGrade()) < 0) {
+            throw new IllegalArgumentException("Cursor grade " + position.getGrade() + " is not paged");
+        }
+        Page page = await(position);
+        if (prefetch && page.hasNext()) {
+            lookup(PageCursor.decode(page.getNextCursor()), true);
+        }
+        return page;
+    }
+
+    private Page await(PageCursor position) {
+        while (true) {
+            try {
+                return lookup(position, false).join();
+            } catch (CancellationException e) {
+                // A prefetch of this page was skipped: load it here
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw new IllegalStateException("Could not load page at " + position + ": " + cause.getMessage(), cause);
+            }
+        }
+    }
+
+    /**
+     * Cached or in-flight load of a page, starting one if needed.
+     */
+    private CompletableFuture<Page> lookup(PageCursor position, boolean background) {
+        String token = position.encode();
+        CompletableFuture<Page> load;
+        synchronized (cache) {
+            CachedPage cached = cache.get(token);
+            if (cached != null && !cached.isExpired()) {
+                if (!background) {
+                    cacheHits.incrementAndGet();
+                }
+                return cached.page;
+            }
+            if (!background) {
+                cacheMisses.incrementAndGet();
+            }
+            load = new CompletableFuture<>();
+            cache.put(token, new CachedPage(load, System.currentTimeMillis()));
+        }
+
+        Runnable task = () -> {
+            try {
+                load.complete(load(position));
+            } catch (SQLException | RuntimeException e) {
+                evict(token, load);
+                load.completeExceptionally(e);
+            }
+        };
+        if (!background) {
+            task.run();
+            return load;
+        }
+        if (!ExecutionRuntime.shared().tryExecute(task)) {
+            // Runtime busy: skip the prefetch, the page loads on demand
+            evict(token, load);
+            load.cancel(false);
+            logger.debug("Prefetch of {} skipped: runtime queue full", position);
+        }
+        return load;
+    }
+
+    private void evict(String token, CompletableFuture<Page> load) {
+        synchronized (cache) {
+            CachedPage cached = cache.get(token);
+            if (cached != null && cached.page == load) {
+                cache.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Query one page, continuing into the next grade(s) when a grade runs out.
+     */
+    private Page load(PageCursor position) throws SQLException {
+        long startTime = System.currentTimeMillis();
+        List<CaseRelatedData> rows = new ArrayList<>(pageSize);
+        int gradeIndex = indexOf(position.getGrade());
+        Long after = position.getAfter();
+        PageCursor next = null;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(pageSize + 1);
+            stmt.setQueryTimeout(queryTimeoutSeconds);
+
+            while (gradeIndex < grades.length) {
+                int grade = grades[gradeIndex];
+                int wanted = pageSize - rows.size();
+                stmt.setInt(1, grade);
+                stmt.setLong(2, after != null ? after + 1 : Long.MIN_VALUE);
+                stmt.setLong(3, Long.MAX_VALUE);
+                stmt.setInt(4, wanted);
+
+                int read = 0;
+                Long lastKey = null;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ColumnIndex columns = mapper.columns(rs, projection);
+                    while (rs.next()) {
+                        CaseRelatedData data = mapper.mapRow(rs, columns);
+                        // WITH TIES already ends on a whole TINSID; also stop here if the
+                        // driver or database returned more
+                        if (read >= wanted && !Objects.equals(data.getTinsid(), lastKey)) {
+                            break;
+                        }
+                        rows.add(data);
+                        lastKey = data.getTinsid();
+                        read++;
+                    }
+                }
+                if (read >= wanted) {
+                    next = new PageCursor(grade, lastKey);
+                    break;
+                }
+                gradeIndex++;
+                after = null;
+            }
+        }
+
+        long timeMs = System.currentTimeMillis() - startTime;
+        logger.debug("Loaded page at {}: {} rows in {} ms", position, rows.size(), timeMs);
+        return new Page(position.encode(), next != null ? next.encode() : null, rows, timeMs);
+    }
+
+    private int indexOf(int grade) {
+        for (int i = 0; i < grades.length; i++) {
+            if (grades[i] == grade) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Page requests served from the cache (including pages still being prefetched).
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    private final class CachedPage {
+        private final CompletableFuture<Page> page;
+        private final long createdMillis;
+
+        CachedPage(CompletableFuture<Page> page, long createdMillis) {
+            this.page = page;
+            this.createdMillis = createdMillis;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - createdMillis > cacheTtlMs;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.tviewcaserelated.paging;
+
+import com.example.tviewcaserelated.model.CaseRelatedData;
+
+import java.util.List;
+
+/**
+ * One page of rows in {@code (grade, TINSID)} order.
+ */
+public final class Page {
+
+    private final String cursor;
+    private final String nextCursor;
+    private final List<CaseRelatedData> rows;
+    private final long fetchTimeMs;
+
+    public Page(String cursor, String nextCursor, List<CaseRelatedData> rows, long fetchTimeMs) {
+        this.cursor = cursor;
+        this.nextCursor = nextCursor;
+        this.rows = List.copyOf(rows);
+        this.fetchTimeMs = fetchTimeMs;
+    }
+
+    /**
+     * Token that fetches this page again.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Token of the following page, or null on the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Rows of the page. A page ends on a whole TINSID, so it can hold slightly
+     * more than the page size.
+     */
+    public List<CaseRelatedData> getRows() {
+        return rows;
+    }
+
+    /**
+     * Time the database fetch took (not including time in the cache).
+     */
+    public long getFetchTimeMs() {
+        return fetchTimeMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Page[%d rows, %d ms, %s]", rows.size(), fetchTimeMs, hasNext() ? "more" : "last");
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.tviewcaserelated.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position in the keyset order {@code (grade, TINSID)}: the page starts in
+ * {@code grade} strictly after TINSID {@code after} (or at the start of the grade).
+ *
+ * <p>Clients only see the {@link #encode() token}, an opaque URL-safe string; its
+ * layout may change between versions, so it must not be parsed or built by the UI.</p>
+ */
+public final class PageCursor {
+
+    private static final String VERSION = "1";
+
+    private final int grade;
+    private final Long after;
+
+    public PageCursor(int grade, Long after) {
+        this.grade = grade;
+        this.after = after;
+    }
+
+    /**
+     * Cursor at the start of a grade.
+     */
+    public static PageCursor startOf(int grade) {
+        return new PageCursor(grade, null);
+    }
+
+    public int getGrade() {
+        return grade;
+    }
+
+    /**
+     * Last TINSID of the previous page, or null at the start of the grade.
+     */
+    public Long getAfter() {
+        return after;
+    }
+
+    /**
+     * Opaque token for this cursor.
+     */
+    public String encode() {
+        String raw = VERSION + ":" + grade + ":" + (after != null ? after : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Parse a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":", -1);
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Unsupported page cursor: " + token);
+            }
+            return new PageCursor(Integer.parseInt(parts[1]), parts[2].isEmpty() ? null : Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PageCursor)) {
+            return false;
+        }
+        PageCursor that = (PageCursor) o;
+        return grade == that.grade && Objects.equals(after, that.after);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(grade, after);
+    }
+
+    @Override
+    public String toString() {
+        return "grade " + grade + " after TINSID " + (after != null ? after : "-");
+    }
+}
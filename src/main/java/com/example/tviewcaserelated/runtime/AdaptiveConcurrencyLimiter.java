@@ -0,0 +1,172 @@
+package com.example.tviewcaserelated.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limiter driven by connection pool pressure and task latency.
+ *
+ * <p>Every completed task is a sample. The limit is cut multiplicatively (at most
+ * once per window of {@code limit} samples) when any of these hold:</p>
+ * <ul>
+ *   <li>the task failed</li>
+ *   <li>threads are waiting in {@code getConnection()} - more tasks in flight than the
+ *       pool can serve</li>
+ *   <li>recent latency exceeds the long-term latency by more than the tolerance -
+ *       the database is slowing down under the load</li>
+ * </ul>
+ * <p>Otherwise, while tasks are queueing for permits, the limit grows by one per
+ * window. The limit stays within {@code [minLimit, maxLimit]}.</p>
+ */
+public class AdaptiveConcurrencyLimiter implements ConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private static final double SHORT_WEIGHT = 0.5;
+    private static final double LONG_WEIGHT = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final PoolPressureProbe probe;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitFreed = lock.newCondition();
+    private final AtomicLong increases = new AtomicLong();
+    private final AtomicLong decreases = new AtomicLong();
+
+    private double limit;
+    private int inFlight;
+    private double shortLatency = -1;
+    private double longLatency = -1;
+    private int samplesSinceDecrease;
+
+    /**
+     * @param minLimit         Lowest limit
+     * @param initialLimit     Starting limit
+     * @param maxLimit         Highest limit (normally the connection pool size)
+     * @param backoffRatio     Multiplier applied on overload, e.g. 0.75
+     * @param latencyTolerance Allowed ratio of recent to long-term latency, e.g. 2.0
+     * @param probe            Pool pressure source
+     */
+    public AdaptiveConcurrencyLimiter(int minLimit, int initialLimit, int maxLimit,
+                                      double backoffRatio, double latencyTolerance,
+                                      PoolPressureProbe probe) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.probe = probe;
+    }
+
+    @Override
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                permitFreed.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void release(long latencyNanos, boolean success) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit || lock.hasWaiters(permitFreed);
+            inFlight--;
+            onSample(latencyNanos, success, saturated);
+            permitFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSample(long latencyNanos, boolean success, boolean saturated) {
+        samplesSinceDecrease++;
+        if (shortLatency < 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+        } else {
+            shortLatency += SHORT_WEIGHT * (latencyNanos - shortLatency);
+            longLatency += LONG_WEIGHT * (latencyNanos - longLatency);
+        }
+
+        int awaiting = probe.getThreadsAwaitingConnection();
+        boolean slowing = shortLatency > longLatency * latencyTolerance;
+        double previous = limit;
+
+        if (!success || awaiting > 0 || slowing) {
+            if (samplesSinceDecrease >= (int) limit) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                samplesSinceDecrease = 0;
+                decreases.incrementAndGet();
+            }
+        } else if (saturated) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+            if ((int) limit > (int) previous) {
+                increases.incrementAndGet();
+            }
+        }
+
+        if ((int) limit != (int) previous) {
+            logger.debug("Concurrency limit {} -> {} (awaiting={}, active={}, latency={}ms/{}ms, success={})",
+                    (int) previous, (int) limit, awaiting, probe.getActiveConnections(),
+                    Math.round(shortLatency / 1_000_000), Math.round(longLatency / 1_000_000), success);
+        }
+    }
+
+    @Override
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    @Override
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of times the limit was raised.
+     */
+    public long getIncreases() {
+        return increases.get();
+    }
+
+    /**
+     * Number of times the limit was cut.
+     */
+    public long getDecreases() {
+        return decreases.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Adaptive[limit=%d, range=%d..%d, increases=%d, decreases=%d]",
+                getLimit(), minLimit, maxLimit, increases.get(), decreases.get());
+    }
+}
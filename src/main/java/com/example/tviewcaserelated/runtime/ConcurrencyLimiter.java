@@ -0,0 +1,83 @@
+package com.example.tviewcaserelated.runtime;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Bounds how many query tasks hold a database connection at once.
+ *
+ * <p>With platform threads the pool size already bounds concurrency. With virtual
+ * threads every task gets its own thread, so tasks take a permit before asking the
+ * pool for a connection and the limit is tied to the connection pool size instead.
+ * Each release reports the task latency and outcome, which adaptive
+ * implementations use to move the limit.</p>
+ */
+public interface ConcurrencyLimiter {
+
+    /**
+     * Take a permit, waiting until one is available.
+     */
+    void acquire() throws InterruptedException;
+
+    /**
+     * Return a permit taken with {@link #acquire()}.
+     *
+     * @param latencyNanos How long the task held the permit
+     * @param success      Whether the task completed normally
+     */
+    void release(long latencyNanos, boolean success);
+
+    /**
+     * Current number of permits.
+     */
+    int getLimit();
+
+    /**
+     * Largest number of permits this limiter will ever hand out.
+     */
+    int getMaxLimit();
+
+    /**
+     * Permits currently held.
+     */
+    int getInFlight();
+
+    /**
+     * Wrap a task so it runs while holding a permit.
+     */
+    default <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            acquire();
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                T result = task.call();
+                success = true;
+                return result;
+            } finally {
+                release(System.nanoTime() - start, success);
+            }
+        };
+    }
+
+    /**
+     * Wrap a task so it runs while holding a permit.
+     */
+    default Runnable wrap(Runnable task) {
+        return () -> {
+            try {
+                acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for a query permit", e);
+            }
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                task.run();
+                success = true;
+            } finally {
+                release(System.nanoTime() - start, success);
+            }
+        };
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.tviewcaserelated.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One end-to-end deadline for a run, shared by all of its tasks.
+ *
+ * <p>Tasks check the deadline before they start, cap their JDBC query timeout at
+ * the time that is left, and register their live statement while it executes and
+ * fetches. When the coordinating thread sees the deadline pass it calls
+ * {@link #expire()}, which cancels every registered statement: the driver aborts
+ * the query, the task fails fast and its connection goes back to the pool instead
+ * of fetching rows that will be thrown away.</p>
+ *
+ * <p>A {@link #child()} shares the deadline but can be expired on its own, e.g. to
+ * cancel the losing attempt of a hedged task; expiring the parent expires all
+ * children. A deadline from {@link #none()} never passes by itself but can still be
+ * expired, e.g. when the caller gives up on the run.</p>
+ */
+public final class Deadline {
+
+    private static final Logger logger = LoggerFactory.getLogger(Deadline.class);
+
+    private final long timeoutNanos;
+    private final long deadlineNanos;
+    private final boolean bounded;
+    private final Set<Statement> live = ConcurrentHashMap.newKeySet();
+    private final Set<Deadline> children = ConcurrentHashMap.newKeySet();
+    private volatile boolean expired;
+
+    private Deadline(long timeoutNanos) {
+        this(timeoutNanos, System.nanoTime() + timeoutNanos, true);
+    }
+
+    private Deadline(long timeoutNanos, long deadlineNanos, boolean bounded) {
+        this.timeoutNanos = timeoutNanos;
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * Deadline that passes {@code timeout} from now.
+     */
+    public static Deadline after(long timeout, TimeUnit unit) {
+        return new Deadline(unit.toNanos(Math.max(0, timeout)));
+    }
+
+    /**
+     * Deadline that only passes when {@link #expire()} is called.
+     */
+    public static Deadline none() {
+        return new Deadline(0, 0, false);
+    }
+
+    /**
+     * Deadline for a configured run timeout: {@code timeout} from now, or
+     * {@link #none()} if it is 0 or less.
+     */
+    public static Deadline ofTimeout(long timeout, TimeUnit unit) {
+        return timeout > 0 ? after(timeout, unit) : none();
+    }
+
+    /**
+     * Deadline with the same expiry that can also be expired on its own.
+     */
+    public Deadline child() {
+        Deadline child = new Deadline(timeoutNanos, deadlineNanos, bounded);
+        children.add(child);
+        if (expired) {
+            child.expire();
+        }
+        return child;
+    }
+
+    /**
+     * Time left, never negative; {@code Long.MAX_VALUE} nanoseconds (converted)
+     * without a bound.
+     */
+    public long remaining(TimeUnit unit) {
+        if (!bounded) {
+            return unit.convert(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        return unit.convert(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Whether the deadline passes by itself, i.e. was not created by {@link #none()}.
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * The timeout the deadline was created with; 0 without a bound.
+     */
+    public long getTimeoutMs() {
+        return TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+    }
+
+    /**
+     * True once the deadline has passed or {@link #expire()} was called.
+     */
+    public boolean isExpired() {
+        return expired || bounded && deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Throw if the deadline has passed.
+     *
+     * @param what Work that was about to run, for the message
+     */
+    public void check(Object what) throws SQLTimeoutException {
+        if (isExpired()) {
+            throw new SQLTimeoutException(describe() + " before " + what);
+        }
+    }
+
+    /**
+     * JDBC query timeout for a statement started now: the configured timeout,
+     * capped at the whole seconds left (at least 1; 0 would mean no timeout).
+     */
+    public int queryTimeoutSeconds(int configuredSeconds) {
+        if (!bounded) {
+            return configuredSeconds;
+        }
+        long left = (remaining(TimeUnit.MILLISECONDS) + 999) / 1000;
+        int capped = (int) Math.min(Integer.MAX_VALUE, Math.max(1, left));
+        return configuredSeconds > 0 ? Math.min(configuredSeconds, capped) : capped;
+    }
+
+    /**
+     * Track a statement so {@link #expire()} can cancel it. Must be paired with
+     * {@link #unregister(Statement)} in a finally block.
+     *
+     * @throws SQLTimeoutException if the deadline has already expired
+     */
+    public void register(Statement stmt) throws SQLTimeoutException {
+        live.add(stmt);
+        if (isExpired()) {
+            live.remove(stmt);
+            throw new SQLTimeoutException(describe());
+        }
+    }
+
+    public void unregister(Statement stmt) {
+        live.remove(stmt);
+    }
+
+    /**
+     * Expire the deadline (and its children) now and cancel every live statement.
+     *
+     * @return Number of statements cancelled
+     */
+    public int expire() {
+        expired = true;
+        int cancelled = 0;
+        for (Deadline child : children) {
+            cancelled += child.expire();
+        }
+        for (Statement stmt : live) {
+            try {
+                stmt.cancel();
+                cancelled++;
+            } catch (SQLException e) {
+                logger.warn("Could not cancel statement: {}", e.getMessage());
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * What happened, for messages: the run deadline passed or the run was cancelled.
+     */
+    public String describe() {
+        return bounded ? "Run deadline of " + getTimeoutMs() + " ms expired" : "Run cancelled";
+    }
+
+    /**
+     * Number of statements currently registered.
+     */
+    public int getLiveStatements() {
+        return live.size();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.tviewcaserelated.runtime;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Thread model used to run grade/chunk tasks.
+ *
+ * <ul>
+ *   <li>{@code PLATFORM} - fixed pool of OS threads, concurrency = thread count</li>
+ *   <li>{@code VIRTUAL} - one virtual thread per task (JDK 21+), concurrency bounded
+ *       by a semaphore sized to the connection pool</li>
+ * </ul>
+ */
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL;
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionMode.class);
+
+    /**
+     * Resolve the configured mode ({@code executor.mode}). Falls back to
+     * {@code PLATFORM} if virtual threads are requested but not available.
+     */
+    public static ExecutionMode fromConfig() {
+        return resolve(DatabaseConfig.getProperty("executor.mode", "platform"));
+    }
+
+    /**
+     * Resolve a mode name to the mode that will actually be used on this JVM.
+     */
+    public static ExecutionMode resolve(String name) {
+        ExecutionMode mode;
+        try {
+            mode = valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown executor.mode '{}', using platform threads", name);
+            return PLATFORM;
+        }
+        if (mode == VIRTUAL && !ExecutorFactory.isVirtualThreadSupported()) {
+            logger.warn("Virtual threads require JDK 21+ (running {}), using platform threads",
+                    System.getProperty("java.version"));
+            return PLATFORM;
+        }
+        return mode;
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.tviewcaserelated.runtime;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-lived execution runtime shared by all executors.
+ *
+ * <p>Replaces the per-call thread pools: back-to-back requests reuse the same
+ * named daemon threads instead of building and tearing down a pool each time.</p>
+ *
+ * <ul>
+ *   <li>Concurrency - at most {@link #getConcurrency()} tasks run at once; with
+ *       {@code executor.concurrency.adaptive} the limit follows pool pressure</li>
+ *   <li>Bounded queueing - at most {@code executor.queue-capacity} further tasks wait;
+ *       submitting beyond that blocks the caller (backpressure)</li>
+ *   <li>Graceful drain - {@link #close()} lets queued and running tasks finish for up
+ *       to {@code executor.shutdown-timeout-seconds} before interrupting them</li>
+ * </ul>
+ */
+public class ExecutionRuntime implements Executor, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionRuntime.class);
+
+    private static volatile ExecutionRuntime shared;
+
+    private final String name;
+    private final ExecutionMode mode;
+    private final ExecutorService executor;
+    private final ConcurrencyLimiter limiter;
+    private final Semaphore admission;
+    private final long drainTimeoutSeconds;
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * Create a runtime.
+     *
+     * @param name                Thread name prefix
+     * @param mode                Thread model
+     * @param threads             Platform thread count
+     * @param maxConcurrency      Concurrent tasks in virtual mode (platform mode uses {@code threads})
+     * @param queueCapacity       Tasks allowed to wait beyond those running
+     * @param drainTimeoutSeconds How long {@link #close()} waits for tasks to finish
+     */
+    public ExecutionRuntime(String name, ExecutionMode mode, int threads, int maxConcurrency,
+                            int queueCapacity, long drainTimeoutSeconds) {
+        this(name, mode, threads,
+                new FixedConcurrencyLimiter(mode == ExecutionMode.VIRTUAL ? maxConcurrency : threads),
+                queueCapacity, drainTimeoutSeconds);
+    }
+
+    /**
+     * Create a runtime with a custom concurrency limiter.
+     *
+     * @param name                Thread name prefix
+     * @param mode                Thread model
+     * @param threads             Platform thread count
+     * @param limiter             Bounds how many tasks run at once
+     * @param queueCapacity       Tasks allowed to wait beyond those running
+     * @param drainTimeoutSeconds How long {@link #close()} waits for tasks to finish
+     */
+    public ExecutionRuntime(String name, ExecutionMode mode, int threads, ConcurrencyLimiter limiter,
+                            int queueCapacity, long drainTimeoutSeconds) {
+        this.name = name;
+        this.mode = mode;
+        this.executor = ExecutorFactory.create(mode, threads, name);
+        this.limiter = limiter;
+        this.admission = new Semaphore(limiter.getMaxLimit() + Math.max(0, queueCapacity), true);
+        this.drainTimeoutSeconds = drainTimeoutSeconds;
+
+        logger.info("Execution runtime '{}' started: mode={}, limiter={}, queueCapacity={}",
+                name, mode, limiter, queueCapacity);
+    }
+
+    /**
+     * Get the shared runtime (creates it from configuration if not running).
+     * Uses double-checked locking for thread safety.
+     */
+    public static ExecutionRuntime shared() {
+        ExecutionRuntime runtime = shared;
+        if (runtime == null || runtime.closed) {
+            synchronized (ExecutionRuntime.class) {
+                if (shared == null || shared.closed) {
+                    shared = createFromConfig();
+                }
+                runtime = shared;
+            }
+        }
+        return runtime;
+    }
+
+    /**
+     * Drain and close the shared runtime, if one was started.
+     */
+    public static void shutdownShared() {
+        synchronized (ExecutionRuntime.class) {
+            if (shared != null) {
+                shared.close();
+                shared = null;
+            }
+        }
+    }
+
+    private static ExecutionRuntime createFromConfig() {
+        ExecutionMode mode = ExecutionMode.fromConfig();
+        int threads = DatabaseConfig.getIntProperty("executor.thread-pool-size", 4);
+        int poolSize = DatabaseConfig.getIntProperty("db.pool.size", 10);
+        int maxConcurrency = mode == ExecutionMode.VIRTUAL
+                ? DatabaseConfig.getIntProperty("executor.virtual.max-concurrency", poolSize)
+                : threads;
+
+        ConcurrencyLimiter limiter;
+        if (DatabaseConfig.getBooleanProperty("executor.concurrency.adaptive", false)) {
+            limiter = new AdaptiveConcurrencyLimiter(
+                    DatabaseConfig.getIntProperty("executor.concurrency.min", 1),
+                    DatabaseConfig.getIntProperty("executor.concurrency.initial", Math.max(1, maxConcurrency / 2)),
+                    maxConcurrency,
+                    DatabaseConfig.getDoubleProperty("executor.concurrency.backoff-ratio", 0.75),
+                    DatabaseConfig.getDoubleProperty("executor.concurrency.latency-tolerance", 2.0),
+                    HikariPoolPressureProbe.configured());
+        } else {
+            limiter = new FixedConcurrencyLimiter(maxConcurrency);
+        }
+
+        return new ExecutionRuntime("QueryExecutor", mode, threads, limiter,
+                DatabaseConfig.getIntProperty("executor.queue-capacity", 256),
+                DatabaseConfig.getLongProperty("executor.shutdown-timeout-seconds", 60));
+    }
+
+    /**
+     * Run a task on the runtime. Blocks while the queue is full.
+     *
+     * @throws RejectedExecutionException if the runtime is closed
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (closed) {
+            throw new RejectedExecutionException("Execution runtime '" + name + "' is closed");
+        }
+        admission.acquireUninterruptibly();
+        dispatch(task);
+    }
+
+    /**
+     * Run a task on the runtime if it can be queued without blocking, e.g. for
+     * optional background work such as prefetching.
+     *
+     * @return False if the queue is full or the runtime is closed
+     */
+    public boolean tryExecute(Runnable task) {
+        if (closed || !admission.tryAcquire()) {
+            return false;
+        }
+        try {
+            dispatch(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void dispatch(Runnable task) {
+        pending.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    runWithPermit(task);
+                } finally {
+                    pending.decrementAndGet();
+                    admission.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            admission.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Submit a task and get a future for its result.
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future;
+    }
+
+    private void runWithPermit(Runnable task) {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.debug("Task skipped: interrupted waiting for a query permit");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            task.run();
+            success = succeeded(task);
+        } finally {
+            limiter.release(System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Futures capture task exceptions instead of throwing them, so look inside.
+     */
+    private static boolean succeeded(Runnable task) {
+        if (!(task instanceof Future)) {
+            return true;
+        }
+        Future<?> future = (Future<?>) task;
+        if (future.isCancelled()) {
+            return false;
+        }
+        try {
+            future.get(0, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Maximum number of tasks running at once (the current limit when adaptive).
+     */
+    public int getConcurrency() {
+        return limiter.getLimit();
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public int getRunningTasks() {
+        return limiter.getInFlight();
+    }
+
+    /**
+     * Tasks accepted but not yet finished (running or queued).
+     */
+    public int getPendingTasks() {
+        return pending.get();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stop accepting tasks, wait for queued and running tasks to drain, then
+     * interrupt anything still running after the drain timeout.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        logger.info("Draining execution runtime '{}' ({} pending task(s))...", name, pending.get());
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(drainTimeoutSeconds, TimeUnit.SECONDS)) {
+                logger.warn("Execution runtime '{}' did not drain in {} s, interrupting {} task(s)",
+                        name, drainTimeoutSeconds, pending.get());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Execution runtime '{}' closed", name);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Runtime[mode=%s, running=%d, pending=%d, limiter=%s]",
+                mode, getRunningTasks(), getPendingTasks(), limiter);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.tviewcaserelated.runtime;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executor services for the configured {@link ExecutionMode}.
+ *
+ * <p>The project is compiled for JDK 17, so the virtual-thread executor is looked
+ * up reflectively and only used when the running JVM provides it.</p>
+ */
+public final class ExecutorFactory {
+
+    private static final Method VIRTUAL_EXECUTOR_FACTORY = findVirtualExecutorFactory();
+
+    private ExecutorFactory() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Whether the running JVM supports {@code Executors.newVirtualThreadPerTaskExecutor()}.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_EXECUTOR_FACTORY != null;
+    }
+
+    /**
+     * Create an executor service.
+     *
+     * @param mode       Thread model
+     * @param threads    Pool size for platform mode (ignored for virtual threads)
+     * @param namePrefix Thread name prefix for platform threads (created as daemons)
+     * @return New executor service; the caller owns its lifecycle
+     */
+    public static ExecutorService create(ExecutionMode mode, int threads, String namePrefix) {
+        if (mode == ExecutionMode.VIRTUAL && VIRTUAL_EXECUTOR_FACTORY != null) {
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR_FACTORY.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create virtual thread executor", e);
+            }
+        }
+        AtomicInteger counter = new AtomicInteger(1);
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r);
+            t.setName(namePrefix + "-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
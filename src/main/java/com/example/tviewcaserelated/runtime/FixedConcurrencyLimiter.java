@@ -0,0 +1,47 @@
+package com.example.tviewcaserelated.runtime;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Concurrency limiter with a static number of permits.
+ */
+public class FixedConcurrencyLimiter implements ConcurrencyLimiter {
+
+    private final Semaphore permits;
+    private final int limit;
+
+    public FixedConcurrencyLimiter(int limit) {
+        this.limit = Math.max(1, limit);
+        this.permits = new Semaphore(this.limit, true);
+    }
+
+    @Override
+    public void acquire() throws InterruptedException {
+        permits.acquire();
+    }
+
+    @Override
+    public void release(long latencyNanos, boolean success) {
+        permits.release();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getMaxLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getInFlight() {
+        return limit - permits.availablePermits();
+    }
+
+    @Override
+    public String toString() {
+        return "Fixed[limit=" + limit + "]";
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.tviewcaserelated.runtime;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.util.function.Supplier;
+
+/**
+ * Pool pressure read from a HikariCP MXBean. Reports no pressure while the pool
+ * does not exist yet.
+ */
+public final class HikariPoolPressureProbe implements PoolPressureProbe {
+
+    private static final HikariPoolPressureProbe CONFIGURED = new HikariPoolPressureProbe(DatabaseConfig::getPoolMXBean);
+
+    private final Supplier<HikariPoolMXBean> pool;
+
+    /**
+     * @param pool Current MXBean of the pool, or null while there is none
+     */
+    public HikariPoolPressureProbe(Supplier<HikariPoolMXBean> pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Probe for the pool behind {@link DatabaseConfig#getDataSource()}.
+     */
+    public static HikariPoolPressureProbe configured() {
+        return CONFIGURED;
+    }
+
+    @Override
+    public int getThreadsAwaitingConnection() {
+        HikariPoolMXBean mxBean = pool.get();
+        return mxBean != null ? mxBean.getThreadsAwaitingConnection() : 0;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        HikariPoolMXBean mxBean = pool.get();
+        return mxBean != null ? mxBean.getActiveConnections() : 0;
+    }
+}
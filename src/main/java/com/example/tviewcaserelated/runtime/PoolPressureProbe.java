@@ -0,0 +1,32 @@
+package com.example.tviewcaserelated.runtime;
+
+/**
+ * Live view of connection pool pressure, sampled while a run is in progress.
+ */
+public interface PoolPressureProbe {
+
+    /**
+     * Probe for when no pool is available; never reports pressure.
+     */
+    PoolPressureProbe NONE = new PoolPressureProbe() {
+        @Override
+        public int getThreadsAwaitingConnection() {
+            return 0;
+        }
+
+        @Override
+        public int getActiveConnections() {
+            return 0;
+        }
+    };
+
+    /**
+     * Threads currently blocked in {@code getConnection()}.
+     */
+    int getThreadsAwaitingConnection();
+
+    /**
+     * Connections currently checked out of the pool.
+     */
+    int getActiveConnections();
+}
@@ -0,0 +1,126 @@
+package com.example.tviewcaserelated.runtime;
+
+import com.example.tviewcaserelated.split.GradeChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-chunk progress of a run, so a run cut short by its {@link Deadline} can
+ * report what finished, what was in flight and how far it got.
+ */
+public class RunProgress {
+
+    public enum State { PENDING, RUNNING, COMPLETE, FAILED }
+
+    private final List<GradeChunk> chunks;
+    private final Map<GradeChunk, Tracker> trackers = new ConcurrentHashMap<>();
+
+    public RunProgress(List<GradeChunk> chunks) {
+        this.chunks = new ArrayList<>(chunks);
+        for (GradeChunk chunk : chunks) {
+            trackers.put(chunk, new Tracker());
+        }
+    }
+
+    /**
+     * Tracker for one chunk; the owning task reports through it.
+     */
+    public Tracker track(GradeChunk chunk) {
+        return trackers.computeIfAbsent(chunk, c -> new Tracker());
+    }
+
+    public int count(State state) {
+        int count = 0;
+        for (Tracker tracker : trackers.values()) {
+            if (tracker.state == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Rows fetched so far, including chunks that have not finished.
+     */
+    public long getRowsFetched() {
+        long rows = 0;
+        for (Tracker tracker : trackers.values()) {
+            rows += tracker.rows;
+        }
+        return rows;
+    }
+
+    /**
+     * Chunks still running, with the rows each has fetched.
+     */
+    public String describeRunning() {
+        StringBuilder sb = new StringBuilder();
+        for (GradeChunk chunk : chunks) {
+            Tracker tracker = trackers.get(chunk);
+            if (tracker.state == State.RUNNING) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(chunk).append(": ").append(String.format("%,d", tracker.rows)).append(" rows");
+            }
+        }
+        return sb.length() == 0 ? "none" : sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d chunk(s) complete, %d running, %d not started, %d failed; %,d rows fetched",
+                count(State.COMPLETE), chunks.size(), count(State.RUNNING), count(State.PENDING),
+                count(State.FAILED), getRowsFetched());
+    }
+
+    /**
+     * Progress of one chunk. Written by a single task thread, read by the coordinator.
+     */
+    public static final class Tracker {
+        private volatile State state = State.PENDING;
+        private volatile long rows;
+        private volatile long startedNanos;
+
+        public void start() {
+            startedNanos = System.nanoTime();
+            state = State.RUNNING;
+        }
+
+        public void rows(long fetched) {
+            rows = fetched;
+        }
+
+        public void complete(long fetched) {
+            rows = fetched;
+            state = State.COMPLETE;
+        }
+
+        /**
+         * Mark the chunk failed, unless another attempt already completed it.
+         */
+        public void fail() {
+            if (state != State.COMPLETE) {
+                state = State.FAILED;
+            }
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * Milliseconds since {@link #start()}, or 0 if not running.
+         */
+        public long getRunningMs() {
+            return state == State.RUNNING ? (System.nanoTime() - startedNanos) / 1_000_000 : 0;
+        }
+    }
+}
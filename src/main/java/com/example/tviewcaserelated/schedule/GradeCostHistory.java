@@ -0,0 +1,252 @@
+package com.example.tviewcaserelated.schedule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Persisted history of per-grade row counts and execution times.
+ *
+ * <p>Each run is folded into an exponentially weighted moving average so that a
+ * single slow run does not dominate the estimate. The last {@value #RECENT_SAMPLES}
+ * execution times of each grade are also kept, for latency percentiles, as is the
+ * measured run time of each grade grouping (see {@link GradeGroupPlanner}). The
+ * history is kept in a small properties file ({@code grade.<n>.rows} /
+ * {@code grade.<n>.ms} / {@code grade.<n>.recent} / {@code plan.<key>.ms}).</p>
+ */
+public class GradeCostHistory {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradeCostHistory.class);
+    
+    /** Number of recent execution times kept per grade. */
+    public static final int RECENT_SAMPLES = 20;
+
+    private final Path file;
+    private final double weight;
+    private final Map<Integer, Estimate> estimates = new ConcurrentHashMap<>();
+    private final Map<Integer, Deque<Long>> recent = new ConcurrentHashMap<>();
+    private final Map<String, Double> plans = new ConcurrentHashMap<>();
+
+    /**
+     * Create an empty history.
+     *
+     * @param file   Backing file, or null to keep history in memory only
+     * @param weight Weight of the newest observation in the moving average (0..1]
+     */
+    public GradeCostHistory(Path file, double weight) {
+        this.file = file;
+        this.weight = Math.min(1.0, Math.max(0.01, weight));
+    }
+
+    /**
+     * Load history from a file. A missing or unreadable file yields an empty history.
+     */
+    public static GradeCostHistory load(Path file, double weight) {
+        GradeCostHistory history = new GradeCostHistory(file, weight);
+        if (file == null || !Files.exists(file)) {
+            return history;
+        }
+        Properties props = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            props.load(input);
+        } catch (IOException e) {
+            logger.warn("Could not read cost history {}: {}", file, e.getMessage());
+            return history;
+        }
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith("plan.") && key.endsWith(".ms")) {
+                try {
+                    history.plans.put(key.substring(5, key.length() - 3), Double.parseDouble(props.getProperty(key)));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring invalid cost history entry {}", key);
+                }
+                continue;
+            }
+            if (!key.startsWith("grade.") || !key.endsWith(".rows")) {
+                continue;
+            }
+            try {
+                int grade = Integer.parseInt(key.substring(6, key.length() - 5));
+                double rows = Double.parseDouble(props.getProperty(key));
+                double ms = Double.parseDouble(props.getProperty("grade." + grade + ".ms", "0"));
+                history.estimates.put(grade, new Estimate(rows, ms));
+                String samples = props.getProperty("grade." + grade + ".recent", "");
+                for (String sample : samples.split(",")) {
+                    if (!sample.isBlank()) {
+                        history.addSample(grade, Long.parseLong(sample.trim()));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid cost history entry {}", key);
+            }
+        }
+        logger.debug("Loaded cost history for {} grade(s) from {}", history.estimates.size(), file);
+        return history;
+    }
+
+    /**
+     * Fold one observation for a grade into the history.
+     */
+    public void record(int grade, long rows, long timeMs) {
+        estimates.merge(grade, new Estimate(rows, timeMs), (old, now) -> new Estimate(
+                old.rows + weight * (now.rows - old.rows),
+                old.timeMs + weight * (now.timeMs - old.timeMs)));
+        addSample(grade, timeMs);
+    }
+
+    private void addSample(int grade, long timeMs) {
+        Deque<Long> samples = recent.computeIfAbsent(grade, g -> new ArrayDeque<>());
+        synchronized (samples) {
+            samples.addLast(timeMs);
+            while (samples.size() > RECENT_SAMPLES) {
+                samples.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Fold the measured run time of a grade grouping into the history.
+     *
+     * @param key Grouping, e.g. {@code 4-5-7.g2} (no dots in the grade part)
+     */
+    public void recordPlan(String key, long timeMs) {
+        plans.merge(key, (double) timeMs, (old, now) -> old + weight * (now - old));
+    }
+
+    /**
+     * Measured run time of a grade grouping.
+     *
+     * @return Milliseconds, or -1 if the grouping has never run
+     */
+    public double getPlanMs(String key) {
+        return plans.getOrDefault(key, -1.0);
+    }
+
+    /**
+     * Number of recent execution times recorded for a grade.
+     */
+    public int getSampleCount(int grade) {
+        Deque<Long> samples = recent.get(grade);
+        if (samples == null) {
+            return 0;
+        }
+        synchronized (samples) {
+            return samples.size();
+        }
+    }
+
+    /**
+     * Latency percentile over the recent execution times of a grade
+     * (nearest-rank).
+     *
+     * @param percentile Percentile in (0..1], e.g. 0.95
+     * @return Milliseconds, or -1 if the grade has no samples
+     */
+    public long percentileMs(int grade, double percentile) {
+        Deque<Long> samples = recent.get(grade);
+        if (samples == null) {
+            return -1;
+        }
+        long[] sorted;
+        synchronized (samples) {
+            sorted = samples.stream().mapToLong(Long::longValue).toArray();
+        }
+        if (sorted.length == 0) {
+            return -1;
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(Math.min(1.0, Math.max(0.0, percentile)) * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Get the estimate for a grade.
+     *
+     * @return Estimate, or null if the grade has never been recorded
+     */
+    public Estimate get(int grade) {
+        return estimates.get(grade);
+    }
+
+    public boolean isEmpty() {
+        return estimates.isEmpty();
+    }
+
+    /**
+     * Average milliseconds per row across all recorded grades, or 0 if unknown.
+     */
+    public double averageMsPerRow() {
+        double rows = 0;
+        double ms = 0;
+        for (Estimate estimate : estimates.values()) {
+            rows += estimate.rows;
+            ms += estimate.timeMs;
+        }
+        return rows > 0 ? ms / rows : 0;
+    }
+
+    /**
+     * Write the history back to its file.
+     */
+    public synchronized void save() {
+        if (file == null) {
+            return;
+        }
+        Properties props = new Properties();
+        estimates.forEach((grade, estimate) -> {
+            props.setProperty("grade." + grade + ".rows", String.valueOf(estimate.rows));
+            props.setProperty("grade." + grade + ".ms", String.valueOf(estimate.timeMs));
+        });
+        plans.forEach((key, ms) -> props.setProperty("plan." + key + ".ms", String.valueOf(ms)));
+        recent.forEach((grade, samples) -> {
+            synchronized (samples) {
+                props.setProperty("grade." + grade + ".recent", samples.stream()
+                        .map(String::valueOf).collect(Collectors.joining(",")));
+            }
+        });
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream output = Files.newOutputStream(file)) {
+                props.store(output, "Tviewcaserelated per-grade cost history");
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write cost history {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Expected row count and execution time of a grade.
+     */
+    public static final class Estimate {
+        private final double rows;
+        private final double timeMs;
+
+        public Estimate(double rows, double timeMs) {
+            this.rows = rows;
+            this.timeMs = timeMs;
+        }
+
+        public double getRows() {
+            return rows;
+        }
+
+        public double getTimeMs() {
+            return timeMs;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.tviewcaserelated.schedule;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Decides how grades are combined into statements: one query per grade, one
+ * multi-grade query for all of them, or a few groups in between.
+ *
+ * <p>Every execution of the main query materializes {@code filtered_timetin} and
+ * {@code entmod_eligible} once, so per-grade queries repeat that fixed cost while
+ * a combined query pays it once but runs serially. In {@link Mode#AUTO} each
+ * group count {@code g} is costed as follows:</p>
+ * <ul>
+ *   <li>If a run with {@code g} groups over the same grades has been measured, its
+ *       moving-average run time ({@link GradeCostHistory#getPlanMs(String)})</li>
+ *   <li>Otherwise a model fitted to the per-grade history: a query costs a fixed
+ *       overhead plus time per row (least squares over the grades); groups run on
+ *       {@code workers} workers, but the database can only sustain
+ *       {@code dbParallelism} queries' worth of work at full speed</li>
+ * </ul>
+ * <p>The cheapest count wins; ties go to fewer groups. Grades are assigned to
+ * groups largest-first, each to the group with the fewest rows so far.</p>
+ */
+public class GradeGroupPlanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradeGroupPlanner.class);
+
+    public enum Mode {
+        /** One query per grade (with splitting, scheduling and hedging). */
+        PER_GRADE,
+        /** One multi-grade query for all grades. */
+        COMBINED,
+        /** Measured / modelled choice of the number of groups. */
+        AUTO;
+
+        public static Mode fromString(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Unknown executor.grouping.mode '{}', using per-grade", value);
+                return PER_GRADE;
+            }
+        }
+    }
+
+    private final GradeCostHistory history;
+    private final Mode mode;
+    private final int dbParallelism;
+
+    /**
+     * Create planner with configuration from properties.
+     */
+    public GradeGroupPlanner(GradeCostHistory history) {
+        this(history,
+                Mode.fromString(DatabaseConfig.getProperty("executor.grouping.mode", "per-grade")),
+                DatabaseConfig.getIntProperty("executor.grouping.db-parallelism", 4));
+    }
+
+    /**
+     * Create planner with custom configuration.
+     */
+    public GradeGroupPlanner(GradeCostHistory history, Mode mode, int dbParallelism) {
+        this.history = history;
+        this.mode = mode;
+        this.dbParallelism = Math.max(1, dbParallelism);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Group the grades for a run.
+     *
+     * @param workers Number of queries that can run concurrently
+     */
+    public Plan plan(int[] grades, int workers) {
+        int n = grades.length;
+        if (mode == Mode.PER_GRADE || n <= 1) {
+            return new Plan(grades, group(grades, n), -1, false);
+        }
+        if (mode == Mode.COMBINED) {
+            return new Plan(grades, group(grades, 1), -1, false);
+        }
+
+        double[] fit = fitOverheadAndRowCost(grades);
+        Plan best = null;
+        for (int g = 1; g <= n; g++) {
+            List<int[]> groups = group(grades, g);
+            double measured = history.getPlanMs(key(grades, g));
+            double cost = measured >= 0 ? measured : estimateMs(groups, fit, workers);
+            if (cost < 0) {
+                // Nothing known yet: keep today's per-grade behaviour
+                return new Plan(grades, group(grades, n), -1, false);
+            }
+            if (best == null || cost < best.costMs) {
+                best = new Plan(grades, groups, cost, measured >= 0);
+            }
+        }
+        logger.info("Grade grouping: {}", best);
+        return best;
+    }
+
+    /**
+     * Record the run time of a plan, for later {@link Mode#AUTO} decisions.
+     */
+    public void complete(Plan plan, long runTimeMs) {
+        if (mode != Mode.AUTO || plan.grades.length <= 1) {
+            return;
+        }
+        history.recordPlan(key(plan.grades, plan.groups.size()), runTimeMs);
+        history.save();
+    }
+
+    /**
+     * Split grades into {@code count} groups, largest first into the group with
+     * the fewest rows. Grades without history count as average.
+     */
+    List<int[]> group(int[] grades, int count) {
+        if (count >= grades.length) {
+            return Arrays.stream(grades).mapToObj(g -> new int[]{g}).collect(Collectors.toList());
+        }
+        double average = Arrays.stream(grades).filter(g -> history.get(g) != null)
+                .mapToDouble(g -> history.get(g).getRows()).average().orElse(1);
+        List<Integer> ordered = Arrays.stream(grades).boxed()
+                .sorted(Comparator.comparingDouble((Integer g) -> rows(g, average)).reversed())
+                .collect(Collectors.toList());
+        List<List<Integer>> groups = new ArrayList<>();
+        double[] load = new double[count];
+        for (int i = 0; i < count; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int grade : ordered) {
+            int lightest = IntStream.range(0, count).boxed()
+                    .min(Comparator.comparingDouble(i -> load[i])).orElse(0);
+            groups.get(lightest).add(grade);
+            load[lightest] += rows(grade, average);
+        }
+        return groups.stream().filter(g -> !g.isEmpty())
+                .map(g -> g.stream().mapToInt(Integer::intValue).sorted().toArray())
+                .collect(Collectors.toList());
+    }
+
+    private double rows(int grade, double fallback) {
+        GradeCostHistory.Estimate estimate = history.get(grade);
+        return estimate != null ? estimate.getRows() : fallback;
+    }
+
+    /**
+     * Fit {@code ms = overhead + rows * msPerRow} over the grades' history.
+     *
+     * @return {overhead, msPerRow}, or null with fewer than two distinct grades timed
+     */
+    double[] fitOverheadAndRowCost(int[] grades) {
+        List<GradeCostHistory.Estimate> points = Arrays.stream(grades).mapToObj(history::get)
+                .filter(e -> e != null).collect(Collectors.toList());
+        if (points.size() < 2) {
+            return null;
+        }
+        double meanRows = points.stream().mapToDouble(GradeCostHistory.Estimate::getRows).average().orElse(0);
+        double meanMs = points.stream().mapToDouble(GradeCostHistory.Estimate::getTimeMs).average().orElse(0);
+        double covariance = 0;
+        double variance = 0;
+        for (GradeCostHistory.Estimate point : points) {
+            covariance += (point.getRows() - meanRows) * (point.getTimeMs() - meanMs);
+            variance += (point.getRows() - meanRows) * (point.getRows() - meanRows);
+        }
+        if (variance == 0) {
+            return null;
+        }
+        double msPerRow = Math.max(0, covariance / variance);
+        double overhead = Math.max(0, meanMs - msPerRow * meanRows);
+        return new double[]{overhead, msPerRow};
+    }
+
+    /**
+     * Modelled run time of a grouping, or -1 without a fit.
+     */
+    double estimateMs(List<int[]> groups, double[] fit, int workers) {
+        if (fit == null) {
+            return -1;
+        }
+        double average = groups.stream().flatMapToInt(Arrays::stream).filter(g -> history.get(g) != null)
+                .mapToDouble(g -> history.get(g).getRows()).average().orElse(0);
+        double[] costs = new double[groups.size()];
+        double totalWork = 0;
+        for (int i = 0; i < groups.size(); i++) {
+            double rows = Arrays.stream(groups.get(i)).mapToDouble(g -> rows(g, average)).sum();
+            costs[i] = fit[0] + rows * fit[1];
+            totalWork += costs[i];
+        }
+        double[] largestFirst = Arrays.stream(costs).boxed().sorted(Comparator.reverseOrder())
+                .mapToDouble(Double::doubleValue).toArray();
+        return Math.max(GradeScheduler.predictMakespan(largestFirst, workers), totalWork / dbParallelism);
+    }
+
+    static String key(int[] grades, int groupCount) {
+        return Arrays.stream(grades).sorted().mapToObj(String::valueOf).collect(Collectors.joining("-"))
+                + ".g" + groupCount;
+    }
+
+    /**
+     * Grade groups for a run; each group is one statement.
+     */
+    public static final class Plan {
+        private final int[] grades;
+        private final List<int[]> groups;
+        private final double costMs;
+        private final boolean measured;
+
+        Plan(int[] grades, List<int[]> groups, double costMs, boolean measured) {
+            this.grades = grades.clone();
+            this.groups = groups;
+            this.costMs = costMs;
+            this.measured = measured;
+        }
+
+        public List<int[]> getGroups() {
+            return groups;
+        }
+
+        /**
+         * True if every group is a single grade.
+         */
+        public boolean isPerGrade() {
+            return groups.size() == grades.length;
+        }
+
+        /**
+         * Expected run time in milliseconds, or -1 if the plan was not costed.
+         */
+        public double getCostMs() {
+            return costMs;
+        }
+
+        public boolean isMeasured() {
+            return measured;
+        }
+
+        @Override
+        public String toString() {
+            String layout = groups.stream().map(Arrays::toString).collect(Collectors.joining(" "));
+            return costMs < 0 ? layout
+                    : String.format("%s (%s %.0f ms)", layout, measured ? "measured" : "estimated", costMs);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.tviewcaserelated.schedule;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.model.QueryResult;
+import com.example.tviewcaserelated.split.GradeChunk;
+import com.example.tviewcaserelated.sql.SqlQueries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Skew-aware scheduler: orders grade/chunk tasks largest-first by expected cost
+ * so that the long pole starts first instead of becoming the straggler.
+ *
+ * <p>Cost comes from {@link GradeCostHistory}. Grades with no history fall back to
+ * a cheap {@code COUNT(*)} pre-pass, converted to milliseconds with the average
+ * ms/row of the grades that do have history. After a run the predicted makespan
+ * (longest-processing-time-first on the worker count) is logged next to the actual
+ * one and the history is updated.</p>
+ */
+public class GradeScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradeScheduler.class);
+
+    private final DataSource dataSource;
+    private final GradeCostHistory history;
+    private final boolean enabled;
+    private final boolean countFallback;
+
+    /**
+     * Create scheduler with configuration from properties.
+     */
+    public GradeScheduler(DataSource dataSource) {
+        this(dataSource,
+                GradeCostHistory.load(
+                        Path.of(DatabaseConfig.getProperty("scheduler.history-file", "grade-history.properties")),
+                        DatabaseConfig.getDoubleProperty("scheduler.history-weight", 0.5)),
+                DatabaseConfig.getBooleanProperty("scheduler.enabled", true),
+                DatabaseConfig.getBooleanProperty("scheduler.count-fallback", true));
+    }
+
+    /**
+     * Create scheduler with custom configuration.
+     */
+    public GradeScheduler(DataSource dataSource, GradeCostHistory history,
+                          boolean enabled, boolean countFallback) {
+        this.dataSource = dataSource;
+        this.history = history;
+        this.enabled = enabled;
+        this.countFallback = countFallback;
+    }
+
+    public GradeCostHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Order chunks by expected cost, largest first.
+     *
+     * @param chunks  Planned chunks
+     * @param workers Number of tasks that can run concurrently
+     * @return Schedule with the submission order and predicted makespan
+     */
+    public Schedule schedule(List<GradeChunk> chunks, int workers) {
+        if (!enabled) {
+            return new Schedule(chunks, -1);
+        }
+
+        Map<Integer, Double> gradeCosts = new HashMap<>();
+        boolean timed = !history.isEmpty();
+        for (GradeChunk chunk : chunks) {
+            gradeCosts.computeIfAbsent(chunk.getGrade(), this::estimateCostMs);
+        }
+
+        // History holds each grade's total work; a chunk of a split grade costs its share
+        List<GradeChunk> ordered = new ArrayList<>(chunks);
+        ordered.sort(Comparator.comparingDouble(
+                (GradeChunk c) -> gradeCosts.get(c.getGrade()) / c.getChunkCount()).reversed());
+
+        double[] costs = ordered.stream()
+                .mapToDouble(c -> gradeCosts.get(c.getGrade()) / c.getChunkCount())
+                .toArray();
+        long predicted = timed ? predictMakespan(costs, workers) : -1;
+
+        logger.info("Scheduled {} task(s) largest-first: {}", ordered.size(), ordered);
+        return new Schedule(ordered, predicted);
+    }
+
+    /**
+     * Record the outcome of a scheduled run: log predicted vs actual makespan and
+     * fold the per-grade results into the history.
+     */
+    public void complete(Schedule schedule, List<QueryResult> results, long actualMakespanMs) {
+        if (!enabled) {
+            return;
+        }
+        if (schedule.getPredictedMakespanMs() >= 0) {
+            logger.info("Makespan: predicted {} ms, actual {} ms",
+                    schedule.getPredictedMakespanMs(), actualMakespanMs);
+        } else {
+            logger.info("Makespan: actual {} ms (no timing history for a prediction yet)", actualMakespanMs);
+        }
+        for (QueryResult result : results) {
+            // Total work, so a split grade is not recorded as cheap as one of its chunks
+            history.record(result.getGrade(), result.getRecordCount(), result.getWorkTimeMs());
+        }
+        history.save();
+    }
+
+    /**
+     * Expected cost of a grade in milliseconds (or rows, when nothing is timed yet).
+     */
+    double estimateCostMs(int grade) {
+        GradeCostHistory.Estimate estimate = history.get(grade);
+        if (estimate != null) {
+            return estimate.getTimeMs();
+        }
+        if (!countFallback) {
+            return 0;
+        }
+        try {
+            long rows = countRows(grade);
+            double msPerRow = history.averageMsPerRow();
+            return msPerRow > 0 ? rows * msPerRow : rows;
+        } catch (SQLException e) {
+            logger.warn("Count pre-pass failed for grade {}: {}", grade, e.getMessage());
+            return 0;
+        }
+    }
+
+    private long countRows(int grade) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SqlQueries.GRADE_ROW_COUNT)) {
+            stmt.setInt(1, grade);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Simulate greedy assignment of tasks, in the given order, to the least
+     * loaded of {@code workers} workers and return the resulting makespan.
+     */
+    static long predictMakespan(double[] costs, int workers) {
+        PriorityQueue<Double> loads = new PriorityQueue<>();
+        for (int i = 0; i < Math.max(1, workers); i++) {
+            loads.add(0.0);
+        }
+        double makespan = 0;
+        for (double cost : costs) {
+            double load = loads.poll() + cost;
+            makespan = Math.max(makespan, load);
+            loads.add(load);
+        }
+        return Math.round(makespan);
+    }
+
+    /**
+     * Submission order for a run, plus the makespan predicted for it.
+     */
+    public static final class Schedule {
+        private final List<GradeChunk> chunks;
+        private final long predictedMakespanMs;
+
+        Schedule(List<GradeChunk> chunks, long predictedMakespanMs) {
+            this.chunks = chunks;
+            this.predictedMakespanMs = predictedMakespanMs;
+        }
+
+        public List<GradeChunk> getChunks() {
+            return chunks;
+        }
+
+        /**
+         * Predicted makespan in milliseconds, or -1 if there is no timing history.
+         */
+        public long getPredictedMakespanMs() {
+            return predictedMakespanMs;
+        }
+    }
+}
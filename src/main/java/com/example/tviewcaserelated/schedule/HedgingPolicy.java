@@ -0,0 +1,116 @@
+package com.example.tviewcaserelated.schedule;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * When to launch a speculative second attempt of a straggling grade/chunk task.
+ *
+ * <p>A task becomes a straggler once it has run longer than the configured
+ * percentile of its grade's recent execution times (and at least
+ * {@code minDelayMs}). Grades with fewer than {@code minSamples} recorded runs are
+ * never hedged. At most {@code maxExtraFraction} of a run's tasks (at least one) may
+ * be hedged, which caps the extra load on the database. The executor additionally
+ * requires a free query permit and no threads waiting on the pool.</p>
+ */
+public class HedgingPolicy {
+
+    private final GradeCostHistory history;
+    private final boolean enabled;
+    private final double percentile;
+    private final int minSamples;
+    private final long minDelayMs;
+    private final double maxExtraFraction;
+
+    private final AtomicLong fired = new AtomicLong();
+    private final AtomicLong won = new AtomicLong();
+
+    /**
+     * Create policy with configuration from properties.
+     */
+    public HedgingPolicy(GradeCostHistory history) {
+        this(history,
+                DatabaseConfig.getBooleanProperty("executor.hedge.enabled", false),
+                DatabaseConfig.getDoubleProperty("executor.hedge.percentile", 0.95),
+                DatabaseConfig.getIntProperty("executor.hedge.min-samples", 5),
+                DatabaseConfig.getLongProperty("executor.hedge.min-delay-ms", 1000),
+                DatabaseConfig.getDoubleProperty("executor.hedge.max-extra-fraction", 0.1));
+    }
+
+    /**
+     * Create policy with custom configuration.
+     */
+    public HedgingPolicy(GradeCostHistory history, boolean enabled, double percentile,
+                         int minSamples, long minDelayMs, double maxExtraFraction) {
+        this.history = history;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minSamples = Math.max(1, minSamples);
+        this.minDelayMs = minDelayMs;
+        this.maxExtraFraction = maxExtraFraction;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Running time after which a task of this grade is a straggler.
+     *
+     * @return Milliseconds, or -1 if the grade must not be hedged
+     */
+    public long thresholdMs(int grade) {
+        return thresholdMs(grade, 1);
+    }
+
+    /**
+     * Running time after which one chunk of a grade split into {@code chunkCount}
+     * chunks is a straggler; the history holds whole-grade times.
+     *
+     * @return Milliseconds, or -1 if the grade must not be hedged
+     */
+    public long thresholdMs(int grade, int chunkCount) {
+        if (!enabled || history.getSampleCount(grade) < minSamples) {
+            return -1;
+        }
+        return Math.max(minDelayMs, history.percentileMs(grade, percentile) / Math.max(1, chunkCount));
+    }
+
+    /**
+     * Maximum number of hedged attempts for a run of {@code tasks} tasks.
+     */
+    public int budget(int tasks) {
+        if (!enabled || tasks == 0) {
+            return 0;
+        }
+        return Math.max(1, (int) Math.floor(tasks * maxExtraFraction));
+    }
+
+    public void recordFired() {
+        fired.incrementAndGet();
+    }
+
+    public void recordWon() {
+        won.incrementAndGet();
+    }
+
+    /**
+     * Number of hedged attempts launched.
+     */
+    public long getFired() {
+        return fired.get();
+    }
+
+    /**
+     * Number of hedged attempts that finished before the original.
+     */
+    public long getWon() {
+        return won.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Hedging[p%.0f, fired=%d, won=%d]", percentile * 100, fired.get(), won.get());
+    }
+}
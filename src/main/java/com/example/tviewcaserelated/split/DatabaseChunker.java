@@ -0,0 +1,177 @@
+package com.example.tviewcaserelated.split;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.runtime.ExecutionRuntime;
+import com.example.tviewcaserelated.sql.SqlQueries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * Database-side chunking of a grade, in the style of
+ * {@code DBMS_PARALLEL_EXECUTE.CREATE_CHUNKS_BY_NUMBER_COL}, but balanced by rows
+ * rather than by key width.
+ *
+ * <p>The database deals the grade's TINSIDs into equal-sized buckets with
+ * {@code NTILE} ({@link SqlQueries#GRADE_TINSID_BUCKETS}) and returns each bucket's
+ * bounds and row count, so chunks hold roughly equal rows however the TINSIDs are
+ * distributed. Buckets smaller than {@code minRowsPerChunk} are merged with their
+ * neighbours.</p>
+ *
+ * <p>The number of buckets follows the connections available to a run:
+ * {@code connections x chunksPerConnection}, capped by {@code maxChunks}. The chunk
+ * map of a grade is cached for {@code cacheTtlMs} and recomputed earlier only if
+ * the bucket count changes.</p>
+ */
+public class DatabaseChunker {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseChunker.class);
+
+    private final DataSource dataSource;
+    private final IntSupplier connections;
+    private final int chunksPerConnection;
+    private final long minRowsPerChunk;
+    private final int maxChunks;
+    private final long cacheTtlMs;
+    private final Map<Integer, ChunkMap> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Create chunker with configuration from properties, sized by the concurrency of
+     * the shared {@link ExecutionRuntime}.
+     */
+    public DatabaseChunker(DataSource dataSource) {
+        this(dataSource,
+                () -> ExecutionRuntime.shared().getConcurrency(),
+                DatabaseConfig.getIntProperty("executor.split.db.chunks-per-connection", 2),
+                DatabaseConfig.getLongProperty("executor.split.db.min-rows-per-chunk", 50000),
+                DatabaseConfig.getIntProperty("executor.split.max-chunks", 32),
+                DatabaseConfig.getLongProperty("executor.split.db.cache-ttl-ms", 3_600_000));
+    }
+
+    /**
+     * Create chunker with custom configuration.
+     */
+    public DatabaseChunker(DataSource dataSource, IntSupplier connections, int chunksPerConnection,
+                           long minRowsPerChunk, int maxChunks, long cacheTtlMs) {
+        this.dataSource = dataSource;
+        this.connections = connections;
+        this.chunksPerConnection = Math.max(1, chunksPerConnection);
+        this.minRowsPerChunk = Math.max(1, minRowsPerChunk);
+        this.maxChunks = Math.max(1, maxChunks);
+        this.cacheTtlMs = cacheTtlMs;
+    }
+
+    /**
+     * Buckets to ask the database for when no count is configured.
+     */
+    public int targetChunks() {
+        return (int) Math.max(1, Math.min((long) connections.getAsInt() * chunksPerConnection, maxChunks));
+    }
+
+    /**
+     * Row-balanced chunks of a grade, from the cache if still valid.
+     *
+     * @param grade     Grade to chunk
+     * @param requested Bucket count, or 0 for {@link #targetChunks()}
+     * @return Chunks in TINSID order; a single whole-grade chunk for an empty grade
+     * @throws SQLException if the bucket query fails
+     */
+    public List<GradeChunk> chunks(int grade, int requested) throws SQLException {
+        int buckets = requested > 0 ? Math.min(requested, maxChunks) : targetChunks();
+        ChunkMap cached = cache.get(grade);
+        if (cached != null && cached.buckets == buckets
+                && System.currentTimeMillis() - cached.createdMillis < cacheTtlMs) {
+            return cached.chunks;
+        }
+        long startTime = System.currentTimeMillis();
+        List<long[]> bounds = loadBuckets(grade, buckets);
+        ChunkMap created = new ChunkMap(buckets, merge(grade, bounds, minRowsPerChunk), System.currentTimeMillis());
+        cache.put(grade, created);
+        logger.debug("Grade {}: {} bucket(s) from the database -> {} chunk(s) in {} ms",
+                grade, bounds.size(), created.chunks.size(), System.currentTimeMillis() - startTime);
+        return created.chunks;
+    }
+
+    /**
+     * Drop all cached chunk maps, e.g. after a bulk load.
+     */
+    public void invalidate() {
+        cache.clear();
+    }
+
+    private List<long[]> loadBuckets(int grade, int buckets) throws SQLException {
+        List<long[]> bounds = new ArrayList<>(buckets);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SqlQueries.GRADE_TINSID_BUCKETS)) {
+            stmt.setInt(1, buckets);
+            stmt.setInt(2, grade);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    bounds.add(new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)});
+                }
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Turn buckets ({@code min TINSID, max TINSID, rows}, in TINSID order) into
+     * chunks of at least {@code minRows} rows where possible. Each chunk runs up
+     * to the first TINSID of the next; the first chunk has no lower bound and the
+     * last no upper bound.
+     */
+    static List<GradeChunk> merge(int grade, List<long[]> buckets, long minRows) {
+        List<Long> cuts = new ArrayList<>();
+        long rows = 0;
+        for (int i = 0; i < buckets.size() - 1; i++) {
+            rows += buckets.get(i)[2];
+            long next = buckets.get(i + 1)[0];
+            boolean advances = cuts.isEmpty() ? next > buckets.get(0)[0] : next > cuts.get(cuts.size() - 1);
+            if (rows >= minRows && advances && remainingRows(buckets, i + 1) >= minRows) {
+                cuts.add(next);
+                rows = 0;
+            }
+        }
+        if (cuts.isEmpty()) {
+            return List.of(GradeChunk.wholeGrade(grade));
+        }
+        int count = cuts.size() + 1;
+        List<GradeChunk> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            chunks.add(new GradeChunk(grade, i, count,
+                    i == 0 ? null : cuts.get(i - 1),
+                    i == count - 1 ? null : cuts.get(i)));
+        }
+        return chunks;
+    }
+
+    private static long remainingRows(List<long[]> buckets, int from) {
+        long rows = 0;
+        for (int i = from; i < buckets.size(); i++) {
+            rows += buckets.get(i)[2];
+        }
+        return rows;
+    }
+
+    private static final class ChunkMap {
+        private final int buckets;
+        private final List<GradeChunk> chunks;
+        private final long createdMillis;
+
+        ChunkMap(int buckets, List<GradeChunk> chunks, long createdMillis) {
+            this.buckets = buckets;
+            this.chunks = List.copyOf(chunks);
+            this.createdMillis = createdMillis;
+        }
+    }
+}
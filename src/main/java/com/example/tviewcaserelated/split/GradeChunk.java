@@ -0,0 +1,131 @@
+package com.example.tviewcaserelated.split;
+
+import com.example.tviewcaserelated.sql.SqlQueries;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A unit of parallel work: one grade, optionally restricted to a TINSID range.
+ *
+ * <p>A whole-grade chunk runs the plain {@link SqlQueries#TVIEWCASERELATED_QUERY}.
+ * A ranged chunk runs {@link SqlQueries#TVIEWCASERELATED_RANGE_QUERY}; a missing
+ * bound means the range is open on that side, so the first and last chunks of a
+ * grade also pick up rows inserted after the split was planned.</p>
+ *
+ * <p>An {@link #ordered()} chunk returns its rows ordered by TINSID, so a checkpointed
+ * run can {@link #resumeAfter(long) resume} it after the last TINSID it finished.</p>
+ */
+public final class GradeChunk {
+
+    private final int grade;
+    private final int chunkIndex;
+    private final int chunkCount;
+    private final Long lowerInclusive;
+    private final Long upperExclusive;
+    private final boolean ordered;
+
+    public GradeChunk(int grade, int chunkIndex, int chunkCount,
+                      Long lowerInclusive, Long upperExclusive) {
+        this(grade, chunkIndex, chunkCount, lowerInclusive, upperExclusive, false);
+    }
+
+    private GradeChunk(int grade, int chunkIndex, int chunkCount,
+                       Long lowerInclusive, Long upperExclusive, boolean ordered) {
+        this.grade = grade;
+        this.chunkIndex = chunkIndex;
+        this.chunkCount = chunkCount;
+        this.lowerInclusive = lowerInclusive;
+        this.upperExclusive = upperExclusive;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Create a chunk covering a whole grade (no splitting).
+     */
+    public static GradeChunk wholeGrade(int grade) {
+        return new GradeChunk(grade, 0, 1, null, null);
+    }
+
+    public int getGrade() {
+        return grade;
+    }
+
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public Long getLowerInclusive() {
+        return lowerInclusive;
+    }
+
+    public Long getUpperExclusive() {
+        return upperExclusive;
+    }
+
+    public boolean isWholeGrade() {
+        return lowerInclusive == null && upperExclusive == null;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * The same chunk with its rows ordered by TINSID.
+     */
+    public GradeChunk ordered() {
+        return new GradeChunk(grade, chunkIndex, chunkCount, lowerInclusive, upperExclusive, true);
+    }
+
+    /**
+     * The ordered remainder of this chunk after {@code tinsid}, i.e. the rows still
+     * to process once every row up to and including {@code tinsid} is done.
+     */
+    public GradeChunk resumeAfter(long tinsid) {
+        return new GradeChunk(grade, chunkIndex, chunkCount, tinsid + 1, upperExclusive, true);
+    }
+
+    /**
+     * SQL to execute for this chunk.
+     */
+    public String getSql() {
+        if (isWholeGrade()) {
+            return ordered ? SqlQueries.TVIEWCASERELATED_ORDERED_QUERY : SqlQueries.TVIEWCASERELATED_QUERY;
+        }
+        return ordered ? SqlQueries.TVIEWCASERELATED_RANGE_ORDERED_QUERY : SqlQueries.TVIEWCASERELATED_RANGE_QUERY;
+    }
+
+    /**
+     * Bind grade and range parameters for {@link #getSql()}.
+     */
+    public void bind(PreparedStatement stmt) throws SQLException {
+        stmt.setInt(1, grade);
+        if (!isWholeGrade()) {
+            stmt.setLong(2, lowerInclusive != null ? lowerInclusive : Long.MIN_VALUE);
+            stmt.setLong(3, upperExclusive != null ? upperExclusive : Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Whether a TINSID falls inside this chunk's range.
+     */
+    public boolean contains(long tinsid) {
+        return (lowerInclusive == null || tinsid >= lowerInclusive)
+                && (upperExclusive == null || tinsid < upperExclusive);
+    }
+
+    @Override
+    public String toString() {
+        if (isWholeGrade()) {
+            return "grade " + grade;
+        }
+        return String.format("grade %d [%d/%d] TINSID %s..%s", grade, chunkIndex + 1, chunkCount,
+                lowerInclusive != null ? lowerInclusive : "*",
+                upperExclusive != null ? upperExclusive : "*");
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.tviewcaserelated.split;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.sql.SqlQueries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plans intra-grade splitting: divides each grade into TINSID key ranges so that
+ * a single large grade can fan out across every connection in the pool.
+ *
+ * <p>Chunk count per grade is resolved in this order:</p>
+ * <ul>
+ *   <li>{@code executor.split.chunks.<grade>} - explicit per-grade count</li>
+ *   <li>{@code executor.split.chunks} - explicit default count (0 = derive)</li>
+ *   <li>row count / {@code executor.split.rows-per-chunk}</li>
+ * </ul>
+ * <p>The result is capped by {@code executor.split.max-chunks}.</p>
+ *
+ * <p>With {@code executor.split.strategy=database} the ranges come from a
+ * {@link DatabaseChunker} instead: the database cuts each grade into buckets of
+ * equal row count, so skewed TINSIDs do not produce lopsided chunks. An explicit
+ * chunk count still applies; otherwise the count follows the available connections.</p>
+ */
+public class GradeRangeSplitter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradeRangeSplitter.class);
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final int defaultChunks;
+    private final long rowsPerChunk;
+    private final int maxChunks;
+    private final Map<Integer, Integer> chunksByGrade;
+    private final DatabaseChunker chunker;
+
+    /**
+     * Create splitter with configuration from properties.
+     */
+    public GradeRangeSplitter(DataSource dataSource) {
+        this(dataSource,
+                DatabaseConfig.getBooleanProperty("executor.split.enabled", false),
+                DatabaseConfig.getIntProperty("executor.split.chunks", 0),
+                DatabaseConfig.getLongProperty("executor.split.rows-per-chunk", 250000),
+                DatabaseConfig.getIntProperty("executor.split.max-chunks", 32),
+                loadPerGradeChunks(),
+                "database".equalsIgnoreCase(DatabaseConfig.getProperty("executor.split.strategy", "range"))
+                        ? new DatabaseChunker(dataSource) : null);
+    }
+
+    /**
+     * Create splitter with custom configuration.
+     */
+    public GradeRangeSplitter(DataSource dataSource, boolean enabled, int defaultChunks,
+                              long rowsPerChunk, int maxChunks, Map<Integer, Integer> chunksByGrade) {
+        this(dataSource, enabled, defaultChunks, rowsPerChunk, maxChunks, chunksByGrade, null);
+    }
+
+    /**
+     * Create splitter with custom configuration and database-side chunking (null
+     * for equal-width TINSID ranges).
+     */
+    public GradeRangeSplitter(DataSource dataSource, boolean enabled, int defaultChunks, long rowsPerChunk,
+                              int maxChunks, Map<Integer, Integer> chunksByGrade, DatabaseChunker chunker) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.defaultChunks = defaultChunks;
+        this.rowsPerChunk = Math.max(1, rowsPerChunk);
+        this.maxChunks = Math.max(1, maxChunks);
+        this.chunksByGrade = chunksByGrade;
+        this.chunker = chunker;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Plan the chunks for a set of grades. With splitting disabled every grade
+     * becomes a single whole-grade chunk and no statistics are queried.
+     *
+     * @param grades Grades to plan
+     * @return Chunks in grade order
+     * @throws SQLException if the statistics or bucket query fails
+     */
+    public List<GradeChunk> plan(int[] grades) throws SQLException {
+        List<GradeChunk> chunks = new ArrayList<>();
+        for (int grade : grades) {
+            if (!enabled) {
+                chunks.add(GradeChunk.wholeGrade(grade));
+                continue;
+            }
+            if (chunker != null) {
+                chunks.addAll(chunker.chunks(grade, chunksByGrade.getOrDefault(grade, defaultChunks)));
+                continue;
+            }
+            GradeStats stats = loadStats(grade);
+            List<GradeChunk> gradeChunks = stats.rowCount == 0
+                    ? List.of(GradeChunk.wholeGrade(grade))
+                    : split(grade, stats.minTinsid, stats.maxTinsid, chunkCountFor(grade, stats.rowCount));
+            logger.debug("Grade {}: {} rows, TINSID {}..{} -> {} chunk(s)",
+                    grade, stats.rowCount, stats.minTinsid, stats.maxTinsid, gradeChunks.size());
+            chunks.addAll(gradeChunks);
+        }
+        return chunks;
+    }
+
+    /**
+     * Resolve how many chunks a grade with the given row count should be split into.
+     */
+    public int chunkCountFor(int grade, long rowCount) {
+        int configured = chunksByGrade.getOrDefault(grade, defaultChunks);
+        long count = configured > 0 ? configured : (rowCount + rowsPerChunk - 1) / rowsPerChunk;
+        return (int) Math.max(1, Math.min(count, maxChunks));
+    }
+
+    /**
+     * Split the TINSID range {@code [minTinsid, maxTinsid]} into equal-width chunks.
+     * The first chunk has no lower bound and the last no upper bound.
+     */
+    public static List<GradeChunk> split(int grade, long minTinsid, long maxTinsid, int chunkCount) {
+        long span = maxTinsid - minTinsid + 1;
+        int count = (int) Math.max(1, Math.min(chunkCount, span));
+        if (count == 1) {
+            return List.of(GradeChunk.wholeGrade(grade));
+        }
+
+        long step = span / count;
+        long extra = span % count;
+        List<GradeChunk> chunks = new ArrayList<>(count);
+        long lower = minTinsid;
+        for (int i = 0; i < count; i++) {
+            long upper = lower + step + (i < extra ? 1 : 0);
+            chunks.add(new GradeChunk(grade, i, count,
+                    i == 0 ? null : lower,
+                    i == count - 1 ? null : upper));
+            lower = upper;
+        }
+        return chunks;
+    }
+
+    private GradeStats loadStats(int grade) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SqlQueries.GRADE_TINSID_STATS)) {
+            stmt.setInt(1, grade);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    long count = rs.getLong(3);
+                    return new GradeStats(rs.getLong(1), rs.getLong(2), count);
+                }
+            }
+        }
+        return new GradeStats(0, 0, 0);
+    }
+
+    private static Map<Integer, Integer> loadPerGradeChunks() {
+        Map<Integer, Integer> chunks = new HashMap<>();
+        for (int grade : DatabaseConfig.getGrades()) {
+            int value = DatabaseConfig.getIntProperty("executor.split.chunks." + grade, 0);
+            if (value > 0) {
+                chunks.put(grade, value);
+            }
+        }
+        return chunks;
+    }
+
+    private static final class GradeStats {
+        final long minTinsid;
+        final long maxTinsid;
+        final long rowCount;
+
+        GradeStats(long minTinsid, long maxTinsid, long rowCount) {
+            this.minTinsid = minTinsid;
+            this.maxTinsid = maxTinsid;
+            this.rowCount = rowCount;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.tviewcaserelated.sql;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * SQL query constants for Tviewcaserelated.
  * Contains the optimized SQL query with CTEs and JOINs.
@@ -244,6 +247,244 @@ public final class SqlQueries {
         FROM main_data
         """;
     
+    /**
+     * TINSID range variant of {@link #TVIEWCASERELATED_QUERY}, used when a grade is
+     * split into chunks that run as independent tasks.
+     *
+     * <p>Parameters: grade, lower TINSID (inclusive), upper TINSID (exclusive).</p>
+     */
+    public static final String TVIEWCASERELATED_RANGE_QUERY = withGradeFilter(
+            "AND a.TINSID >= ?",
+            "AND a.TINSID < ?");
+    
+    /**
+     * {@link #TVIEWCASERELATED_QUERY} ordered by TINSID, for checkpointed runs that
+     * resume after the last fully processed TINSID.
+     */
+    public static final String TVIEWCASERELATED_ORDERED_QUERY = orderedByTinsid(TVIEWCASERELATED_QUERY);
+    
+    /**
+     * {@link #TVIEWCASERELATED_RANGE_QUERY} ordered by TINSID.
+     */
+    public static final String TVIEWCASERELATED_RANGE_ORDERED_QUERY = orderedByTinsid(TVIEWCASERELATED_RANGE_QUERY);
+    
+    /**
+     * Preview variant of {@link #TVIEWCASERELATED_QUERY} that returns at most
+     * {@code rowLimit} rows (Oracle 12c+).
+     *
+     * <p>The CTEs are inlined instead of materialized and the optimizer goal is
+     * {@code FIRST_ROWS(rowLimit)}, so Oracle can drive the preview from the grade's
+     * ENT rows with nested loops instead of building the full intermediate results.</p>
+     *
+     * <p>Parameters: grade, row limit.</p>
+     */
+    public static String limitedQuery(int rowLimit) {
+        return forFirstRows(TVIEWCASERELATED_QUERY, rowLimit) + "\n        FETCH FIRST ? ROWS ONLY\n";
+    }
+    
+    /**
+     * One keyset page of a grade: the rows after a TINSID, in TINSID order, tuned
+     * like {@link #limitedQuery(int)}. {@code WITH TIES} completes the last TINSID,
+     * so the next page can seek strictly past it.
+     *
+     * <p>Parameters: grade, lower TINSID (inclusive), upper TINSID (exclusive), row limit.</p>
+     */
+    public static String pageQuery(int pageSize) {
+        return forFirstRows(TVIEWCASERELATED_RANGE_ORDERED_QUERY, pageSize) + "\n        FETCH FIRST ? ROWS WITH TIES\n";
+    }
+    
+    /**
+     * {@link #TVIEWCASERELATED_QUERY} for several grades in one statement. The
+     * {@code filtered_timetin} and {@code entmod_eligible} CTEs are materialized
+     * once for all of them; rows are told apart by {@code C_GRADE}.
+     *
+     * <p>Parameters: {@code gradeCount} grades.</p>
+     */
+    public static String multiGradeQuery(int gradeCount) {
+        if (gradeCount < 1) {
+            throw new IllegalArgumentException("At least one grade is required");
+        }
+        String placeholders = String.join(", ", Collections.nCopies(gradeCount, "?"));
+        return TVIEWCASERELATED_QUERY.replace("WHERE a.grade = ?", "WHERE a.grade IN (" + placeholders + ")");
+    }
+    
+    /**
+     * {@link #TVIEWCASERELATED_QUERY} for a batch of TINSIDs instead of a grade, tuned
+     * like {@link #limitedQuery(int)}: the CTEs are inlined, so Oracle can drive the
+     * lookup from the ENT rows of the bound TINSIDs instead of building the
+     * full intermediate results.
+     *
+     * <p>Parameters: {@code batchSize} TINSIDs; pad a short batch by repeating one.</p>
+     */
+    public static String tinsidLookupQuery(int batchSize) {
+        if (batchSize < 1 || batchSize > 1000) {
+            throw new IllegalArgumentException("Batch size must be between 1 and 1000, was " + batchSize);
+        }
+        String placeholders = String.join(", ", Collections.nCopies(batchSize, "?"));
+        String query = TVIEWCASERELATED_QUERY.replace("WHERE a.grade = ?", "WHERE a.TINSID IN (" + placeholders + ")");
+        return forFirstRows(query, batchSize) + "\n";
+    }
+    
+    /**
+     * Run-scoped table copies of the grade-independent CTEs ({@code filtered_timetin},
+     * including its {@code case_org} call per row, and {@code entmod_eligible}),
+     * created once per run and indexed on the join key.
+     */
+    public static List<String> sharedCteDdl(String timetinTable, String entmodTable) {
+        return List.of(
+                "CREATE TABLE " + timetinTable + " NOLOGGING AS" + FILTERED_TIMETIN_SELECT,
+                "CREATE INDEX " + timetinTable + "_IX ON " + timetinTable + " (TIMESID)",
+                "CREATE TABLE " + entmodTable + " NOLOGGING AS" + ENTMOD_ELIGIBLE_SELECT,
+                "CREATE INDEX " + entmodTable + "_IX ON " + entmodTable + " (TINSID)");
+    }
+    
+    /**
+     * Point a variant of {@link #TVIEWCASERELATED_QUERY} (whole grade, range, ordered
+     * or multi-grade) at the tables from {@link #sharedCteDdl(String, String)}
+     * instead of recomputing the CTEs.
+     *
+     * @throws IllegalArgumentException if the query does not materialize the CTEs
+     */
+    public static String withSharedCtes(String query, String timetinTable, String entmodTable) {
+        if (!query.contains(FILTERED_TIMETIN_BODY) || !query.contains(ENTMOD_ELIGIBLE_BODY)) {
+            throw new IllegalArgumentException("Query does not materialize the shared CTEs");
+        }
+        return query
+                .replace(FILTERED_TIMETIN_BODY, "\n    SELECT * FROM " + timetinTable)
+                .replace(ENTMOD_ELIGIBLE_BODY, "\n    SELECT * FROM " + entmodTable);
+    }
+    
+    /**
+     * Variant of a main query (whole grade, range, ordered or multi-grade) for split
+     * enrichment: the per-row PL/SQL columns ({@code C_CASEIND}, {@code STATIND},
+     * {@code ASSNQUE}, {@code PICKDT}, {@code QPICKIND}) are returned as NULL, and the
+     * raw inputs of those functions that are not already selected are added as
+     * {@code X_} columns, so the client can resolve the functions through cached
+     * lookups ({@link #enrichmentLookup(String, int, int)}).
+     *
+     * @throws IllegalArgumentException if the query does not contain the function columns
+     */
+    public static String withSplitEnrichment(String query) {
+        String result = query;
+        result = nullColumn(result, "GETSEGIND(", "C_CASEIND");
+        result = nullColumn(result, "DECODE(b.STATUS, 'O', STATIND(", "STATIND");
+        result = nullColumn(result, "CASE", "ASSNQUE");
+        result = nullColumn(result, "TRUNC(ASSNPICKDT(", "PICKDT");
+        result = nullColumn(result, "DECODE(DECODE(b.ZIPCDE", "QPICKIND");
+        String select = "main_data AS (\n    SELECT";
+        int start = result.indexOf(select);
+        int from = result.lastIndexOf("\nFROM main_data");
+        if (start < 0 || from < 0) {
+            throw new IllegalArgumentException("Query does not select from main_data");
+        }
+        return result.substring(0, start + select.length())
+                + "\n        " + SPLIT_ENRICHMENT_INPUTS + ","
+                + result.substring(start + select.length(), from)
+                + ",\n    " + SPLIT_ENRICHMENT_COLUMNS
+                + result.substring(from);
+    }
+    
+    /**
+     * Batched lookup of one per-row PL/SQL function: {@code batchSize} rows of
+     * {@code (n, p1..pArgCount)} binds, returning {@code n} and {@code expression}
+     * evaluated over {@code p1..pArgCount}. Unused rows repeat the last bound row, so
+     * one statement text serves every batch.
+     */
+    public static String enrichmentLookup(String expression, int argCount, int batchSize) {
+        StringBuilder sql = new StringBuilder("SELECT n, ").append(expression).append(" FROM (\n    SELECT ? n");
+        for (int p = 1; p <= argCount; p++) {
+            sql.append(", ? p").append(p);
+        }
+        sql.append(" FROM DUAL");
+        String row = "\n    UNION ALL SELECT ?" + ", ?".repeat(argCount) + " FROM DUAL";
+        sql.append(row.repeat(Math.max(0, batchSize - 1)));
+        return sql.append("\n)").toString();
+    }
+    
+    /**
+     * Variant of a main query (any of the above) whose outer {@code SELECT} list
+     * is cut down to {@code columns}. {@code main_data} is not materialized, so
+     * Oracle merges it and drops the expressions no projected column needs.
+     *
+     * @throws IllegalArgumentException if the query does not select from main_data
+     */
+    public static String withProjection(String query, List<String> columns) {
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        int from = query.lastIndexOf("\nFROM main_data");
+        int hint = from < 0 ? -1 : query.lastIndexOf("SELECT /*+ FIRST_ROWS(", from);
+        int start = hint < 0 ? -1 : query.indexOf("*/", hint);
+        if (start < 0) {
+            throw new IllegalArgumentException("Query does not select from main_data");
+        }
+        return query.substring(0, start + 2) + "\n    " + String.join(", ", columns) + query.substring(from);
+    }
+    
+    /**
+     * Variant of a main query without the two {@code entemp} joins; {@code SEID} and
+     * {@code TOUR} are returned as NULL and filled from the entemp dimensions
+     * ({@link #ENTEMP_SEID_DIMENSION}, {@link #ENTEMP_TOUR_DIMENSION}) by ROID.
+     *
+     * @throws IllegalArgumentException if the query does not contain the joins
+     */
+    public static String withoutEntempJoins(String query) {
+        int start = query.indexOf("LEFT JOIN entemp p");
+        int tourJoin = query.indexOf("ON tt.roid = tour_sub.roid");
+        int end = tourJoin < 0 ? -1 : query.indexOf("LEFT JOIN", tourJoin);
+        if (start < 0 || end < 0 || !query.contains("p.SEID,") || !query.contains("tour_sub.TOUR,")) {
+            throw new IllegalArgumentException("Query does not join entemp");
+        }
+        return (query.substring(0, start) + query.substring(end))
+                .replace("p.SEID,", "NULL AS SEID,")
+                .replace("tour_sub.TOUR,", "NULL AS TOUR,");
+    }
+    
+    /**
+     * SEID by ROID, as joined by the main query.
+     */
+    public static final String ENTEMP_SEID_DIMENSION =
+            "SELECT roid, seid FROM entemp WHERE eactive IN ('A', 'Y') AND elevel >= 0";
+    
+    /**
+     * TOUR by ROID, as joined by the main query.
+     */
+    public static final String ENTEMP_TOUR_DIMENSION =
+            "SELECT roid, tour FROM entemp WHERE elevel > 0 AND eactive IN ('A', 'Y')";
+    
+    /**
+     * Run-scoped shared CTE tables older than a number of minutes, left behind by
+     * runs that did not clean up.
+     */
+    public static final String STALE_SHARED_CTE_TABLES =
+            "SELECT object_name FROM user_objects WHERE object_type = 'TABLE' "
+                    + "AND object_name LIKE 'TVCR\\_%' ESCAPE '\\' AND created < SYSDATE - ? / 1440";
+    
+    /**
+     * Key range and row count of a grade, used to plan intra-grade splitting.
+     */
+    public static final String GRADE_TINSID_STATS =
+            "SELECT MIN(TINSID), MAX(TINSID), COUNT(*) FROM ENT WHERE grade = ?";
+    
+    /**
+     * Row-balanced TINSID buckets of a grade: MIN, MAX and row count per bucket, in
+     * TINSID order. Binds the bucket count, then the grade.
+     */
+    public static final String GRADE_TINSID_BUCKETS = """
+            SELECT MIN(TINSID), MAX(TINSID), COUNT(*)
+            FROM (
+                SELECT TINSID, NTILE(?) OVER (ORDER BY TINSID) AS bucket
+                FROM ENT
+                WHERE grade = ?
+            ) buckets
+            GROUP BY bucket
+            ORDER BY 1""";
+    
+    /**
+     * Row count of a grade, used as a cheap cost estimate by the scheduler.
+     */
+    public static final String GRADE_ROW_COUNT = "SELECT COUNT(*) FROM ENT WHERE grade = ?";
+    
     /**
      * Simple connection test query.
      */
@@ -254,4 +495,67 @@ public final class SqlQueries {
      */
     public static final String DATABASE_VERSION = 
             "SELECT banner FROM v$version WHERE ROWNUM = 1";
+    
+    private static final String SPLIT_ENRICHMENT_INPUTS = "a.ASSNCFF AS X_ASSNCFF, b.ASSNRO AS X_ASSNRO, "
+            + "b.STATUS AS X_STATUS, b.ROID AS X_ROID, b.ZIPCDE AS X_ZIPCDE, a.CITY AS X_CITY, b.SEGIND AS X_SEGIND";
+    private static final String SPLIT_ENRICHMENT_COLUMNS =
+            "X_ASSNCFF, X_ASSNRO, X_STATUS, X_ROID, X_ZIPCDE, X_CITY, X_SEGIND";
+    private static final String FILTERED_TIMETIN_BODY = cteBody("filtered_timetin");
+    private static final String ENTMOD_ELIGIBLE_BODY = cteBody("entmod_eligible");
+    private static final String FILTERED_TIMETIN_SELECT = FILTERED_TIMETIN_BODY.replace(" /*+ MATERIALIZE */", "");
+    private static final String ENTMOD_ELIGIBLE_SELECT = ENTMOD_ELIGIBLE_BODY.replace(" /*+ MATERIALIZE */", "");
+    
+    /**
+     * The subquery of a CTE of the main query, between {@code name AS (} and its
+     * closing parenthesis.
+     */
+    private static String cteBody(String name) {
+        String opening = name + " AS (";
+        int start = TVIEWCASERELATED_QUERY.indexOf(opening) + opening.length();
+        int end = TVIEWCASERELATED_QUERY.indexOf("\n),", start);
+        return TVIEWCASERELATED_QUERY.substring(start, end);
+    }
+    
+    /**
+     * Replace the expression of a {@code main_data} column, from the last
+     * {@code expressionStart} before {@code AS alias}, with NULL.
+     */
+    private static String nullColumn(String query, String expressionStart, String alias) {
+        int end = query.indexOf(" AS " + alias + ",");
+        int start = end < 0 ? -1 : query.lastIndexOf(expressionStart, end);
+        if (start < 0) {
+            throw new IllegalArgumentException("Query does not compute " + alias);
+        }
+        return query.substring(0, start) + "NULL" + query.substring(end);
+    }
+    
+    /**
+     * Inline the CTEs and set the optimizer goal to the first {@code rows} rows.
+     * The hint needs a literal, so the text depends on the row count.
+     */
+    private static String forFirstRows(String query, int rows) {
+        return query
+                .replace("/*+ MATERIALIZE */", "/*+ INLINE */")
+                .replace("/*+ FIRST_ROWS(500) */", "/*+ FIRST_ROWS(" + Math.max(1, rows) + ") */")
+                .stripTrailing();
+    }
+    
+    /**
+     * Order the rows of the main query by TINSID.
+     */
+    private static String orderedByTinsid(String query) {
+        return query.stripTrailing() + "\n        ORDER BY TINSID\n";
+    }
+    
+    /**
+     * Append extra conditions to the grade filter of the main query.
+     */
+    private static String withGradeFilter(String... conditions) {
+        String gradeFilter = "WHERE a.grade = ?";
+        StringBuilder replacement = new StringBuilder(gradeFilter);
+        for (String condition : conditions) {
+            replacement.append("\n      ").append(condition);
+        }
+        return TVIEWCASERELATED_QUERY.replace(gradeFilter, replacement.toString());
+    }
 }
@@ -0,0 +1,190 @@
+package com.example.tviewcaserelated.stream;
+
+import com.example.tviewcaserelated.mapper.Projection;
+import com.example.tviewcaserelated.mapper.ResultSetMapper;
+import com.example.tviewcaserelated.model.CaseRelatedData;
+import com.example.tviewcaserelated.split.GradeChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Demand-driven {@link Flow.Publisher} of case rows.
+ *
+ * <p>Every subscription gets its own emitter thread that walks the planned chunks
+ * one after another on a single connection-at-a-time cursor. The emitter reads at
+ * most one row past the subscriber's outstanding demand, so a slow subscriber pauses
+ * the fetch instead of buffering rows; memory stays at one fetch batch. {@link Flow.Subscription#cancel()} aborts the running statement, and the
+ * emitter then closes it and returns the connection.</p>
+ *
+ * <p>The publisher is cold: each {@link #subscribe} runs the queries again.</p>
+ */
+public class CaseRowPublisher implements Flow.Publisher<CaseRelatedData> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaseRowPublisher.class);
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    /**
+     * Supplies the chunks to publish, in emission order.
+     */
+    @FunctionalInterface
+    public interface ChunkPlanner {
+        List<GradeChunk> plan() throws SQLException;
+    }
+
+    private final DataSource dataSource;
+    private final ChunkPlanner planner;
+    private final ResultSetMapper mapper;
+    private final Projection projection;
+    private final int fetchSize;
+    private final int queryTimeoutSeconds;
+
+    public CaseRowPublisher(DataSource dataSource, ChunkPlanner planner, ResultSetMapper mapper,
+                            int fetchSize, int queryTimeoutSeconds) {
+        this(dataSource, planner, mapper, Projection.all(), fetchSize, queryTimeoutSeconds);
+    }
+
+    public CaseRowPublisher(DataSource dataSource, ChunkPlanner planner, ResultSetMapper mapper,
+                            Projection projection, int fetchSize, int queryTimeoutSeconds) {
+        this.dataSource = dataSource;
+        this.planner = planner;
+        this.mapper = mapper;
+        this.projection = projection;
+        this.fetchSize = fetchSize;
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super CaseRelatedData> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        RowSubscription subscription = new RowSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        Thread emitter = new Thread(subscription::emit, "CaseRowPublisher-" + threadCounter.incrementAndGet());
+        emitter.setDaemon(true);
+        emitter.start();
+    }
+
+    private final class RowSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super CaseRelatedData> subscriber;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition signalled = lock.newCondition();
+        private long demand;
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+        private volatile ChunkCursor current;
+
+        RowSubscription(Flow.Subscriber<? super CaseRelatedData> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (n <= 0) {
+                    invalidRequest = new IllegalArgumentException("request(" + n + "): demand must be positive");
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                signalled.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            ChunkCursor cursor = current;
+            if (cursor != null) {
+                cursor.cancel();
+            }
+            lock.lock();
+            try {
+                signalled.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Block until there is demand for one more row.
+         *
+         * @return false if the subscription was cancelled or demand was invalid
+         */
+        private boolean awaitDemand() {
+            lock.lock();
+            try {
+                while (demand == 0 && !cancelled && invalidRequest == null) {
+                    signalled.awaitUninterruptibly();
+                }
+                if (cancelled || invalidRequest != null) {
+                    return false;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void emit() {
+            long emitted = 0;
+            try {
+                for (GradeChunk chunk : planner.plan()) {
+                    if (cancelled) {
+                        break;
+                    }
+                    try (ChunkCursor cursor = ChunkCursor.connect(dataSource, chunk, mapper, projection)) {
+                        current = cursor;
+                        if (cancelled) {
+                            break;
+                        }
+                        cursor.execute(fetchSize, queryTimeoutSeconds);
+                        // Read at most one row ahead of demand, so the end of the
+                        // data is seen (and onComplete sent) without extra demand
+                        CaseRelatedData row;
+                        while ((row = cursor.next()) != null && awaitDemand()) {
+                            emitted++;
+                            subscriber.onNext(row);
+                        }
+                    } finally {
+                        current = null;
+                    }
+                    if (cancelled || invalidRequest != null) {
+                        break;
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!cancelled) {
+                    cancelled = true;
+                    logger.error("Publisher failed after {} row(s): {}", emitted, e.getMessage());
+                    subscriber.onError(e);
+                }
+                return;
+            }
+
+            if (cancelled) {
+                logger.debug("Subscription cancelled after {} row(s)", emitted);
+            } else if (invalidRequest != null) {
+                cancelled = true;
+                subscriber.onError(invalidRequest);
+            } else {
+                cancelled = true;
+                logger.debug("Published {} row(s)", emitted);
+                subscriber.onComplete();
+            }
+        }
+    }
+}
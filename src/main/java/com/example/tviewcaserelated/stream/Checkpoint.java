@@ -0,0 +1,199 @@
+package com.example.tviewcaserelated.stream;
+
+import com.example.tviewcaserelated.split.GradeChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * Persisted progress of a checkpointed streaming run.
+ *
+ * <p>Holds the run's chunk plan and, per chunk, the last committed TINSID (see
+ * {@link ChunkCheckpoint}), in a small properties file
+ * ({@code chunk.<n>=grade,index,count,lower,upper} / {@code chunk.<n>.last} /
+ * {@code chunk.<n>.rows} / {@code chunk.<n>.done}). The plan is stored rather than
+ * recomputed so a resumed run reads exactly the ranges the first run started.
+ * Commits are flushed at most every {@code flushIntervalMs}, and always by
+ * {@link #save()}; the file is replaced atomically, so a crash mid-write leaves
+ * the previous version.</p>
+ */
+public class Checkpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(Checkpoint.class);
+
+    private final Path file;
+    private final int[] grades;
+    private final long flushIntervalMs;
+    private final List<ChunkCheckpoint> chunks = new ArrayList<>();
+    private long lastFlushMillis = System.currentTimeMillis();
+
+    private Checkpoint(Path file, int[] grades, long flushIntervalMs) {
+        this.file = file;
+        this.grades = grades.clone();
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Start a checkpoint for a new run of {@code plan}.
+     */
+    public static Checkpoint create(Path file, int[] grades, List<GradeChunk> plan, long flushIntervalMs) {
+        Checkpoint checkpoint = new Checkpoint(file, grades, flushIntervalMs);
+        for (GradeChunk chunk : plan) {
+            checkpoint.chunks.add(new ChunkCheckpoint(chunk, null, 0, false, checkpoint::committed));
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Load the checkpoint of an interrupted run.
+     *
+     * @return Checkpoint, or null if {@code file} does not exist
+     * @throws IllegalStateException if the file exists but cannot be read; starting
+     *                               over would hand rows to the consumer a second time
+     */
+    public static Checkpoint load(Path file, long flushIntervalMs) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            props.load(input);
+            int[] grades = Arrays.stream(props.getProperty("grades", "").split(","))
+                    .filter(g -> !g.isBlank())
+                    .mapToInt(g -> Integer.parseInt(g.trim()))
+                    .toArray();
+            Checkpoint checkpoint = new Checkpoint(file, grades, flushIntervalMs);
+            int count = Integer.parseInt(props.getProperty("chunks", "0"));
+            for (int i = 0; i < count; i++) {
+                String prefix = "chunk." + i;
+                String last = props.getProperty(prefix + ".last");
+                checkpoint.chunks.add(new ChunkCheckpoint(
+                        parseChunk(props.getProperty(prefix)),
+                        last != null ? Long.valueOf(last) : null,
+                        Long.parseLong(props.getProperty(prefix + ".rows", "0")),
+                        Boolean.parseBoolean(props.getProperty(prefix + ".done")),
+                        checkpoint::committed));
+            }
+            return checkpoint;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Could not read checkpoint " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Whether this checkpoint is for a run over exactly {@code grades}.
+     */
+    public boolean covers(int[] grades) {
+        return Arrays.equals(this.grades, grades);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int[] getGrades() {
+        return grades.clone();
+    }
+
+    public List<ChunkCheckpoint> getChunks() {
+        return List.copyOf(chunks);
+    }
+
+    /**
+     * Chunks that still have rows to hand off, in plan order.
+     */
+    public List<ChunkCheckpoint> getIncomplete() {
+        return chunks.stream().filter(c -> !c.isComplete()).collect(Collectors.toList());
+    }
+
+    /**
+     * Rows handed off and acknowledged across all attempts of the run.
+     */
+    public long getCommittedRows() {
+        return chunks.stream().mapToLong(ChunkCheckpoint::getCommittedRows).sum();
+    }
+
+    private void committed() {
+        synchronized (this) {
+            if (System.currentTimeMillis() - lastFlushMillis < flushIntervalMs) {
+                return;
+            }
+        }
+        save();
+    }
+
+    /**
+     * Write the current committed positions to the file.
+     */
+    public synchronized void save() {
+        Properties props = new Properties();
+        props.setProperty("grades", Arrays.stream(grades).mapToObj(String::valueOf).collect(Collectors.joining(",")));
+        props.setProperty("chunks", String.valueOf(chunks.size()));
+        for (int i = 0; i < chunks.size(); i++) {
+            ChunkCheckpoint chunk = chunks.get(i);
+            String prefix = "chunk." + i;
+            props.setProperty(prefix, formatChunk(chunk.getChunk()));
+            Long last = chunk.getCommittedKey();
+            if (last != null) {
+                props.setProperty(prefix + ".last", String.valueOf(last));
+            }
+            props.setProperty(prefix + ".rows", String.valueOf(chunk.getCommittedRows()));
+            props.setProperty(prefix + ".done", String.valueOf(chunk.isComplete()));
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                props.store(output, "Tviewcaserelated streaming checkpoint");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastFlushMillis = System.currentTimeMillis();
+        } catch (IOException e) {
+            logger.warn("Could not write checkpoint {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove the file once the run has completed.
+     */
+    public synchronized void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete checkpoint {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String formatChunk(GradeChunk chunk) {
+        return chunk.getGrade() + "," + chunk.getChunkIndex() + "," + chunk.getChunkCount() + ","
+                + (chunk.getLowerInclusive() != null ? chunk.getLowerInclusive() : "*") + ","
+                + (chunk.getUpperExclusive() != null ? chunk.getUpperExclusive() : "*");
+    }
+
+    private static GradeChunk parseChunk(String value) {
+        String[] parts = value.split(",");
+        return new GradeChunk(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                "*".equals(parts[3]) ? null : Long.valueOf(parts[3]),
+                "*".equals(parts[4]) ? null : Long.valueOf(parts[4]));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d chunk(s) complete, %,d rows committed",
+                chunks.size() - getIncomplete().size(), chunks.size(), getCommittedRows());
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.tviewcaserelated.stream;
+
+import com.example.tviewcaserelated.model.CaseRelatedData;
+import com.example.tviewcaserelated.split.GradeChunk;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Hand-off bookkeeping and committed position of one chunk in a checkpointed run.
+ *
+ * <p>The chunk is read ordered by TINSID, and all rows of one TINSID are handed to
+ * the consumer together as a {@link Batch}. A TINSID is committed once the
+ * consumer has returned from every row of it <em>and</em> of every lower TINSID
+ * handed off before it. Consumers may finish batches out of order (a pipeline
+ * with several consumer threads), so the committed position only advances over a
+ * contiguous run of acknowledged batches. A new read starts strictly after the
+ * committed TINSID and skips the TINSIDs acknowledged above it, so no acknowledged
+ * batch is handed off twice and none is skipped.</p>
+ *
+ * <p>Delivery is at-least-once per TINSID, not exactly-once: if the consumer throws
+ * part-way through a batch, the rows it already returned from are handed off
+ * again, with the rest of that TINSID, on the next read. Acknowledged but
+ * uncommitted TINSIDs are only remembered in memory, and commits reach the file
+ * on {@link Checkpoint}'s flush interval; a new process resumes from the last
+ * flushed TINSID and hands off everything above it again.</p>
+ */
+public class ChunkCheckpoint {
+
+    private final GradeChunk chunk;
+    private final Runnable onCommit;
+
+    private Long committedKey;
+    private long committedRows;
+    private boolean complete;
+
+    private final TreeSet<Long> outstanding = new TreeSet<>();
+    private final TreeMap<Long, Integer> acknowledged = new TreeMap<>();
+    private boolean finished;
+    private Long lastKey;
+
+    /**
+     * @param chunk        Planned chunk
+     * @param committedKey Last committed TINSID, or null if nothing is committed yet
+     * @param committedRows Rows committed so far
+     * @param complete     Whether the whole chunk is committed
+     * @param onCommit     Called after the committed position advances
+     */
+    ChunkCheckpoint(GradeChunk chunk, Long committedKey, long committedRows, boolean complete, Runnable onCommit) {
+        this.chunk = chunk;
+        this.committedKey = committedKey;
+        this.committedRows = committedRows;
+        this.complete = complete;
+        this.onCommit = onCommit;
+    }
+
+    public GradeChunk getChunk() {
+        return chunk;
+    }
+
+    /**
+     * The ordered part of the chunk that is not committed yet.
+     */
+    public synchronized GradeChunk remaining() {
+        return committedKey == null ? chunk.ordered() : chunk.resumeAfter(committedKey);
+    }
+
+    /**
+     * Last committed TINSID, or null.
+     */
+    public synchronized Long getCommittedKey() {
+        return committedKey;
+    }
+
+    public synchronized long getCommittedRows() {
+        return committedRows;
+    }
+
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Start a new read of {@link #remaining()}. Batches of an earlier, failed read
+     * that were never acknowledged are forgotten; they will be read again. Batches
+     * it acknowledged stay pending commit and must be skipped, see
+     * {@link #isAcknowledged(long)}.
+     */
+    public synchronized void begin() {
+        outstanding.clear();
+        finished = false;
+        lastKey = committedKey;
+    }
+
+    /**
+     * Whether the consumer already returned from every row of this TINSID in an
+     * earlier read, which is not committed yet because a lower TINSID was not.
+     */
+    public synchronized boolean isAcknowledged(long key) {
+        return acknowledged.containsKey(key);
+    }
+
+    /**
+     * Register all rows of one TINSID for hand-off.
+     *
+     * @throws IllegalStateException if {@code key} is not above the previous batch
+     *                               (or the committed TINSID)
+     */
+    public synchronized Batch handOff(long key, List<CaseRelatedData> rows) {
+        if (lastKey != null && key <= lastKey) {
+            throw new IllegalStateException("Rows of " + chunk + " are not ordered by TINSID: "
+                    + key + " after " + lastKey);
+        }
+        lastKey = key;
+        outstanding.add(key);
+        return new Batch(this, key, rows);
+    }
+
+    /**
+     * Record that the producer has reached the end of the chunk.
+     */
+    public void finish() {
+        synchronized (this) {
+            finished = true;
+            advance();
+        }
+        onCommit.run();
+    }
+
+    private void acknowledge(long key, int rows) {
+        synchronized (this) {
+            if (!outstanding.remove(key)) {
+                return;
+            }
+            acknowledged.put(key, rows);
+            advance();
+        }
+        onCommit.run();
+    }
+
+    private void advance() {
+        while (!acknowledged.isEmpty()
+                && (outstanding.isEmpty() || acknowledged.firstKey() < outstanding.first())) {
+            Map.Entry<Long, Integer> next = acknowledged.pollFirstEntry();
+            committedKey = next.getKey();
+            committedRows += next.getValue();
+        }
+        if (finished && outstanding.isEmpty()) {
+            complete = true;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return chunk + (complete ? ": complete" : ": committed through TINSID "
+                + (committedKey != null ? committedKey : "-")) + String.format(", %,d rows", committedRows);
+    }
+
+    /**
+     * All rows of one TINSID, handed to the consumer as a unit.
+     */
+    public static final class Batch {
+        private final ChunkCheckpoint owner;
+        private final long key;
+        private final List<CaseRelatedData> rows;
+
+        private Batch(ChunkCheckpoint owner, long key, List<CaseRelatedData> rows) {
+            this.owner = owner;
+            this.key = key;
+            this.rows = rows;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public int size() {
+            return rows.size();
+        }
+
+        /**
+         * Pass every row to the consumer, then acknowledge the batch. If the consumer
+         * throws, the batch stays unacknowledged and is read again on resume, including
+         * the rows the consumer had already returned from.
+         */
+        public void deliverTo(Consumer<CaseRelatedData> consumer) {
+            if (consumer != null) {
+                for (CaseRelatedData row : rows) {
+                    consumer.accept(row);
+                }
+            }
+            owner.acknowledge(key, rows.size());
+        }
+    }
+}
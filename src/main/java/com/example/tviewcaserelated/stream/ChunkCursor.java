@@ -0,0 +1,161 @@
+package com.example.tviewcaserelated.stream;
+
+import com.example.tviewcaserelated.mapper.ColumnIndex;
+import com.example.tviewcaserelated.mapper.Projection;
+import com.example.tviewcaserelated.mapper.ResultSetMapper;
+import com.example.tviewcaserelated.model.CaseRelatedData;
+import com.example.tviewcaserelated.split.GradeChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Pull-based, forward-only cursor over the rows of one grade chunk.
+ *
+ * <p>Holds a pooled connection, statement and result set from {@link #connect} until
+ * {@link #close()}. Rows are only fetched when {@link #next()} is called, so a
+ * caller that stops pulling stops the fetch. {@link #cancel()} may be called from
+ * any thread to abort a statement that is still executing; publishing the cursor
+ * between {@link #connect} and {@link #execute} lets another thread cancel the
+ * query itself, not just the fetch.</p>
+ */
+public class ChunkCursor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkCursor.class);
+
+    private final GradeChunk chunk;
+    private final ResultSetMapper mapper;
+    private final Projection projection;
+    private final Connection conn;
+    private volatile PreparedStatement stmt;
+    private ResultSet rs;
+    private ColumnIndex columns;
+    private long rowCount;
+    private volatile boolean closed;
+    private volatile boolean cancelRequested;
+
+    private ChunkCursor(GradeChunk chunk, ResultSetMapper mapper, Projection projection, Connection conn) {
+        this.chunk = chunk;
+        this.mapper = mapper;
+        this.projection = projection;
+        this.conn = conn;
+    }
+
+    /**
+     * Borrow a connection and execute the chunk query.
+     */
+    public static ChunkCursor open(DataSource dataSource, GradeChunk chunk, ResultSetMapper mapper,
+                                   int fetchSize, int queryTimeoutSeconds) throws SQLException {
+        ChunkCursor cursor = connect(dataSource, chunk, mapper);
+        cursor.execute(fetchSize, queryTimeoutSeconds);
+        return cursor;
+    }
+
+    /**
+     * Borrow a connection for the chunk without executing the query yet.
+     */
+    public static ChunkCursor connect(DataSource dataSource, GradeChunk chunk,
+                                      ResultSetMapper mapper) throws SQLException {
+        return connect(dataSource, chunk, mapper, Projection.all());
+    }
+
+    /**
+     * Borrow a connection for the chunk, to query only the projected columns.
+     */
+    public static ChunkCursor connect(DataSource dataSource, GradeChunk chunk, ResultSetMapper mapper,
+                                      Projection projection) throws SQLException {
+        return new ChunkCursor(chunk, mapper, projection, dataSource.getConnection());
+    }
+
+    /**
+     * Execute the chunk query. On failure the cursor is closed.
+     */
+    public void execute(int fetchSize, int queryTimeoutSeconds) throws SQLException {
+        try {
+            conn.setAutoCommit(false);
+            stmt = conn.prepareStatement(projection.apply(chunk.getSql()),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(fetchSize);
+            stmt.setQueryTimeout(queryTimeoutSeconds);
+            chunk.bind(stmt);
+            if (cancelRequested) {
+                throw new SQLException("Query for " + chunk + " cancelled before execution");
+            }
+            rs = stmt.executeQuery();
+            columns = mapper.columns(rs, projection);
+        } catch (SQLException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Fetch and map the next row.
+     *
+     * @return Next row, or null once the chunk is exhausted
+     */
+    public CaseRelatedData next() throws SQLException {
+        if (closed || rs == null || !rs.next()) {
+            return null;
+        }
+        rowCount++;
+        return mapper.mapRow(rs, columns);
+    }
+
+    /**
+     * Abort the running statement. Safe to call from another thread; the owner
+     * still has to {@link #close()} the cursor.
+     */
+    public void cancel() {
+        cancelRequested = true;
+        PreparedStatement running = stmt;
+        if (running != null && !closed) {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                logger.debug("Cancel failed for {}: {}", chunk, e.getMessage());
+            }
+        }
+    }
+
+    public GradeChunk getChunk() {
+        return chunk;
+    }
+
+    /**
+     * Rows returned by {@link #next()} so far.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Close the result set and statement and return the connection to the pool.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeQuietly(rs);
+        closeQuietly(stmt);
+        closeQuietly(conn);
+    }
+
+    private void closeQuietly(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (Exception e) {
+            logger.debug("Error closing cursor resource for {}: {}", chunk, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.tviewcaserelated.stream;
+
+import com.example.tviewcaserelated.mapper.Projection;
+import com.example.tviewcaserelated.mapper.ResultSetMapper;
+import com.example.tviewcaserelated.model.CaseRelatedData;
+import com.example.tviewcaserelated.split.GradeChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the rows of a list of grade chunks, one lazily opened
+ * {@link ChunkCursor} at a time.
+ *
+ * <p>A chunk's query only runs when the first row of that chunk is requested, so a
+ * short-circuiting stream ({@code findFirst}, {@code limit}, {@code anyMatch})
+ * never touches the chunks it does not reach. {@link #trySplit()} hands off whole
+ * chunks that have not been opened yet, which maps {@code .parallel()} onto
+ * concurrent cursors - one per worker, bounded by the connection pool.</p>
+ *
+ * <p>All spliterators split from the same root share one {@link Resources} set;
+ * closing it cancels and closes every cursor still open. Streams built on this
+ * spliterator must be closed (try-with-resources) for that to happen.</p>
+ */
+public class ChunkSpliterator implements Spliterator<CaseRelatedData> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkSpliterator.class);
+
+    private final List<GradeChunk> chunks;
+    private final Resources resources;
+    private int next;
+    private int end;
+    private ChunkCursor current;
+
+    /**
+     * @param chunks    Chunks to read, in order
+     * @param resources Connection settings and the set of open cursors
+     */
+    public ChunkSpliterator(List<GradeChunk> chunks, Resources resources) {
+        this(chunks, resources, 0, chunks.size());
+    }
+
+    private ChunkSpliterator(List<GradeChunk> chunks, Resources resources, int next, int end) {
+        this.chunks = chunks;
+        this.resources = resources;
+        this.next = next;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super CaseRelatedData> action) {
+        try {
+            while (!resources.closed) {
+                if (current == null) {
+                    if (next >= end) {
+                        return false;
+                    }
+                    current = resources.open(chunks.get(next++));
+                }
+                CaseRelatedData row = current.next();
+                if (row != null) {
+                    action.accept(row);
+                    return true;
+                }
+                resources.release(current);
+                current = null;
+            }
+            return false;
+        } catch (SQLException e) {
+            if (resources.closed) {
+                // Statement cancelled by close() while this split was reading
+                return false;
+            }
+            GradeChunk failed = current != null ? current.getChunk() : chunks.get(next - 1);
+            if (current != null) {
+                resources.release(current);
+                current = null;
+            }
+            throw new IllegalStateException("Query failed for " + failed + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Split off half of the chunks that have not been opened yet. A spliterator
+     * that is already reading a chunk can give away all of its remaining ones.
+     */
+    @Override
+    public Spliterator<CaseRelatedData> trySplit() {
+        int unopened = end - next;
+        int give = current == null ? unopened / 2 : unopened;
+        if (give < 1) {
+            return null;
+        }
+        int splitAt = end - give;
+        ChunkSpliterator suffix = new ChunkSpliterator(chunks, resources, splitAt, end);
+        end = splitAt;
+        return suffix;
+    }
+
+    /**
+     * Unknown: row counts are not known until the chunks have been read.
+     */
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL;
+    }
+
+    /**
+     * Connection settings and the open cursors of one stream.
+     */
+    public static final class Resources implements AutoCloseable {
+        private final DataSource dataSource;
+        private final ResultSetMapper mapper;
+        private final Projection projection;
+        private final int fetchSize;
+        private final int queryTimeoutSeconds;
+        private final Set<ChunkCursor> open = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        public Resources(DataSource dataSource, ResultSetMapper mapper, int fetchSize, int queryTimeoutSeconds) {
+            this(dataSource, mapper, Projection.all(), fetchSize, queryTimeoutSeconds);
+        }
+
+        public Resources(DataSource dataSource, ResultSetMapper mapper, Projection projection,
+                         int fetchSize, int queryTimeoutSeconds) {
+            this.dataSource = dataSource;
+            this.mapper = mapper;
+            this.projection = projection;
+            this.fetchSize = fetchSize;
+            this.queryTimeoutSeconds = queryTimeoutSeconds;
+        }
+
+        ChunkCursor open(GradeChunk chunk) throws SQLException {
+            ChunkCursor cursor = ChunkCursor.connect(dataSource, chunk, mapper, projection);
+            open.add(cursor);
+            if (closed) {
+                release(cursor);
+                throw new SQLException("Stream closed");
+            }
+            try {
+                cursor.execute(fetchSize, queryTimeoutSeconds);
+            } catch (SQLException | RuntimeException e) {
+                open.remove(cursor);
+                throw e;
+            }
+            return cursor;
+        }
+
+        void release(ChunkCursor cursor) {
+            open.remove(cursor);
+            cursor.close();
+        }
+
+        /**
+         * Number of cursors (and connections) currently held.
+         */
+        public int getOpenCursors() {
+            return open.size();
+        }
+
+        /**
+         * Cancel and close every open cursor; unopened chunks are never queried.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            int cancelled = 0;
+            for (ChunkCursor cursor : open) {
+                cursor.cancel();
+                release(cursor);
+                cancelled++;
+            }
+            if (cancelled > 0) {
+                logger.debug("Stream closed with {} open cursor(s); statements cancelled", cancelled);
+            }
+        }
+    }
+}
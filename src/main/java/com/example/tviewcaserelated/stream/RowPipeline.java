@@ -0,0 +1,218 @@
+package com.example.tviewcaserelated.stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded producer/consumer stage between JDBC fetch loops and a row consumer.
+ *
+ * <p>Fetch threads hand rows over with {@link #accept(Object)} and go straight back
+ * to the cursor; a separate set of consumer workers drains the queue. A slow
+ * consumer therefore only stalls the cursor once the queue is full, and a fetch
+ * task releases its connection as soon as its last row is queued. CPU-heavy
+ * consumers scale with {@code consumerWorkers}, independently of DB concurrency.</p>
+ *
+ * <p>If the consumer throws, or a worker is interrupted, the pipeline fails: workers
+ * stop, every later {@link #accept(Object)} throws, which aborts the fetch loops, and
+ * {@link #close()} throws, since rows still queued are dropped.</p>
+ *
+ * @param <T> Row type
+ */
+public class RowPipeline<T> implements Consumer<T>, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RowPipeline.class);
+
+    private static final long POLL_MILLIS = 50;
+    private static final int DEPTH_SAMPLE_MASK = 63;
+
+    private final BlockingQueue<T> queue;
+    private final Consumer<T> consumer;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean finished;
+
+    private final LongAdder produced = new LongAdder();
+    private final LongAdder consumed = new LongAdder();
+    private final LongAdder stallNanos = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+    private final LongAdder depthSum = new LongAdder();
+    private final LongAdder depthSamples = new LongAdder();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
+    /**
+     * Create and start a pipeline.
+     *
+     * @param name            Worker thread name prefix
+     * @param capacity        Queue capacity in rows
+     * @param consumerWorkers Number of threads calling {@code consumer}
+     * @param consumer        Row consumer; must be thread-safe if workers &gt; 1
+     */
+    public RowPipeline(String name, int capacity, int consumerWorkers, Consumer<T> consumer) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.consumer = consumer;
+        for (int i = 0; i < Math.max(1, consumerWorkers); i++) {
+            Thread worker = new Thread(this::drain, name + "-" + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Hand a row to the consumers, blocking while the queue is full.
+     *
+     * @throws IllegalStateException if the consumer has failed or the caller is interrupted
+     */
+    @Override
+    public void accept(T row) {
+        checkFailure();
+        if (!queue.offer(row)) {
+            long stallStart = System.nanoTime();
+            try {
+                while (!queue.offer(row, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkFailure();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted handing row to consumers", e);
+            } finally {
+                stallNanos.add(System.nanoTime() - stallStart);
+                stalls.increment();
+            }
+        }
+        produced.increment();
+        if ((produced.intValue() & DEPTH_SAMPLE_MASK) == 0) {
+            int depth = queue.size();
+            depthSum.add(depth);
+            depthSamples.increment();
+            maxDepth.accumulateAndGet(depth, Math::max);
+        }
+    }
+
+    private void drain() {
+        try {
+            while (failure.get() == null) {
+                T row = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (row == null) {
+                    if (finished && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                consumer.accept(row);
+                consumed.increment();
+            }
+        } catch (InterruptedException e) {
+            // Rows still queued will not be consumed; fail the run rather than drop them
+            failure.compareAndSet(null, e);
+            Thread.currentThread().interrupt();
+            logger.error("Row consumer {} was interrupted", Thread.currentThread().getName());
+        } catch (RuntimeException | Error e) {
+            failure.compareAndSet(null, e);
+            logger.error("Row consumer failed on {}: {}", Thread.currentThread().getName(), e.getMessage());
+        }
+    }
+
+    private void checkFailure() {
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new IllegalStateException("Row consumer failed", cause);
+        }
+    }
+
+    /**
+     * First exception thrown by the consumer, an {@link InterruptedException} if a
+     * worker was interrupted, or null.
+     */
+    public Throwable getFailure() {
+        return failure.get();
+    }
+
+    /**
+     * Signal that no more rows will be produced and wait until every queued
+     * row has been consumed.
+     *
+     * @throws IllegalStateException if the consumer failed, so rows that were
+     *                               handed off were not all consumed, or if the
+     *                               caller is interrupted while waiting
+     */
+    @Override
+    public void close() {
+        finished = true;
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for row consumers", e);
+        }
+        logger.info("Pipeline: {}", getMetrics());
+        checkFailure();
+    }
+
+    public PipelineMetrics getMetrics() {
+        long samples = depthSamples.sum();
+        return new PipelineMetrics(produced.sum(), consumed.sum(), queue.size(), maxDepth.get(),
+                samples == 0 ? 0 : (double) depthSum.sum() / samples,
+                stalls.sum(), TimeUnit.NANOSECONDS.toMillis(stallNanos.sum()));
+    }
+
+    /**
+     * Snapshot of pipeline counters.
+     */
+    public static final class PipelineMetrics {
+        private final long rowsProduced;
+        private final long rowsConsumed;
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final double averageQueueDepth;
+        private final long producerStalls;
+        private final long producerStallMs;
+
+        PipelineMetrics(long rowsProduced, long rowsConsumed, int queueDepth, int maxQueueDepth,
+                        double averageQueueDepth, long producerStalls, long producerStallMs) {
+            this.rowsProduced = rowsProduced;
+            this.rowsConsumed = rowsConsumed;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.averageQueueDepth = averageQueueDepth;
+            this.producerStalls = producerStalls;
+            this.producerStallMs = producerStallMs;
+        }
+
+        public long getRowsProduced() { return rowsProduced; }
+        public long getRowsConsumed() { return rowsConsumed; }
+        public int getQueueDepth() { return queueDepth; }
+        public int getMaxQueueDepth() { return maxQueueDepth; }
+        public double getAverageQueueDepth() { return averageQueueDepth; }
+
+        /**
+         * Number of hand-offs that found the queue full.
+         */
+        public long getProducerStalls() { return producerStalls; }
+
+        /**
+         * Total time fetch threads spent blocked on a full queue.
+         */
+        public long getProducerStallMs() { return producerStallMs; }
+
+        @Override
+        public String toString() {
+            return String.format("PipelineMetrics{produced=%,d, consumed=%,d, depth=%d, maxDepth=%d, "
+                            + "avgDepth=%.1f, producerStalls=%,d, producerStall=%,dms}",
+                    rowsProduced, rowsConsumed, queueDepth, maxQueueDepth, averageQueueDepth,
+                    producerStalls, producerStallMs);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.tviewcaserelated;
+
+import com.example.tviewcaserelated.mapper.Column;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for the Oracle DataSource, used by tests and benchmarks.
+ *
+ * <p>Built from dynamic proxies: every query returns {@code rowsPerQuery} synthetic
+ * rows, with configurable latency on execute and on every fetch round trip, and a
+ * bounded number of connections like a real pool. Row {@code n} (1-based) has key
+ * {@code n} ({@code getLong}), and the TINSID range parameters of a ranged chunk
+ * query and {@code setMaxRows} are honoured. Rows of a multi-grade ({@code IN}-list)
+ * query cycle through the bound grades in {@code C_GRADE}. The metadata lists the
+ * mapped {@link Column}s in order. A TINSID lookup
+ * ({@code a.TINSID IN}) returns one row for each distinct bound key from 1 to
+ * {@code rowsPerQuery}. {@code Statement.cancel()} aborts a running execute or fetch
+ * with ORA-01013, like the Oracle driver. Methods that
+ * are not simulated return {@code null}, {@code 0} or {@code false}.</p>
+ */
+public class SimulatedDataSource {
+
+    private static final Column[] COLUMNS = Column.values();
+    private static final Integer C_GRADE_POSITION = Column.C_GRADE.ordinal() + 1;
+    private static final ResultSetMetaData METADATA = proxy(ResultSetMetaData.class, (proxy, method, args) -> {
+        switch (method.getName()) {
+            case "getColumnCount":
+                return COLUMNS.length;
+            case "getColumnLabel":
+            case "getColumnName":
+                return COLUMNS[(Integer) args[0] - 1].name();
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    });
+
+    private final int rowsPerQuery;
+    private final long executeLatencyMs;
+    private final long fetchLatencyMs;
+    private final int maxConnections;
+    private final Semaphore connections;
+
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicInteger peakConnections = new AtomicInteger();
+    private final AtomicInteger threadsAwaiting = new AtomicInteger();
+    private final AtomicLong queriesExecuted = new AtomicLong();
+    private final AtomicLong rowsFetched = new AtomicLong();
+    private final AtomicLong statementsCancelled = new AtomicLong();
+    private final List<String> statementSql = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger slowQueriesLeft = new AtomicInteger();
+    private volatile long slowLatencyMs;
+    private final AtomicInteger failingFetchesLeft = new AtomicInteger();
+    private volatile int failAfterRows;
+
+    /**
+     * @param maxConnections   Connections available, like {@code db.pool.size}
+     * @param rowsPerQuery     Rows returned by every query
+     * @param executeLatencyMs Delay before {@code executeQuery} returns
+     * @param fetchLatencyMs   Delay for every fetch round trip of {@code fetchSize} rows
+     */
+    public SimulatedDataSource(int maxConnections, int rowsPerQuery,
+                               long executeLatencyMs, long fetchLatencyMs) {
+        this.maxConnections = maxConnections;
+        this.rowsPerQuery = rowsPerQuery;
+        this.executeLatencyMs = executeLatencyMs;
+        this.fetchLatencyMs = fetchLatencyMs;
+        this.connections = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Make the next {@code count} queries take {@code latencyMs} to execute,
+     * to simulate stragglers.
+     */
+    public SimulatedDataSource slowQueries(int count, long latencyMs) {
+        this.slowLatencyMs = latencyMs;
+        this.slowQueriesLeft.set(count);
+        return this;
+    }
+
+    /**
+     * Make the next {@code count} result sets fail with ORA-08103 after returning
+     * {@code afterRows} rows, to simulate a fetch interrupted mid-query.
+     */
+    public SimulatedDataSource failFetches(int count, int afterRows) {
+        this.failAfterRows = afterRows;
+        this.failingFetchesLeft.set(count);
+        return this;
+    }
+
+    public DataSource asDataSource() {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            if (method.getName().equals("getConnection")) {
+                return openConnection();
+            }
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    public int getPeakConnections() {
+        return peakConnections.get();
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return threadsAwaiting.get();
+    }
+
+    public long getQueriesExecuted() {
+        return queriesExecuted.get();
+    }
+
+    public long getRowsFetched() {
+        return rowsFetched.get();
+    }
+
+    public long getStatementsCancelled() {
+        return statementsCancelled.get();
+    }
+
+    /**
+     * SQL of every statement prepared so far, in order.
+     */
+    public List<String> getStatementSql() {
+        synchronized (statementSql) {
+            return List.copyOf(statementSql);
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        threadsAwaiting.incrementAndGet();
+        try {
+            connections.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a connection");
+        } finally {
+            threadsAwaiting.decrementAndGet();
+        }
+        peakConnections.accumulateAndGet(activeConnections.incrementAndGet(), Math::max);
+
+        boolean[] closed = {false};
+        return proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return newStatement((String) args[0]);
+                case "isClosed":
+                    return closed[0];
+                case "close":
+                    if (!closed[0]) {
+                        closed[0] = true;
+                        activeConnections.decrementAndGet();
+                        connections.release();
+                    }
+                    return null;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private PreparedStatement newStatement(String sql) {
+        statementSql.add(sql);
+        boolean multiGrade = sql != null && sql.contains("a.grade IN (");
+        boolean lookup = sql != null && sql.contains("a.TINSID IN (");
+        List<Integer> grades = new ArrayList<>();
+        Set<Long> keys = new TreeSet<>();
+        int[] fetchSize = {10};
+        long[] range = {0, rowsPerQuery};
+        int[] maxRows = {0};
+        CountDownLatch cancelled = new CountDownLatch(1);
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setFetchSize":
+                    fetchSize[0] = Math.max(1, (Integer) args[0]);
+                    return null;
+                case "setLong":
+                    if (lookup) {
+                        if ((Long) args[1] >= 1 && (Long) args[1] <= rowsPerQuery) {
+                            keys.add((Long) args[1]);
+                        }
+                        return null;
+                    }
+                    // Ranged chunk query: grade, lower TINSID (inclusive), upper TINSID (exclusive)
+                    long rowsBefore = Math.max(1, Math.min(rowsPerQuery + 1L, (Long) args[1])) - 1;
+                    if ((Integer) args[0] == 2) {
+                        range[0] = rowsBefore;
+                    } else if ((Integer) args[0] == 3) {
+                        range[1] = rowsBefore;
+                    }
+                    return null;
+                case "setInt":
+                    if (multiGrade) {
+                        grades.add((Integer) args[1]);
+                    }
+                    return null;
+                case "setMaxRows":
+                    maxRows[0] = (Integer) args[0];
+                    return null;
+                case "executeQuery":
+                    sleep(slowQueriesLeft.getAndDecrement() > 0 ? slowLatencyMs : executeLatencyMs, cancelled);
+                    queriesExecuted.incrementAndGet();
+                    int failAt = failingFetchesLeft.getAndDecrement() > 0 ? failAfterRows : -1;
+                    long last = maxRows[0] > 0 ? Math.min(range[1], range[0] + maxRows[0]) : range[1];
+                    if (lookup) {
+                        return newResultSet(fetchSize[0], List.copyOf(keys), failAt, cancelled);
+                    }
+                    return newResultSet(fetchSize[0], range[0], last, failAt, cancelled, List.copyOf(grades));
+                case "cancel":
+                    statementsCancelled.incrementAndGet();
+                    cancelled.countDown();
+                    return null;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private ResultSet newResultSet(int fetchSize, List<Long> keys, int failAt, CountDownLatch cancelled) {
+        return newResultSet(fetchSize, keys, 0, keys.size(), failAt, cancelled, List.of());
+    }
+
+    private ResultSet newResultSet(int fetchSize, long first, long last, int failAt, CountDownLatch cancelled,
+                                   List<Integer> grades) {
+        return newResultSet(fetchSize, null, first, last, failAt, cancelled, grades);
+    }
+
+    /**
+     * Rows {@code first + 1 .. last}, or the rows with the given keys if not null.
+     */
+    private ResultSet newResultSet(int fetchSize, List<Long> keys, long first, long last, int failAt,
+                                   CountDownLatch cancelled, List<Integer> grades) {
+        int[] row = {(int) first};
+        int[] returned = {0};
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    if (returned[0] >= last - first) {
+                        return false;
+                    }
+                    int n = returned[0]++;
+                    if (n == failAt) {
+                        throw new SQLException("ORA-08103: object no longer exists", "72000", 8103);
+                    }
+                    if ((first + n) % fetchSize == 0) {
+                        sleep(fetchLatencyMs, cancelled);
+                    }
+                    row[0] = keys != null ? keys.get(n).intValue() : (int) first + n + 1;
+                    rowsFetched.incrementAndGet();
+                    return true;
+                case "getString":
+                    return "S" + row[0];
+                case "getMetaData":
+                    return METADATA;
+                case "getInt":
+                    if (!grades.isEmpty() && ("C_GRADE".equals(args[0]) || C_GRADE_POSITION.equals(args[0]))) {
+                        return grades.get((row[0] - 1) % grades.size());
+                    }
+                    return row[0];
+                case "getLong":
+                    return (long) row[0];
+                case "getBigDecimal":
+                    return BigDecimal.valueOf(row[0], 2);
+                case "getDate":
+                    return new java.sql.Date(0);
+                case "getObject":
+                    return BigDecimal.valueOf(row[0]);
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static void sleep(long millis, CountDownLatch cancelled) throws SQLException {
+        try {
+            if (cancelled.await(Math.max(0, millis), TimeUnit.MILLISECONDS)) {
+                throw new SQLException("ORA-01013: user requested cancel of current operation", "72000", 1013);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted during simulated I/O");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SimulatedDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0.0;
+        } else if (type == float.class) {
+            return 0.0f;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        }
+        return null;
+    }
+}
@@ -1,15 +1,88 @@
 package com.example.tviewcaserelated;
 
 import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.dimension.EntempDimensions;
+import com.example.tviewcaserelated.enrich.EnrichedFunction;
+import com.example.tviewcaserelated.enrich.FunctionCache;
+import com.example.tviewcaserelated.enrich.SplitEnricher;
+import com.example.tviewcaserelated.executor.CaseRelatedQueryExecutor;
+import com.example.tviewcaserelated.executor.LimitedQueryExecutor;
+import com.example.tviewcaserelated.executor.StreamingQueryExecutor;
+import com.example.tviewcaserelated.executor.TinsidLookupExecutor;
+import com.example.tviewcaserelated.mapper.Column;
+import com.example.tviewcaserelated.mapper.ColumnIndex;
+import com.example.tviewcaserelated.mapper.CompactCaseRow;
+import com.example.tviewcaserelated.mapper.CompactRowMapper;
+import com.example.tviewcaserelated.mapper.Projection;
 import com.example.tviewcaserelated.mapper.ResultSetMapper;
 import com.example.tviewcaserelated.model.CaseRelatedData;
 import com.example.tviewcaserelated.model.ExecutionSummary;
 import com.example.tviewcaserelated.model.QueryResult;
+import com.example.tviewcaserelated.model.SegmentedList;
+import com.example.tviewcaserelated.paging.KeysetPager;
+import com.example.tviewcaserelated.paging.Page;
+import com.example.tviewcaserelated.paging.PageCursor;
+import com.example.tviewcaserelated.runtime.AdaptiveConcurrencyLimiter;
+import com.example.tviewcaserelated.runtime.ConcurrencyLimiter;
+import com.example.tviewcaserelated.runtime.Deadline;
+import com.example.tviewcaserelated.runtime.ExecutionMode;
+import com.example.tviewcaserelated.runtime.ExecutionRuntime;
+import com.example.tviewcaserelated.runtime.ExecutorFactory;
+import com.example.tviewcaserelated.runtime.FixedConcurrencyLimiter;
+import com.example.tviewcaserelated.runtime.HikariPoolPressureProbe;
+import com.example.tviewcaserelated.runtime.PoolPressureProbe;
+import com.example.tviewcaserelated.runtime.RunProgress;
+import com.example.tviewcaserelated.schedule.GradeCostHistory;
+import com.example.tviewcaserelated.schedule.GradeGroupPlanner;
+import com.example.tviewcaserelated.schedule.GradeScheduler;
+import com.example.tviewcaserelated.schedule.HedgingPolicy;
+import com.example.tviewcaserelated.split.DatabaseChunker;
+import com.example.tviewcaserelated.split.GradeChunk;
+import com.example.tviewcaserelated.split.GradeRangeSplitter;
+import com.example.tviewcaserelated.sql.SqlQueries;
+import com.example.tviewcaserelated.stream.CaseRowPublisher;
+import com.example.tviewcaserelated.stream.Checkpoint;
+import com.example.tviewcaserelated.stream.ChunkCheckpoint;
+import com.example.tviewcaserelated.stream.ChunkSpliterator;
+import com.example.tviewcaserelated.stream.RowPipeline;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.jdbcx.JdbcDataSource;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -121,6 +194,22 @@ class TviewcaserelatedTest {
             QueryResult result = new QueryResult(5, List.of(), 0, 100);
             assertNotNull(result.getThreadName());
         }
+        
+        @Test
+        @DisplayName("Should merge chunk results into one grade result")
+        void testMergeChunks() {
+            QueryResult merged = QueryResult.merge(12, List.of(
+                    new QueryResult(12, List.of(new CaseRelatedData()), 1, 300),
+                    new QueryResult(12, List.of(new CaseRelatedData(), new CaseRelatedData()), 2, 500)
+            ));
+            
+            assertEquals(12, merged.getGrade());
+            assertEquals(3, merged.getRecordCount());
+            assertEquals(3, merged.getData().size());
+            assertEquals(500, merged.getExecutionTimeMs());
+            assertEquals(800, merged.getWorkTimeMs());
+            assertEquals(2, merged.getChunkCount());
+        }
     }
     
     @Nested
@@ -198,6 +287,1352 @@ class TviewcaserelatedTest {
         }
     }
     
+    @Nested
+    @DisplayName("SegmentedList Tests")
+    class SegmentedListTests {
+        
+        @Test
+        @DisplayName("Should present segments as one list without copying")
+        void testSegmentedView() {
+            List<String> first = new ArrayList<>(List.of("a", "b"));
+            List<String> third = List.of("c", "d", "e");
+            SegmentedList<String> view = new SegmentedList<>(List.of(first, List.of(), third, List.of()));
+            
+            assertEquals(5, view.size());
+            assertEquals(List.of("a", "b", "c", "d", "e"), view);
+            assertEquals("c", view.get(2));
+            assertEquals("e", view.get(4));
+            assertThrows(IndexOutOfBoundsException.class, () -> view.get(5));
+            
+            first.set(0, "z");
+            assertEquals("z", view.get(0), "view reads through to the segment");
+            assertThrows(UnsupportedOperationException.class, () -> view.add("f"));
+        }
+    }
+    
+    @Nested
+    @DisplayName("GradeRangeSplitter Tests")
+    class GradeRangeSplitterTests {
+        
+        @Test
+        @DisplayName("Should cover every TINSID exactly once")
+        void testSplitCoversRange() {
+            List<GradeChunk> chunks = GradeRangeSplitter.split(12, 1, 100, 4);
+            
+            assertEquals(4, chunks.size());
+            assertNull(chunks.get(0).getLowerInclusive());
+            assertNull(chunks.get(3).getUpperExclusive());
+            for (long id = -5; id <= 105; id++) {
+                final long tinsid = id;
+                assertEquals(1, chunks.stream().filter(c -> c.contains(tinsid)).count(),
+                        "TINSID " + id + " should fall in exactly one chunk");
+            }
+        }
+        
+        @Test
+        @DisplayName("Should not split a range narrower than the chunk count")
+        void testSplitNarrowRange() {
+            assertEquals(2, GradeRangeSplitter.split(4, 10, 11, 8).size());
+            assertTrue(GradeRangeSplitter.split(4, 10, 10, 8).get(0).isWholeGrade());
+        }
+        
+        @Test
+        @DisplayName("Should resolve chunk count from overrides and row counts")
+        void testChunkCount() {
+            GradeRangeSplitter splitter = new GradeRangeSplitter(null, true, 0, 1000, 8, Map.of(13, 3));
+            
+            assertEquals(3, splitter.chunkCountFor(13, 1_000_000));
+            assertEquals(5, splitter.chunkCountFor(12, 4_500));
+            assertEquals(8, splitter.chunkCountFor(12, 1_000_000));
+            assertEquals(1, splitter.chunkCountFor(12, 0));
+        }
+        
+        @Test
+        @DisplayName("Should plan whole grades when splitting is disabled")
+        void testDisabledPlan() throws Exception {
+            GradeRangeSplitter splitter = new GradeRangeSplitter(null, false, 4, 1000, 8, Map.of());
+            List<GradeChunk> chunks = splitter.plan(new int[]{4, 5});
+            
+            assertEquals(2, chunks.size());
+            assertTrue(chunks.stream().allMatch(GradeChunk::isWholeGrade));
+        }
+    }
+    
+    @Nested
+    @DisplayName("Database Chunking Tests")
+    class DatabaseChunkingTests {
+        
+        private DataSource embedded(String name) throws SQLException {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+            try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE ENT (TINSID BIGINT, GRADE INT)");
+                // 900 dense TINSIDs and 100 far away: equal-width ranges would put 90% in one chunk
+                stmt.execute("INSERT INTO ENT SELECT X, 4 FROM SYSTEM_RANGE(1, 900)");
+                stmt.execute("INSERT INTO ENT SELECT X, 4 FROM SYSTEM_RANGE(1000000, 1000099)");
+            }
+            return dataSource;
+        }
+        
+        private long rowsIn(GradeChunk chunk) {
+            return LongStream.concat(LongStream.rangeClosed(1, 900), LongStream.rangeClosed(1_000_000, 1_000_099))
+                    .filter(chunk::contains).count();
+        }
+        
+        @Test
+        @DisplayName("Should cut a skewed grade into chunks of equal row count, one pair per connection")
+        void testBalancedChunks() throws Exception {
+            DataSource dataSource = embedded("balanced");
+            DatabaseChunker chunker = new DatabaseChunker(dataSource, () -> 2, 2, 100, 32, 60_000);
+            GradeRangeSplitter splitter = new GradeRangeSplitter(dataSource, true, 0, 1000, 8, Map.of(), chunker);
+            
+            List<GradeChunk> chunks = splitter.plan(new int[]{4, 5});
+            assertEquals(5, chunks.size());
+            for (GradeChunk chunk : chunks.subList(0, 4)) {
+                assertEquals(250, rowsIn(chunk), chunk.toString());
+            }
+            assertNull(chunks.get(0).getLowerInclusive());
+            assertNull(chunks.get(3).getUpperExclusive());
+            assertTrue(chunks.get(4).isWholeGrade(), "Empty grade stays whole");
+            
+            // Small buckets are merged so every chunk has at least the minimum rows
+            List<GradeChunk> merged = new DatabaseChunker(dataSource, () -> 2, 2, 300, 32, 60_000).chunks(4, 0);
+            assertEquals(2, merged.size());
+            assertTrue(merged.stream().allMatch(c -> rowsIn(c) == 500));
+        }
+        
+        @Test
+        @DisplayName("Should reuse the cached chunk map until the connection count changes")
+        void testChunkCache() throws Exception {
+            DataSource dataSource = embedded("cached");
+            AtomicInteger connections = new AtomicInteger(2);
+            DatabaseChunker chunker = new DatabaseChunker(dataSource, connections::get, 2, 1, 32, 60_000);
+            
+            List<GradeChunk> first = chunker.chunks(4, 0);
+            try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM ENT");
+            }
+            assertSame(first, chunker.chunks(4, 0));
+            
+            connections.set(3);
+            assertEquals(6, chunker.targetChunks());
+            assertTrue(chunker.chunks(4, 0).get(0).isWholeGrade(), "Recomputed from the now empty table");
+        }
+    }
+    
+    @Nested
+    @DisplayName("GradeScheduler Tests")
+    class GradeSchedulerTests {
+        
+        @Test
+        @DisplayName("Should order tasks largest-first from history")
+        void testLargestFirst() {
+            GradeCostHistory history = new GradeCostHistory(null, 1.0);
+            history.record(4, 1_000, 100);
+            history.record(12, 50_000, 9_000);
+            history.record(7, 5_000, 700);
+            GradeScheduler scheduler = new GradeScheduler(null, history, true, false);
+            
+            GradeScheduler.Schedule schedule = scheduler.schedule(List.of(
+                    GradeChunk.wholeGrade(4), GradeChunk.wholeGrade(7), GradeChunk.wholeGrade(12)), 2);
+            
+            assertEquals(12, schedule.getChunks().get(0).getGrade());
+            assertEquals(7, schedule.getChunks().get(1).getGrade());
+            assertEquals(4, schedule.getChunks().get(2).getGrade());
+            assertEquals(9_000, schedule.getPredictedMakespanMs());
+        }
+        
+        @Test
+        @DisplayName("Should record a split grade's total work and schedule its chunks by their share")
+        void testSplitGradeCost() {
+            GradeCostHistory history = new GradeCostHistory(null, 1.0);
+            history.record(4, 1_000, 1_500);
+            GradeScheduler scheduler = new GradeScheduler(null, history, true, false);
+            List<GradeChunk> split = List.of(
+                    new GradeChunk(12, 0, 4, null, 100L), new GradeChunk(12, 1, 4, 100L, 200L),
+                    new GradeChunk(12, 2, 4, 200L, 300L), new GradeChunk(12, 3, 4, 300L, null));
+            List<QueryResult> parts = new ArrayList<>();
+            for (GradeChunk chunk : split) {
+                parts.add(new QueryResult(12, List.of(), 10_000, 2_000 + chunk.getChunkIndex()));
+            }
+            scheduler.complete(scheduler.schedule(split, 4), List.of(QueryResult.merge(12, parts)), 2_003);
+            assertEquals(8_006, history.get(12).getTimeMs(), 0.001);
+            
+            List<GradeChunk> chunks = new ArrayList<>(split);
+            chunks.add(GradeChunk.wholeGrade(4));
+            GradeScheduler.Schedule schedule = scheduler.schedule(chunks, 4);
+            assertEquals(4, schedule.getChunks().get(4).getGrade(), "Each chunk of 12 is ~2000 ms, grade 4 is 1500 ms");
+            assertEquals(3_502, schedule.getPredictedMakespanMs());
+        }
+        
+        @Test
+        @DisplayName("Should keep submission order when disabled")
+        void testDisabled() {
+            GradeScheduler scheduler = new GradeScheduler(null, new GradeCostHistory(null, 1.0), false, false);
+            List<GradeChunk> chunks = List.of(GradeChunk.wholeGrade(4), GradeChunk.wholeGrade(12));
+            
+            assertEquals(chunks, scheduler.schedule(chunks, 2).getChunks());
+        }
+        
+        @Test
+        @DisplayName("Should persist history as a moving average")
+        void testHistoryPersistence(@TempDir Path dir) {
+            Path file = dir.resolve("history.properties");
+            GradeCostHistory history = new GradeCostHistory(file, 0.5);
+            history.record(12, 1_000, 2_000);
+            history.record(12, 3_000, 4_000);
+            history.save();
+            
+            GradeCostHistory.Estimate estimate = GradeCostHistory.load(file, 0.5).get(12);
+            assertEquals(2_000, estimate.getRows(), 0.001);
+            assertEquals(3_000, estimate.getTimeMs(), 0.001);
+        }
+    }
+    
+    @Nested
+    @DisplayName("Hedging Tests")
+    class HedgingTests {
+        
+        @Test
+        @DisplayName("Should derive thresholds from recorded latency percentiles and cap extra load")
+        void testPolicy() {
+            GradeCostHistory history = new GradeCostHistory(null, 0.5);
+            for (long ms : new long[]{10, 20, 30, 40, 200}) {
+                history.record(4, 100, ms);
+            }
+            history.record(5, 100, 10);
+            HedgingPolicy policy = new HedgingPolicy(history, true, 0.8, 3, 25, 0.1);
+            
+            assertEquals(40, history.percentileMs(4, 0.8));
+            assertEquals(40, policy.thresholdMs(4));
+            assertEquals(-1, policy.thresholdMs(5), "too few samples to hedge");
+            assertEquals(1, policy.budget(4));
+            assertEquals(3, policy.budget(30));
+            assertEquals(-1, new HedgingPolicy(history, false, 0.8, 3, 25, 0.1).thresholdMs(4));
+            assertEquals(25, policy.thresholdMs(4, 4), "a quarter of the grade, at least the minimum delay");
+            assertEquals(20, new HedgingPolicy(history, true, 0.8, 3, 5, 0.1).thresholdMs(4, 2));
+        }
+        
+        @Test
+        @DisplayName("Should launch a second attempt for a straggler, keep the winner and cancel the loser")
+        void testHedgedAttemptWins() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(4, 50, 10, 0).slowQueries(1, 30_000);
+            DataSource dataSource = simulated.asDataSource();
+            GradeCostHistory history = new GradeCostHistory(null, 0.5);
+            for (int i = 0; i < 5; i++) {
+                history.record(4, 50, 20);
+            }
+            HedgingPolicy hedging = new HedgingPolicy(history, true, 0.9, 3, 100, 0.5);
+            CaseRelatedQueryExecutor executor = CaseRelatedQueryExecutor.builder(dataSource)
+                    .splitter(new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()))
+                    .scheduler(new GradeScheduler(dataSource, history, true, false))
+                    .hedging(hedging)
+                    .fetchSize(10)
+                    .queryTimeoutSeconds(60)
+                    .build();
+            
+            try {
+                long start = System.currentTimeMillis();
+                List<CaseRelatedData> rows = executor.executeParallel(new int[]{4});
+                
+                assertEquals(50, rows.size());
+                assertTrue(System.currentTimeMillis() - start < 10_000, "hedge should beat the 30 s straggler");
+                assertEquals(1, hedging.getFired());
+                assertEquals(1, hedging.getWon());
+                assertEquals(1, simulated.getStatementsCancelled());
+                long waitUntil = System.currentTimeMillis() + 5000;
+                while (simulated.getActiveConnections() > 0 && System.currentTimeMillis() < waitUntil) {
+                    Thread.sleep(5);
+                }
+                assertEquals(0, simulated.getActiveConnections());
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Grade Grouping Tests")
+    class GradeGroupingTests {
+        
+        @Test
+        @DisplayName("Should choose the grouping from the cost model, preferring measured run times")
+        void testPlanner() {
+            GradeCostHistory history = new GradeCostHistory(null, 1.0);
+            int[] grades = {4, 5, 6};
+            assertTrue(new GradeGroupPlanner(history, GradeGroupPlanner.Mode.AUTO, 1).plan(grades, 4).isPerGrade(),
+                    "nothing measured yet");
+            
+            // 100 ms per statement plus 1 ms per row
+            history.record(4, 100, 200);
+            history.record(5, 200, 300);
+            history.record(6, 300, 400);
+            GradeGroupPlanner planner = new GradeGroupPlanner(history, GradeGroupPlanner.Mode.AUTO, 1);
+            GradeGroupPlanner.Plan plan = planner.plan(grades, 4);
+            assertEquals(1, plan.getGroups().size());
+            assertArrayEquals(new int[]{4, 5, 6}, plan.getGroups().get(0));
+            assertEquals(700, plan.getCostMs(), 1e-6);
+            assertFalse(plan.isMeasured());
+            
+            planner.complete(new GradeGroupPlanner(history, GradeGroupPlanner.Mode.PER_GRADE, 1).plan(grades, 4), 350);
+            plan = planner.plan(grades, 4);
+            assertTrue(plan.isPerGrade());
+            assertTrue(plan.isMeasured());
+            assertEquals(350, history.getPlanMs("4-5-6.g3"), 1e-6);
+            
+            assertEquals(3, new GradeGroupPlanner(history, GradeGroupPlanner.Mode.PER_GRADE, 1)
+                    .plan(grades, 4).getGroups().size());
+            assertTrue(SqlQueries.multiGradeQuery(3).contains("WHERE a.grade IN (?, ?, ?)"));
+        }
+        
+        @Test
+        @DisplayName("Should run grouped grades as one statement and split the rows by C_GRADE")
+        void testCombinedExecution() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(4, 90, 0, 0);
+            DataSource dataSource = simulated.asDataSource();
+            GradeCostHistory history = new GradeCostHistory(null, 0.5);
+            CaseRelatedQueryExecutor executor = CaseRelatedQueryExecutor.builder(dataSource)
+                    .splitter(new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()))
+                    .scheduler(new GradeScheduler(dataSource, history, false, false))
+                    .hedging(new HedgingPolicy(history, false, 0.9, 3, 100, 0.5))
+                    .planner(new GradeGroupPlanner(history, GradeGroupPlanner.Mode.COMBINED, 4))
+                    .fetchSize(10)
+                    .queryTimeoutSeconds(60)
+                    .build();
+            
+            try {
+                List<QueryResult> delivered = new ArrayList<>();
+                List<CaseRelatedData> rows = executor.executeParallel(new int[]{6, 4, 5}, delivered::add);
+                
+                assertEquals(90, rows.size());
+                assertEquals(1, simulated.getQueriesExecuted());
+                assertEquals(3, delivered.size());
+                for (QueryResult result : delivered) {
+                    assertEquals(30, result.getRecordCount());
+                    assertTrue(result.getData().stream().allMatch(r -> r.getCGrade() == result.getGrade()));
+                }
+                assertEquals(6, rows.get(0).getCGrade());
+                assertEquals(5, rows.get(89).getCGrade());
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Shared CTE Tests")
+    class SharedCteTests {
+        
+        @Test
+        @DisplayName("Should point every query variant at the shared tables")
+        void testRewrite() {
+            String ranged = SqlQueries.withSharedCtes(SqlQueries.TVIEWCASERELATED_RANGE_ORDERED_QUERY, "TT1", "EE1");
+            assertTrue(ranged.contains("filtered_timetin AS (\n    SELECT * FROM TT1\n),"));
+            assertTrue(ranged.contains("entmod_eligible AS (\n    SELECT * FROM EE1\n),"));
+            assertFalse(ranged.contains("case_org"));
+            assertTrue(ranged.contains("AND a.TINSID < ?") && ranged.contains("ORDER BY TINSID"));
+            assertTrue(SqlQueries.sharedCteDdl("TT1", "EE1").get(0).contains("case_org(tt.roid) = 'CF'"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> SqlQueries.withSharedCtes(SqlQueries.limitedQuery(10), "TT1", "EE1"));
+        }
+        
+        @Test
+        @DisplayName("Should materialize the CTEs once per run and drop them afterwards")
+        void testSharedRun() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(4, 20, 0, 0);
+            DataSource dataSource = simulated.asDataSource();
+            GradeCostHistory history = new GradeCostHistory(null, 0.5);
+            CaseRelatedQueryExecutor executor = CaseRelatedQueryExecutor.builder(dataSource)
+                    .splitter(new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()))
+                    .scheduler(new GradeScheduler(dataSource, history, false, false))
+                    .hedging(new HedgingPolicy(history, false, 0.9, 3, 100, 0.5))
+                    .planner(new GradeGroupPlanner(history, GradeGroupPlanner.Mode.PER_GRADE, 4))
+                    .sharedCtes(true)
+                    .fetchSize(10)
+                    .queryTimeoutSeconds(60)
+                    .build();
+            
+            try {
+                assertEquals(60, executor.executeParallel(new int[]{4, 5, 7}).size());
+                
+                List<String> sql = simulated.getStatementSql();
+                List<String> created = sql.stream().filter(s -> s.startsWith("CREATE TABLE"))
+                        .map(s -> s.split(" ")[2]).collect(Collectors.toList());
+                assertEquals(2, created.size());
+                List<String> queries = sql.stream().filter(s -> s.contains("main_data")).collect(Collectors.toList());
+                assertEquals(3, queries.size());
+                assertTrue(queries.stream().allMatch(q -> q.contains("SELECT * FROM " + created.get(0))
+                        && !q.contains("case_org")));
+                assertEquals(created.stream().map(t -> "DROP TABLE " + t + " PURGE").collect(Collectors.toList()),
+                        sql.subList(sql.size() - 2, sql.size()));
+                assertFalse(sql.contains(SqlQueries.STALE_SHARED_CTE_TABLES), "no sweep as part of a run");
+                assertEquals(0, simulated.getActiveConnections());
+                
+                assertEquals(0, executor.dropStaleSharedCteTables());
+                assertTrue(simulated.getStatementSql().contains(SqlQueries.STALE_SHARED_CTE_TABLES));
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Split Enrichment Tests")
+    class SplitEnrichmentTests {
+        
+        @Test
+        @DisplayName("Should return the raw function inputs instead of calling the functions per row")
+        void testRewrite() {
+            String sql = SqlQueries.withSplitEnrichment(SqlQueries.multiGradeQuery(2));
+            for (String function : new String[]{"GETSEGIND(", "STATIND(", "GETASSNQUE(", "ASSNPICKDT(", "QPICK("}) {
+                assertFalse(sql.contains(function), function);
+            }
+            assertTrue(sql.contains("NULL AS C_CASEIND,") && sql.contains("NULL AS QPICKIND,"));
+            assertTrue(sql.contains("b.SEGIND AS X_SEGIND"));
+            assertTrue(sql.contains("X_SEGIND\nFROM main_data"));
+            assertTrue(sql.contains("WHERE a.grade IN (?, ?)"));
+            
+            String lookup = EnrichedFunction.SEGIND.lookupSql(3);
+            assertEquals(9, lookup.chars().filter(c -> c == '?').count());
+            assertTrue(lookup.startsWith("SELECT n, GETSEGIND(p1, p2) FROM ("));
+        }
+        
+        @Test
+        @DisplayName("Should resolve functions through batched lookups and answer repeats from the cache")
+        void testCachedEnrichment() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(4, 20, 0, 0);
+            DataSource dataSource = simulated.asDataSource();
+            GradeCostHistory history = new GradeCostHistory(null, 0.5);
+            SplitEnricher enricher = new SplitEnricher(new FunctionCache(1000), 10, 60);
+            CaseRelatedQueryExecutor executor = CaseRelatedQueryExecutor.builder(dataSource)
+                    .splitter(new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()))
+                    .scheduler(new GradeScheduler(dataSource, history, false, false))
+                    .hedging(new HedgingPolicy(history, false, 0.9, 3, 100, 0.5))
+                    .planner(new GradeGroupPlanner(history, GradeGroupPlanner.Mode.PER_GRADE, 4))
+                    .sharedCtes(false)
+                    .enricher(enricher)
+                    .fetchSize(10)
+                    .queryTimeoutSeconds(60)
+                    .build();
+            
+            try {
+                List<CaseRelatedData> rows = executor.executeSingle(4);
+                assertEquals(20, rows.size());
+                assertTrue(rows.stream().allMatch(r -> r.getCCaseind() != null && r.getPickdt() != null
+                        && r.getQpickind() != null && r.getStatind() == 0));
+                // SEGIND, PICKDT and QPICK: 20 distinct calls each, 10 per lookup
+                assertEquals(6, enricher.getLookupQueries());
+                assertEquals(0, enricher.getCache().getHits());
+                
+                executor.executeSingle(4);
+                assertEquals(6, enricher.getLookupQueries());
+                assertEquals(0.5, enricher.getCache().getHitRate(), 1e-9);
+                assertEquals(60, enricher.getCache().size());
+                assertEquals(8, simulated.getQueriesExecuted());
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Dimension Cache Tests")
+    class DimensionCacheTests {
+        
+        @Test
+        @DisplayName("Should drop both entemp joins and keep the other joins")
+        void testWithoutEntempJoins() {
+            String sql = SqlQueries.withoutEntempJoins(SqlQueries.TVIEWCASERELATED_QUERY);
+            assertFalse(sql.contains("entemp"));
+            assertFalse(sql.contains("p.SEID") || sql.contains("tour_sub"));
+            assertTrue(sql.contains("NULL AS SEID,") && sql.contains("NULL AS TOUR,"));
+            assertTrue(sql.contains("LEFT JOIN (\n        SELECT emodsid, selcode"));
+            assertTrue(sql.contains("LEFT JOIN entmod_eligible ee"));
+            assertThrows(IllegalArgumentException.class, () -> SqlQueries.withoutEntempJoins(sql));
+        }
+        
+        @Test
+        @DisplayName("Should fill SEID and TOUR from dimensions loaded once per refresh interval")
+        void testEntempDimensions() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(4, 20, 0, 0);
+            DataSource dataSource = simulated.asDataSource();
+            GradeCostHistory history = new GradeCostHistory(null, 0.5);
+            EntempDimensions entemp = new EntempDimensions(dataSource, 60_000);
+            CaseRelatedQueryExecutor executor = CaseRelatedQueryExecutor.builder(dataSource)
+                    .splitter(new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()))
+                    .scheduler(new GradeScheduler(dataSource, history, false, false))
+                    .hedging(new HedgingPolicy(history, false, 0.9, 3, 100, 0.5))
+                    .planner(new GradeGroupPlanner(history, GradeGroupPlanner.Mode.PER_GRADE, 4))
+                    .sharedCtes(false)
+                    .enricher(null)
+                    .entemp(entemp)
+                    .fetchSize(10)
+                    .queryTimeoutSeconds(60)
+                    .build();
+            
+            try {
+                List<CaseRelatedData> rows = executor.executeSingle(4);
+                assertEquals(20, rows.size());
+                assertTrue(rows.stream().allMatch(r -> r.getRoid().equals(r.getSeid())
+                        && r.getRoid().equals(r.getTour())));
+                assertEquals(20, entemp.getSeid().size());
+                assertEquals(1, entemp.combinations("S1"));
+                assertEquals(1, entemp.combinations("unknown"));
+                
+                // Dimensions are fresh: the second run only executes the main query
+                executor.executeSingle(4);
+                assertEquals(4, simulated.getQueriesExecuted());
+                assertTrue(simulated.getStatementSql().stream()
+                        .filter(sql -> sql.contains("a.grade"))
+                        .noneMatch(sql -> sql.contains("entemp")));
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Execution Runtime Tests")
+    class ExecutionRuntimeTests {
+        
+        @Test
+        @DisplayName("Should resolve execution mode for the running JVM")
+        void testModeResolution() {
+            assertEquals(ExecutionMode.PLATFORM, ExecutionMode.resolve("platform"));
+            assertEquals(ExecutionMode.PLATFORM, ExecutionMode.resolve("bogus"));
+            ExecutionMode expected = ExecutorFactory.isVirtualThreadSupported()
+                    ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM;
+            assertEquals(expected, ExecutionMode.resolve("virtual"));
+        }
+        
+        @Test
+        @DisplayName("Should bound concurrent connections with the limiter")
+        void testLimiterBoundsConnections() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(10, 0, 20, 0);
+            ConcurrencyLimiter limiter = new FixedConcurrencyLimiter(3);
+            ExecutorService executor = ExecutorFactory.create(ExecutionMode.resolve("virtual"), 12, "Test");
+            
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                futures.add(executor.submit(limiter.wrap(() -> {
+                    try (Connection conn = simulated.asDataSource().getConnection()) {
+                        conn.prepareStatement("SELECT").executeQuery();
+                    }
+                    return 1;
+                })));
+            }
+            for (Future<Integer> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+            
+            assertEquals(12, simulated.getQueriesExecuted());
+            assertTrue(simulated.getPeakConnections() <= 3);
+            assertEquals(0, limiter.getInFlight());
+        }
+        
+        @Test
+        @DisplayName("Should reuse named daemon threads across calls")
+        void testRuntimeReusesThreads() throws Exception {
+            try (ExecutionRuntime runtime = new ExecutionRuntime("Test", ExecutionMode.PLATFORM, 2, 2, 4, 5)) {
+                Thread first = runtime.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+                runtime.submit(() -> null).get(5, TimeUnit.SECONDS);
+                Thread again = runtime.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+                
+                assertTrue(first.isDaemon());
+                assertTrue(first.getName().startsWith("Test-"));
+                assertTrue(again.getName().startsWith("Test-"));
+                // The worker finishes its bookkeeping just after the future completes
+                long deadline = System.currentTimeMillis() + 5000;
+                while (runtime.getPendingTasks() > 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+                assertEquals(0, runtime.getPendingTasks());
+            }
+        }
+        
+        @Test
+        @DisplayName("Should drain queued tasks on close and reject new ones")
+        void testRuntimeDrainsOnClose() throws Exception {
+            ExecutionRuntime runtime = new ExecutionRuntime("Drain", ExecutionMode.PLATFORM, 1, 1, 8, 5);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger completed = new AtomicInteger();
+            runtime.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                completed.incrementAndGet();
+            });
+            for (int i = 0; i < 3; i++) {
+                runtime.execute(completed::incrementAndGet);
+            }
+            
+            release.countDown();
+            runtime.close();
+            
+            assertEquals(4, completed.get());
+            assertThrows(RejectedExecutionException.class, () -> runtime.execute(() -> { }));
+        }
+    }
+    
+    @Nested
+    @DisplayName("AdaptiveConcurrencyLimiter Tests")
+    class AdaptiveConcurrencyLimiterTests {
+        
+        @Test
+        @DisplayName("Should back off when threads pile up on getConnection")
+        void testBacksOffUnderPoolPressure() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(3, 0, 10, 0);
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 8, 12, 0.75, 2.0, probe(simulated));
+            
+            runTasks(simulated, limiter, 60, 12);
+            
+            assertTrue(limiter.getDecreases() > 0);
+            assertTrue(limiter.getLimit() < 8, "limit should drop toward the 3 available connections");
+        }
+        
+        @Test
+        @DisplayName("Should grow while tasks queue and the pool has headroom")
+        void testGrowsWithHeadroom() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(16, 0, 5, 0);
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 2, 8, 0.75, 2.0, probe(simulated));
+            
+            runTasks(simulated, limiter, 80, 8);
+            
+            assertTrue(limiter.getIncreases() > 0);
+            assertTrue(limiter.getLimit() > 2);
+            assertTrue(simulated.getPeakConnections() <= 8);
+        }
+        
+        @Test
+        @DisplayName("Should read pool pressure from the HikariCP MXBean, none before the pool exists")
+        void testHikariProbe() throws Exception {
+            assertEquals(0, new HikariPoolPressureProbe(() -> null).getActiveConnections());
+            HikariConfig config = new HikariConfig();
+            config.setJdbcUrl("jdbc:h2:mem:probe;DB_CLOSE_DELAY=-1");
+            config.setMaximumPoolSize(2);
+            try (HikariDataSource pool = new HikariDataSource(config)) {
+                PoolPressureProbe probe = new HikariPoolPressureProbe(pool::getHikariPoolMXBean);
+                try (Connection conn = pool.getConnection()) {
+                    assertFalse(conn.isClosed());
+                    assertEquals(1, probe.getActiveConnections());
+                    assertEquals(0, probe.getThreadsAwaitingConnection());
+                }
+                assertEquals(0, probe.getActiveConnections());
+            }
+        }
+        
+        private void runTasks(SimulatedDataSource simulated, ConcurrencyLimiter limiter,
+                              int tasks, int threads) throws Exception {
+            try (ExecutionRuntime runtime = new ExecutionRuntime("Adaptive", ExecutionMode.PLATFORM,
+                    threads, limiter, tasks, 10)) {
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (int i = 0; i < tasks; i++) {
+                    futures.add(runtime.submit(() -> {
+                        try (Connection conn = simulated.asDataSource().getConnection()) {
+                            conn.prepareStatement("SELECT").executeQuery();
+                        }
+                        return 1;
+                    }));
+                }
+                for (Future<Integer> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            }
+        }
+        
+        private PoolPressureProbe probe(SimulatedDataSource simulated) {
+            return new PoolPressureProbe() {
+                @Override
+                public int getThreadsAwaitingConnection() {
+                    return simulated.getThreadsAwaitingConnection();
+                }
+                
+                @Override
+                public int getActiveConnections() {
+                    return simulated.getActiveConnections();
+                }
+            };
+        }
+    }
+    
+    @Nested
+    @DisplayName("Deadline Tests")
+    class DeadlineTests {
+        
+        @Test
+        @DisplayName("Should cancel live statements and free their connections on expiry")
+        void testExpireCancelsLiveStatements() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(2, 100, 30_000, 0);
+            Deadline deadline = Deadline.after(60, TimeUnit.SECONDS);
+            
+            ExecutorService worker = ExecutorFactory.create(ExecutionMode.PLATFORM, 1, "Deadline");
+            Future<?> query = worker.submit(() -> {
+                try (Connection conn = simulated.asDataSource().getConnection();
+                     PreparedStatement stmt = conn.prepareStatement("SELECT")) {
+                    deadline.register(stmt);
+                    try {
+                        stmt.executeQuery();
+                    } finally {
+                        deadline.unregister(stmt);
+                    }
+                }
+                return null;
+            });
+            long waitUntil = System.currentTimeMillis() + 5000;
+            while (deadline.getLiveStatements() == 0 && System.currentTimeMillis() < waitUntil) {
+                Thread.sleep(5);
+            }
+            
+            long start = System.currentTimeMillis();
+            assertEquals(1, deadline.expire());
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> query.get(5, TimeUnit.SECONDS));
+            worker.shutdown();
+            
+            assertTrue(System.currentTimeMillis() - start < 5000);
+            assertEquals(1013, ((SQLException) failure.getCause()).getErrorCode());
+            assertEquals(0, simulated.getActiveConnections());
+            assertTrue(deadline.isExpired());
+            assertThrows(SQLTimeoutException.class, () -> deadline.check("grade 4"));
+        }
+        
+        @Test
+        @DisplayName("Should cancel the live statements when the grade callback throws")
+        void testCallbackFailureCancelsStatements() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(4, 20, 0, 0).slowQueries(1, 30_000);
+            DataSource dataSource = simulated.asDataSource();
+            GradeCostHistory history = new GradeCostHistory(null, 0.5);
+            CaseRelatedQueryExecutor executor = CaseRelatedQueryExecutor.builder(dataSource)
+                    .splitter(new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()))
+                    .scheduler(new GradeScheduler(dataSource, history, false, false))
+                    .hedging(new HedgingPolicy(history, false, 0.9, 3, 100, 0.5))
+                    .fetchSize(10)
+                    .queryTimeoutSeconds(60)
+                    .build();
+            
+            try {
+                long start = System.currentTimeMillis();
+                assertThrows(IllegalStateException.class, () -> executor.executeParallel(new int[]{4, 5}, result -> {
+                    throw new IllegalStateException("callback failed on grade " + result.getGrade());
+                }));
+                long waitUntil = System.currentTimeMillis() + 5000;
+                while (simulated.getActiveConnections() > 0 && System.currentTimeMillis() < waitUntil) {
+                    Thread.sleep(5);
+                }
+                assertEquals(0, simulated.getActiveConnections(), "the straggler's connection is released");
+                assertEquals(1, simulated.getStatementsCancelled());
+                assertTrue(System.currentTimeMillis() - start < 10_000);
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+        
+        @Test
+        @DisplayName("Should not pass without a run timeout, but still cancel on expire")
+        void testNoDeadline() {
+            Deadline deadline = Deadline.ofTimeout(0, TimeUnit.SECONDS);
+            assertFalse(deadline.isBounded());
+            assertFalse(deadline.isExpired());
+            assertEquals(300, deadline.queryTimeoutSeconds(300));
+            assertEquals(0, deadline.queryTimeoutSeconds(0), "no query timeout either");
+            assertTrue(deadline.remaining(TimeUnit.DAYS) > 365);
+            
+            Deadline child = deadline.child();
+            deadline.expire();
+            assertTrue(child.isExpired());
+            SQLTimeoutException e = assertThrows(SQLTimeoutException.class, () -> child.check("grade 4"));
+            assertTrue(e.getMessage().startsWith("Run cancelled"));
+            assertTrue(Deadline.ofTimeout(5, TimeUnit.SECONDS).isBounded());
+        }
+        
+        @Test
+        @DisplayName("Should stream with the driver's default fetch size")
+        void testDriverDefaultFetchSize() throws Exception {
+            DataSource dataSource = new SimulatedDataSource(4, 30, 0, 0).asDataSource();
+            StreamingQueryExecutor executor = new StreamingQueryExecutor(dataSource,
+                    new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()),
+                    new GradeScheduler(dataSource, new GradeCostHistory(null, 0.5), false, false), 0, 60);
+            AtomicInteger seen = new AtomicInteger();
+            
+            try {
+                long rows = executor.executeParallelStreaming(row -> seen.incrementAndGet());
+                assertEquals(DatabaseConfig.getGrades().length * 30L, rows);
+                assertEquals(rows, seen.get());
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+        
+        @Test
+        @DisplayName("Should cap the query timeout at the time left and report partial progress")
+        void testTimeoutCapAndProgress() {
+            Deadline deadline = Deadline.after(10, TimeUnit.SECONDS);
+            assertEquals(5, deadline.queryTimeoutSeconds(5));
+            assertTrue(deadline.queryTimeoutSeconds(300) <= 10);
+            
+            List<GradeChunk> chunks = List.of(GradeChunk.wholeGrade(4), GradeChunk.wholeGrade(5),
+                    GradeChunk.wholeGrade(7));
+            RunProgress progress = new RunProgress(chunks);
+            progress.track(chunks.get(0)).complete(100);
+            progress.track(chunks.get(1)).start();
+            progress.track(chunks.get(1)).rows(40);
+            
+            assertEquals(1, progress.count(RunProgress.State.COMPLETE));
+            assertEquals(1, progress.count(RunProgress.State.RUNNING));
+            assertEquals(1, progress.count(RunProgress.State.PENDING));
+            assertEquals(140, progress.getRowsFetched());
+            assertTrue(progress.describeRunning().contains("grade 5"));
+        }
+    }
+    
+    @Nested
+    @DisplayName("RowPipeline Tests")
+    class RowPipelineTests {
+        
+        @Test
+        @DisplayName("Should deliver every row and record producer stalls behind a slow consumer")
+        void testBackpressure() throws Exception {
+            AtomicInteger consumed = new AtomicInteger();
+            RowPipeline<Integer> pipeline = new RowPipeline<>("Test", 4, 2, row -> {
+                sleepQuietly(2);
+                consumed.incrementAndGet();
+            });
+            
+            for (int i = 0; i < 100; i++) {
+                pipeline.accept(i);
+            }
+            pipeline.close();
+            
+            RowPipeline.PipelineMetrics metrics = pipeline.getMetrics();
+            assertEquals(100, consumed.get());
+            assertEquals(100, metrics.getRowsProduced());
+            assertEquals(100, metrics.getRowsConsumed());
+            assertEquals(0, metrics.getQueueDepth());
+            assertTrue(metrics.getMaxQueueDepth() <= 4);
+            assertTrue(metrics.getProducerStalls() > 0);
+            assertTrue(metrics.getProducerStallMs() > 0);
+        }
+        
+        @Test
+        @DisplayName("Should fail the producer once the consumer throws")
+        void testConsumerFailure() throws Exception {
+            RowPipeline<Integer> pipeline = new RowPipeline<>("Test", 2, 1, row -> {
+                throw new IllegalArgumentException("bad row " + row);
+            });
+            
+            assertThrows(IllegalStateException.class, () -> {
+                for (int i = 0; i < 1000; i++) {
+                    pipeline.accept(i);
+                }
+            });
+            assertThrows(IllegalStateException.class, pipeline::close);
+            assertInstanceOf(IllegalArgumentException.class, pipeline.getFailure());
+        }
+        
+        @Test
+        @DisplayName("Should fail on close when the consumer throws after the last row was queued")
+        void testConsumerFailureAfterLastRow() throws Exception {
+            CountDownLatch queued = new CountDownLatch(1);
+            List<Integer> consumed = Collections.synchronizedList(new ArrayList<>());
+            RowPipeline<Integer> pipeline = new RowPipeline<>("Test", 16, 1, row -> {
+                try {
+                    queued.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (row == 9) {
+                    throw new IllegalArgumentException("bad row " + row);
+                }
+                consumed.add(row);
+            });
+            
+            for (int i = 0; i < 10; i++) {
+                pipeline.accept(i);
+            }
+            queued.countDown();
+            
+            IllegalStateException e = assertThrows(IllegalStateException.class, pipeline::close);
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            assertEquals(9, consumed.size());
+        }
+        
+        @Test
+        @DisplayName("Should fail when a consumer worker is interrupted instead of dropping rows")
+        void testConsumerInterrupted() {
+            AtomicInteger consumed = new AtomicInteger();
+            RowPipeline<Integer> pipeline = new RowPipeline<>("Test", 100, 1, row -> {
+                if (consumed.incrementAndGet() == 1) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            
+            for (int i = 0; i < 10; i++) {
+                pipeline.accept(i);
+            }
+            
+            IllegalStateException e = assertThrows(IllegalStateException.class, pipeline::close);
+            assertInstanceOf(InterruptedException.class, e.getCause());
+            assertTrue(consumed.get() < 10);
+        }
+        
+        @Test
+        @DisplayName("Should fail a streaming run whose callback throws on the last row")
+        void testStreamingFailsOnLastRow() throws Exception {
+            DataSource dataSource = new SimulatedDataSource(4, 200, 0, 0).asDataSource();
+            StreamingQueryExecutor executor = new StreamingQueryExecutor(dataSource,
+                    new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()),
+                    new GradeScheduler(dataSource, new GradeCostHistory(null, 0.5), false, false), 50, 60);
+            int rows = DatabaseConfig.getGrades().length * 200;
+            AtomicInteger seen = new AtomicInteger();
+            
+            try {
+                assertThrows(IllegalStateException.class, () -> executor.executeParallelStreaming(row -> {
+                    if (seen.incrementAndGet() == rows) {
+                        throw new IllegalArgumentException("callback failed on the last row");
+                    }
+                }));
+                assertEquals(rows, seen.get());
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+        
+        private void sleepQuietly(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("CaseRowPublisher Tests")
+    class CaseRowPublisherTests {
+        
+        @Test
+        @DisplayName("Should fetch only what the subscriber requested and complete across chunks")
+        void testHonoursDemand() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(2, 20, 0, 0);
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            publisher(simulated).subscribe(subscriber);
+            
+            subscriber.subscription.request(5);
+            waitFor(() -> subscriber.received.get() == 5);
+            Thread.sleep(50);
+            assertEquals(5, subscriber.received.get());
+            assertTrue(simulated.getRowsFetched() <= 6, "at most one row read ahead of demand");
+            
+            subscriber.subscription.request(Long.MAX_VALUE);
+            assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+            assertEquals(40, subscriber.received.get());
+            assertTrue(subscriber.completed);
+            assertEquals(0, simulated.getActiveConnections());
+        }
+        
+        @Test
+        @DisplayName("Should cancel the statement and return the connection on cancel")
+        void testCancel() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(1, 1000, 0, 0);
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            publisher(simulated).subscribe(subscriber);
+            
+            subscriber.subscription.request(3);
+            waitFor(() -> subscriber.received.get() == 3);
+            assertEquals(1, simulated.getActiveConnections());
+            
+            subscriber.subscription.cancel();
+            waitFor(() -> simulated.getActiveConnections() == 0);
+            assertEquals(1, simulated.getStatementsCancelled());
+            assertEquals(3, subscriber.received.get());
+            assertFalse(subscriber.completed);
+        }
+        
+        private CaseRowPublisher publisher(SimulatedDataSource simulated) {
+            return new CaseRowPublisher(simulated.asDataSource(),
+                    () -> List.of(GradeChunk.wholeGrade(4), GradeChunk.wholeGrade(5)),
+                    new ResultSetMapper(), 10, 60);
+        }
+        
+        private void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!condition.getAsBoolean()) {
+                assertTrue(System.currentTimeMillis() < deadline, "condition not reached in time");
+                Thread.sleep(5);
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("ChunkSpliterator Tests")
+    class ChunkSpliteratorTests {
+        
+        private final List<GradeChunk> chunks = List.of(GradeChunk.wholeGrade(4), GradeChunk.wholeGrade(5),
+                GradeChunk.wholeGrade(7), GradeChunk.wholeGrade(11));
+        
+        @Test
+        @DisplayName("Should stop querying once a short-circuiting stream is satisfied")
+        void testShortCircuit() {
+            SimulatedDataSource simulated = new SimulatedDataSource(4, 20, 0, 0);
+            List<CaseRelatedData> firstRows;
+            try (Stream<CaseRelatedData> rows = stream(simulated, false)) {
+                firstRows = rows.limit(5).collect(Collectors.toList());
+                assertEquals(1, simulated.getActiveConnections());
+            }
+            
+            assertEquals(5, firstRows.size());
+            assertEquals(1, simulated.getQueriesExecuted());
+            assertEquals(1, simulated.getStatementsCancelled());
+            assertEquals(0, simulated.getActiveConnections());
+        }
+        
+        @Test
+        @DisplayName("Should read every chunk on concurrent cursors when parallel")
+        void testParallel() {
+            SimulatedDataSource simulated = new SimulatedDataSource(4, 20, 5, 1);
+            try (Stream<CaseRelatedData> rows = stream(simulated, true)) {
+                assertEquals(80, rows.count());
+            }
+            
+            assertEquals(4, simulated.getQueriesExecuted());
+            assertEquals(0, simulated.getActiveConnections());
+        }
+        
+        private Stream<CaseRelatedData> stream(SimulatedDataSource simulated, boolean parallel) {
+            ChunkSpliterator.Resources resources = new ChunkSpliterator.Resources(
+                    simulated.asDataSource(), new ResultSetMapper(), 10, 60);
+            return StreamSupport.stream(new ChunkSpliterator(chunks, resources), parallel)
+                    .onClose(resources::close);
+        }
+    }
+    
+    @Nested
+    @DisplayName("LimitedQueryExecutor Tests")
+    class LimitedQueryExecutorTests {
+        
+        @Test
+        @DisplayName("Should push the row limit and optimizer goal into the preview SQL")
+        void testLimitedSql() {
+            String sql = SqlQueries.limitedQuery(25);
+            
+            assertTrue(sql.stripTrailing().endsWith("FETCH FIRST ? ROWS ONLY"));
+            assertTrue(sql.contains("/*+ FIRST_ROWS(25) */"));
+            assertFalse(sql.contains("MATERIALIZE"), "CTEs should be inlined for a preview");
+            assertTrue(SqlQueries.TVIEWCASERELATED_QUERY.contains("MATERIALIZE"));
+        }
+        
+        @Test
+        @DisplayName("Should stop at the limit without an extra fetch and cancel the statement")
+        void testStopsAtLimit() throws Exception {
+            for (boolean fetchFirst : new boolean[]{true, false}) {
+                SimulatedDataSource simulated = new SimulatedDataSource(2, 1000, 0, 0);
+                LimitedQueryExecutor executor = new LimitedQueryExecutor(simulated.asDataSource(), 25, fetchFirst);
+                
+                QueryResult result = executor.executeForGrade(4);
+                
+                assertEquals(25, result.getRecordCount());
+                assertEquals(25, simulated.getRowsFetched());
+                assertEquals(1, simulated.getStatementsCancelled());
+                assertEquals(0, simulated.getActiveConnections());
+            }
+        }
+        
+        @Test
+        @DisplayName("Should cancel the statement of a grade that times out")
+        void testCancelsOnTimeout() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(8, 1000, 0, 0).slowQueries(1, 30_000);
+            LimitedQueryExecutor executor = new LimitedQueryExecutor(simulated.asDataSource(), 25, true, 1);
+            int grades = DatabaseConfig.getGrades().length;
+            
+            try {
+                long start = System.currentTimeMillis();
+                List<CaseRelatedData> rows = executor.executeParallel();
+                long waitUntil = System.currentTimeMillis() + 5000;
+                while (simulated.getActiveConnections() > 0 && System.currentTimeMillis() < waitUntil) {
+                    Thread.sleep(5);
+                }
+                
+                assertEquals((grades - 1) * 25, rows.size());
+                assertEquals(grades, simulated.getStatementsCancelled(), "at the limit, and the timed-out grade");
+                assertEquals(0, simulated.getActiveConnections());
+                assertTrue(System.currentTimeMillis() - start < 10_000);
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("TinsidLookupExecutor Tests")
+    class TinsidLookupExecutorTests {
+        
+        @Test
+        @DisplayName("Should filter by a fixed-size TINSID list instead of the grade")
+        void testLookupSql() {
+            String sql = SqlQueries.tinsidLookupQuery(3);
+            
+            assertTrue(sql.contains("WHERE a.TINSID IN (?, ?, ?)"));
+            assertFalse(sql.contains("a.grade = ?") || sql.contains("MATERIALIZE"));
+            assertThrows(IllegalArgumentException.class, () -> SqlQueries.tinsidLookupQuery(1001));
+        }
+        
+        @Test
+        @DisplayName("Should fetch distinct TINSIDs in parallel batches and key the rows by TINSID")
+        void testFetchByTinsids() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(4, 1000, 5, 0);
+            TinsidLookupExecutor executor = new TinsidLookupExecutor(simulated.asDataSource(), 3, 100, 60);
+            
+            try {
+                Map<Long, List<CaseRelatedData>> rows = executor.fetchByTinsids(new long[]{5, 2, 5, 999, 2000, 7, 8});
+                
+                assertEquals(List.of(5L, 2L, 999L, 7L, 8L), new ArrayList<>(rows.keySet()),
+                        "Request order, without duplicates or TINSIDs that have no rows");
+                rows.forEach((tinsid, forId) -> assertEquals(List.of(tinsid),
+                        forId.stream().map(CaseRelatedData::getTinsid).collect(Collectors.toList())));
+                assertEquals(2, simulated.getQueriesExecuted());
+                assertEquals(1, simulated.getStatementSql().stream().distinct().count());
+                assertEquals(0, simulated.getActiveConnections());
+                assertTrue(executor.fetchByTinsids(new long[0]).isEmpty());
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+        
+        @Test
+        @DisplayName("Should cancel the other batches' statements when one batch fails")
+        void testFailedBatchCancelsOthers() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(4, 1000, 0, 0)
+                    .slowQueries(2, 30_000).failFetches(3, 1);
+            TinsidLookupExecutor executor = new TinsidLookupExecutor(simulated.asDataSource(), 3, 100, 60);
+            
+            try {
+                long start = System.currentTimeMillis();
+                assertThrows(SQLException.class, () -> executor.fetchByTinsids(new long[]{1, 2, 3, 4, 5, 6, 7, 8, 9}));
+                long waitUntil = System.currentTimeMillis() + 5000;
+                while (simulated.getActiveConnections() > 0 && System.currentTimeMillis() < waitUntil) {
+                    Thread.sleep(5);
+                }
+                assertEquals(0, simulated.getActiveConnections());
+                assertEquals(2, simulated.getStatementsCancelled(), "both slow batches");
+                assertTrue(System.currentTimeMillis() - start < 10_000);
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("KeysetPager Tests")
+    class KeysetPagerTests {
+        
+        @Test
+        @DisplayName("Should round-trip opaque cursor tokens and reject malformed ones")
+        void testCursorToken() {
+            PageCursor cursor = new PageCursor(12, 123456789L);
+            
+            assertEquals(cursor, PageCursor.decode(cursor.encode()));
+            assertEquals(PageCursor.startOf(4), PageCursor.decode(PageCursor.startOf(4).encode()));
+            assertFalse(cursor.encode().contains("12"), "token should be opaque");
+            assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not-a-cursor"));
+        }
+        
+        @Test
+        @DisplayName("Should seek page by page across grades at constant cost and serve revisits from cache")
+        void testSeekPaging() {
+            SimulatedDataSource simulated = new SimulatedDataSource(2, 200, 0, 0);
+            KeysetPager pager = new KeysetPager(simulated.asDataSource(), new int[]{4, 5}, 30, false, 8, 60_000, 60);
+            
+            List<Page> pages = new ArrayList<>();
+            List<Long> fetchedPerPage = new ArrayList<>();
+            Page page = pager.firstPage();
+            pages.add(page);
+            fetchedPerPage.add(simulated.getRowsFetched());
+            while (page.hasNext()) {
+                long before = simulated.getRowsFetched();
+                page = pager.page(page.getNextCursor());
+                pages.add(page);
+                fetchedPerPage.add(simulated.getRowsFetched() - before);
+            }
+            
+            assertEquals(14, pages.size());
+            assertEquals(400, pages.stream().mapToInt(p -> p.getRows().size()).sum());
+            assertEquals(10, pages.get(13).getRows().size());
+            assertEquals(31L, fetchedPerPage.get(0));
+            assertEquals(31L, fetchedPerPage.get(5), "a deep page reads no more than page 1");
+            
+            long queries = simulated.getQueriesExecuted();
+            Page again = pager.page(pages.get(11).getCursor());
+            assertEquals(pages.get(11).getRows(), again.getRows());
+            assertEquals(queries, simulated.getQueriesExecuted());
+            assertEquals(1, pager.getCacheHits());
+        }
+        
+        @Test
+        @DisplayName("Should prefetch the next page in the background")
+        void testPrefetch() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(2, 200, 0, 0);
+            KeysetPager pager = new KeysetPager(simulated.asDataSource(), new int[]{4}, 50, true, 8, 60_000, 60);
+            
+            try {
+                Page first = pager.firstPage();
+                long waitUntil = System.currentTimeMillis() + 5000;
+                while (simulated.getQueriesExecuted() < 2 && System.currentTimeMillis() < waitUntil) {
+                    Thread.sleep(5);
+                }
+                Page second = pager.page(first.getNextCursor());
+                
+                assertEquals(50, second.getRows().size());
+                assertEquals(51L, second.getRows().get(0).getTinsid());
+                assertEquals(1, pager.getCacheMisses());
+                assertEquals(1, pager.getCacheHits());
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Checkpoint Tests")
+    class CheckpointTests {
+        
+        @Test
+        @DisplayName("Should commit only a contiguous run of acknowledged TINSIDs and persist it")
+        void testCommitOrder(@TempDir Path dir) {
+            Path file = dir.resolve("checkpoint.properties");
+            Checkpoint checkpoint = Checkpoint.create(file, new int[]{4, 5},
+                    List.of(GradeChunk.wholeGrade(4), new GradeChunk(5, 0, 2, null, 1000L)), 60_000);
+            ChunkCheckpoint chunk = checkpoint.getChunks().get(0);
+            chunk.begin();
+            ChunkCheckpoint.Batch first = chunk.handOff(10, List.of(new CaseRelatedData(), new CaseRelatedData()));
+            ChunkCheckpoint.Batch second = chunk.handOff(11, List.of(new CaseRelatedData()));
+            ChunkCheckpoint.Batch third = chunk.handOff(12, List.of(new CaseRelatedData()));
+            
+            second.deliverTo(null);
+            third.deliverTo(null);
+            assertNull(chunk.getCommittedKey(), "TINSID 10 is still with the consumer");
+            first.deliverTo(null);
+            assertEquals(12L, chunk.getCommittedKey());
+            assertEquals(4, chunk.getCommittedRows());
+            assertThrows(IllegalStateException.class, () -> chunk.handOff(12, List.of()));
+            chunk.finish();
+            assertTrue(chunk.isComplete());
+            checkpoint.save();
+            
+            Checkpoint loaded = Checkpoint.load(file, 60_000);
+            assertTrue(loaded.covers(new int[]{4, 5}));
+            assertEquals(4, loaded.getCommittedRows());
+            assertEquals(1, loaded.getIncomplete().size());
+            GradeChunk remaining = loaded.getIncomplete().get(0).remaining();
+            assertEquals(5, remaining.getGrade());
+            assertEquals(1000L, remaining.getUpperExclusive());
+            assertTrue(remaining.getSql().contains("ORDER BY TINSID"));
+            assertEquals(13L, GradeChunk.wholeGrade(4).resumeAfter(12).getLowerInclusive());
+        }
+        
+        @Test
+        @DisplayName("Should skip TINSIDs acknowledged after a failed batch when the chunk is read again")
+        void testAcknowledgedAcrossReads(@TempDir Path dir) {
+            Checkpoint checkpoint = Checkpoint.create(dir.resolve("checkpoint.properties"), new int[]{4},
+                    List.of(GradeChunk.wholeGrade(4)), 60_000);
+            ChunkCheckpoint chunk = checkpoint.getChunks().get(0);
+            chunk.begin();
+            chunk.handOff(10, List.of(new CaseRelatedData())).deliverTo(null);
+            ChunkCheckpoint.Batch failed = chunk.handOff(11, List.of(new CaseRelatedData()));
+            chunk.handOff(12, List.of(new CaseRelatedData(), new CaseRelatedData())).deliverTo(null);
+            assertThrows(IllegalStateException.class, () -> failed.deliverTo(row -> {
+                throw new IllegalStateException("consumer failed");
+            }));
+            assertEquals(10L, chunk.getCommittedKey());
+            
+            // Second read, e.g. a retry: 11 is handed off again, 12 is not
+            chunk.begin();
+            assertEquals(11L, chunk.remaining().getLowerInclusive());
+            assertFalse(chunk.isAcknowledged(11));
+            assertTrue(chunk.isAcknowledged(12));
+            ChunkCheckpoint.Batch retried = chunk.handOff(11, List.of(new CaseRelatedData()));
+            ChunkCheckpoint.Batch next = chunk.handOff(13, List.of(new CaseRelatedData()));
+            next.deliverTo(null);
+            assertEquals(10L, chunk.getCommittedKey(), "13 waits for 11");
+            retried.deliverTo(null);
+            assertEquals(13L, chunk.getCommittedKey());
+            assertEquals(5, chunk.getCommittedRows());
+            chunk.finish();
+            assertTrue(chunk.isComplete());
+        }
+        
+        @Test
+        @DisplayName("Should resume a failed chunk after its checkpoint without repeating a TINSID")
+        void testResumeAfterCheckpoint(@TempDir Path dir) throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(4, 200, 0, 0).failFetches(1, 120);
+            DataSource dataSource = simulated.asDataSource();
+            StreamingQueryExecutor executor = new StreamingQueryExecutor(dataSource,
+                    new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()),
+                    new GradeScheduler(dataSource, new GradeCostHistory(null, 0.5), false, false), 50, 60);
+            Path file = dir.resolve("checkpoint.properties");
+            Map<Long, AtomicInteger> handedOff = new ConcurrentHashMap<>();
+            
+            try {
+                long rows = executor.executeResumable(new int[]{4, 5}, file,
+                        row -> handedOff.computeIfAbsent(row.getTinsid(), k -> new AtomicInteger()).incrementAndGet());
+                
+                assertEquals(400, rows);
+                assertEquals(200, handedOff.size());
+                assertTrue(handedOff.values().stream().allMatch(count -> count.get() == 2),
+                        "each TINSID once per grade");
+                assertEquals(3, simulated.getQueriesExecuted(), "only the failed chunk is queried again");
+                assertEquals(200 + 120 + 81, simulated.getRowsFetched(), "resumed from TINSID 120, held back at failure");
+                assertFalse(java.nio.file.Files.exists(file));
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+        
+        @Test
+        @DisplayName("Should run a resumable stream with the driver's default fetch size")
+        void testResumableDriverDefaultFetchSize(@TempDir Path dir) throws Exception {
+            DataSource dataSource = new SimulatedDataSource(4, 30, 0, 0).asDataSource();
+            StreamingQueryExecutor executor = new StreamingQueryExecutor(dataSource,
+                    new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()),
+                    new GradeScheduler(dataSource, new GradeCostHistory(null, 0.5), false, false), 0, 60);
+            
+            try {
+                assertEquals(60, executor.executeResumable(new int[]{4, 5}, dir.resolve("checkpoint.properties"), null));
+            } finally {
+                ExecutionRuntime.shutdownShared();
+            }
+        }
+    }
+    
+    static class RecordingSubscriber implements Flow.Subscriber<CaseRelatedData> {
+        volatile Flow.Subscription subscription;
+        final AtomicInteger received = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile boolean completed;
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+        
+        @Override
+        public void onNext(CaseRelatedData item) {
+            received.incrementAndGet();
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            done.countDown();
+        }
+        
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+    
     @Nested
     @DisplayName("ResultSetMapper Tests")
     class ResultSetMapperTests {
@@ -208,5 +1643,290 @@ class TviewcaserelatedTest {
             ResultSetMapper mapper = new ResultSetMapper();
             assertNotNull(mapper);
         }
+        
+        @Test
+        @DisplayName("Should read the same values by resolved position as by label")
+        void testIndexedMapping() throws Exception {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:mapper");
+            Set<Column> dates = EnumSet.range(Column.EXTRDT, Column.PRIOR_ASSGMNT_ACT_DT);
+            List<Column> reversed = new ArrayList<>(Arrays.asList(Column.values()));
+            Collections.reverse(reversed);
+            String sql = "SELECT 'extra' AS X_EXTRA, " + reversed.stream()
+                    .map(c -> (dates.contains(c) ? "DATE '2024-01-01' + " : "") + c.ordinal() + " AS " + c)
+                    .collect(Collectors.joining(", "));
+            
+            ResultSetMapper mapper = new ResultSetMapper(true);
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                ColumnIndex columns = mapper.columns(rs);
+                assertTrue(rs.next());
+                CaseRelatedData byPosition = mapper.mapRow(rs, columns);
+                CaseRelatedData byLabel = mapper.mapRow(rs);
+                
+                assertEquals(Column.values().length + 1, columns.of(Column.ROID));
+                assertEquals(String.valueOf(Column.ROID.ordinal()), byPosition.getRoid());
+                assertEquals(Long.valueOf(Column.TINSID.ordinal()), byPosition.getTinsid());
+                List<Function<CaseRelatedData, Object>> fields = List.of(CaseRelatedData::getRoid, CaseRelatedData::getZipcde, CaseRelatedData::getExtrdt,
+                        CaseRelatedData::getPriorAssgmntActDt, CaseRelatedData::getHours,
+                        CaseRelatedData::getCGrade, CaseRelatedData::getTxperTxpyrAmt, CaseRelatedData::getCc);
+                for (Function<CaseRelatedData, Object> field : fields) {
+                    assertEquals(field.apply(byLabel), field.apply(byPosition));
+                }
+            }
+            
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement("SELECT 1 AS ROID");
+                 ResultSet rs = stmt.executeQuery()) {
+                SQLException missing = assertThrows(SQLException.class, () -> mapper.columns(rs));
+                assertTrue(missing.getMessage().contains("SEID"));
+                assertNull(new ResultSetMapper(false).columns(rs));
+            }
+        }
+        
+        @Test
+        @DisplayName("Should read text and date columns in decimal slots without failing getBigDecimal")
+        void testTypeProbedDecimals() throws Exception {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:mapper-types");
+            Map<Column, String> overrides = Map.of(
+                    Column.HOURS, "' 12.50 '",
+                    Column.FLDHRS, "DATE '2024-01-01'",
+                    Column.EMPHRS, "'n/a'",
+                    Column.HRS, "CAST(NULL AS VARCHAR)");
+            Set<Column> dates = EnumSet.range(Column.EXTRDT, Column.PRIOR_ASSGMNT_ACT_DT);
+            String sql = "SELECT " + Arrays.stream(Column.values())
+                    .map(c -> overrides.getOrDefault(c, (dates.contains(c) ? "DATE '2024-01-01' + " : "") + c.ordinal())
+                            + " AS " + c)
+                    .collect(Collectors.joining(", "));
+            
+            ResultSetMapper mapper = new ResultSetMapper(true);
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                ColumnIndex columns = mapper.columns(rs);
+                assertEquals(ColumnIndex.DecimalRead.TEXT, columns.decimalRead(Column.HOURS));
+                assertEquals(ColumnIndex.DecimalRead.NONE, columns.decimalRead(Column.FLDHRS));
+                assertEquals(ColumnIndex.DecimalRead.NUMBER, columns.decimalRead(Column.TOTHRS));
+                assertTrue(rs.next());
+                
+                // H2 rejects getBigDecimal on a DATE, so this only passes if FLDHRS is never read that way
+                CaseRelatedData data = mapper.mapRow(rs, columns);
+                assertEquals(new BigDecimal("12.50"), data.getHours());
+                assertNull(data.getFldhrs());
+                assertNull(data.getEmphrs());
+                assertNull(data.getHrs());
+                assertEquals(BigDecimal.valueOf(Column.TOTHRS.ordinal()), data.getTothrs());
+            }
+        }
+        
+        @Test
+        @DisplayName("Should map the same values with the compiled mapper as with the hand-written one")
+        void testCompiledMapping() throws Exception {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:mapper-compiled");
+            Map<Column, String> overrides = Map.of(
+                    Column.HOURS, "'12.50'",
+                    Column.FLDHRS, "DATE '2024-01-01'",
+                    Column.ZIPCDE, "CAST(NULL AS INTEGER)",
+                    Column.TINSID, "CAST(NULL AS BIGINT)",
+                    Column.CITY, "CAST(NULL AS VARCHAR)");
+            Set<Column> dates = EnumSet.range(Column.EXTRDT, Column.PRIOR_ASSGMNT_ACT_DT);
+            String sql = "SELECT 'extra' AS X_EXTRA, " + Arrays.stream(Column.values())
+                    .map(c -> overrides.getOrDefault(c, (dates.contains(c) ? "DATE '2024-01-01' + " : "") + c.ordinal())
+                            + " AS " + c)
+                    .collect(Collectors.joining(", "));
+            
+            ResultSetMapper compiled = new ResultSetMapper(true, true);
+            ResultSetMapper handWritten = new ResultSetMapper(true);
+            assertTrue(compiled.isCompiled());
+            assertFalse(handWritten.isCompiled());
+            assertFalse(new ResultSetMapper(false, true).isCompiled());
+            
+            ColumnIndex first;
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                first = compiled.columns(rs);
+                assertTrue(rs.next());
+                CaseRelatedData expected = handWritten.mapRow(rs, handWritten.columns(rs));
+                CaseRelatedData actual = compiled.mapRow(rs, first);
+                
+                assertNull(actual.getTinsid());
+                assertNull(actual.getZipcde());
+                assertEquals(new BigDecimal("12.50"), actual.getHours());
+                for (Method getter : CaseRelatedData.class.getMethods()) {
+                    if (getter.getName().startsWith("get") && getter.getParameterCount() == 0) {
+                        assertEquals(getter.invoke(expected), getter.invoke(actual), getter.getName());
+                    }
+                }
+            }
+            
+            // A second result set of the same shape reuses the compiled mapper
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                assertSame(first, compiled.columns(rs));
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Projection Tests")
+    class ProjectionTests {
+        
+        @Test
+        @DisplayName("Should cut the outer select list of every query variant down to the projection")
+        void testProjectedSql() {
+            Projection projection = Projection.of(Column.HOURS, Column.TP);
+            assertEquals(EnumSet.of(Column.TINSID, Column.TP, Column.HOURS), projection.columns());
+            assertSame(Projection.all(), Projection.of(Column.values()));
+            assertSame(SqlQueries.TVIEWCASERELATED_QUERY, Projection.all().apply(SqlQueries.TVIEWCASERELATED_QUERY));
+            
+            String projected = projection.apply(SqlQueries.TVIEWCASERELATED_QUERY);
+            assertTrue(projected.endsWith("SELECT /*+ FIRST_ROWS(500) */\n    TINSID, TP, HOURS\nFROM main_data\n"));
+            assertTrue(projected.contains("        tt.ROID,\n        p.SEID,"), "main_data is unchanged");
+            
+            String page = projection.apply(SqlQueries.pageQuery(50));
+            assertTrue(page.contains("FIRST_ROWS(50) */\n    TINSID, TP, HOURS\nFROM main_data\n"));
+            assertTrue(page.endsWith("ORDER BY TINSID\n        FETCH FIRST ? ROWS WITH TIES\n"));
+            assertThrows(IllegalArgumentException.class, () -> projection.apply(SqlQueries.GRADE_ROW_COUNT));
+        }
+        
+        @Test
+        @DisplayName("Should stream and page rows with only the projected fields")
+        void testProjectedRows() {
+            Projection projection = Projection.of(Column.TP, Column.HOURS);
+            SimulatedDataSource simulated = new SimulatedDataSource(2, 40, 0, 0);
+            DataSource dataSource = simulated.asDataSource();
+            StreamingQueryExecutor executor = new StreamingQueryExecutor(dataSource,
+                    new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()),
+                    new GradeScheduler(dataSource, new GradeCostHistory(null, 0.5), false, false),
+                    projection, 20, 60);
+            
+            List<CaseRelatedData> rows;
+            try (Stream<CaseRelatedData> stream = executor.executeAsStream(new int[]{4})) {
+                rows = stream.collect(Collectors.toList());
+            }
+            KeysetPager pager = new KeysetPager(dataSource, new int[]{4}, 10, false, 8, 60_000, 60, projection);
+            rows.addAll(pager.firstPage().getRows());
+            
+            assertEquals(50, rows.size());
+            for (CaseRelatedData row : rows) {
+                assertEquals("S" + row.getTinsid(), row.getTp());
+                assertNotNull(row.getHours());
+                assertNull(row.getRoid());
+                assertNull(row.getCGrade());
+                assertNull(row.getTothrs());
+            }
+            assertEquals(2, simulated.getStatementSql().size());
+            assertTrue(simulated.getStatementSql().stream()
+                    .allMatch(sql -> sql.contains("*/\n    TINSID, TP, HOURS\nFROM main_data")));
+        }
+    }
+    
+    @Nested
+    @DisplayName("CompactCaseRow Tests")
+    class CompactCaseRowTests {
+        
+        @Test
+        @DisplayName("Should map to compact rows and convert back to the same values")
+        void testCompactRoundTrip() throws Exception {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:compact");
+            Map<Column, String> overrides = Map.of(
+                    Column.HOURS, "CAST(123.4567 AS DECIMAL(10, 4))",
+                    Column.TOTASSD, "CAST(100000000000000000000.25 AS DECIMAL(30, 2))",
+                    Column.AGI_AMT, "CAST(-1234.5 AS DECIMAL(10, 1))",
+                    Column.ZIPCDE, "CAST(NULL AS INTEGER)",
+                    Column.EXTRDT, "CAST(NULL AS DATE)",
+                    Column.BAL_941, "CAST(NULL AS DECIMAL(10, 2))");
+            Set<Column> dates = EnumSet.range(Column.EXTRDT, Column.PRIOR_ASSGMNT_ACT_DT);
+            String sql = "SELECT " + Arrays.stream(Column.values())
+                    .map(c -> overrides.getOrDefault(c, (dates.contains(c) ? "DATE '2024-01-01' + " : "") + c.ordinal())
+                            + " AS " + c)
+                    .collect(Collectors.joining(", "));
+            
+            CompactRowMapper compactMapper = new CompactRowMapper();
+            ResultSetMapper mapper = new ResultSetMapper(true);
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                assertTrue(rs.next());
+                CaseRelatedData expected = mapper.mapRow(rs, mapper.columns(rs));
+                CompactCaseRow row = compactMapper.mapRow(rs, compactMapper.columns(rs));
+                
+                assertTrue(row.isNull(Column.ZIPCDE));
+                assertEquals(0, row.getInt(Column.ZIPCDE));
+                assertEquals(Column.C_GRADE.ordinal(), row.getInt(Column.C_GRADE));
+                assertEquals(LocalDate.of(2024, 1, 1).plusDays(Column.RPTDT.ordinal()).toEpochDay(),
+                        row.getEpochDay(Column.RPTDT));
+                assertEquals(new BigDecimal("-1234.50"), row.getDecimal(Column.AGI_AMT));
+                assertEquals(new BigDecimal("123.4567"), row.getDecimal(Column.HOURS), "kept exact beyond the scale");
+                assertEquals(new BigDecimal("100000000000000000000.25"), row.getDecimal(Column.TOTASSD));
+                assertThrows(IllegalArgumentException.class, () -> row.getInt(Column.ROID));
+                
+                CaseRelatedData actual = row.toCaseRelatedData();
+                for (Method getter : CaseRelatedData.class.getMethods()) {
+                    if (getter.getName().startsWith("get") && getter.getParameterCount() == 0) {
+                        Object want = getter.invoke(expected);
+                        Object got = getter.invoke(actual);
+                        if (want instanceof BigDecimal && got instanceof BigDecimal) {
+                            assertEquals(0, ((BigDecimal) want).compareTo((BigDecimal) got), getter.getName());
+                        } else {
+                            assertEquals(want, got, getter.getName());
+                        }
+                    }
+                }
+            }
+        }
+        
+        @Test
+        @DisplayName("Should leave columns outside a projection null")
+        void testCompactProjection() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(1, 3, 0, 0);
+            CompactRowMapper compactMapper = new CompactRowMapper();
+            try (Connection conn = simulated.asDataSource().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SqlQueries.TVIEWCASERELATED_QUERY)) {
+                stmt.setInt(1, 4);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ColumnIndex columns = compactMapper.columns(rs, Projection.of(Column.TP, Column.C_GRADE));
+                    assertTrue(rs.next());
+                    CompactCaseRow row = compactMapper.mapRow(rs, columns);
+                    
+                    assertEquals(1L, row.getLong(Column.TINSID));
+                    assertEquals("S1", row.getString(Column.TP));
+                    assertFalse(row.isNull(Column.C_GRADE));
+                    assertTrue(row.isNull(Column.ROID));
+                    assertTrue(row.isNull(Column.HOURS));
+                    assertTrue(row.isNull(Column.EXTRDT));
+                    assertNull(row.toCaseRelatedData().getZipcde());
+                }
+            }
+        }
+        
+        @Test
+        @DisplayName("Should run a grade into compact rows through the executor")
+        void testExecuteCompact() throws Exception {
+            SimulatedDataSource simulated = new SimulatedDataSource(2, 25, 0, 0);
+            CaseRelatedQueryExecutor executor = CaseRelatedQueryExecutor.builder(simulated.asDataSource())
+                    .enricher(null)
+                    .entemp(null)
+                    .fetchSize(10)
+                    .queryTimeoutSeconds(60)
+                    .build();
+            
+            List<CaseRelatedData> expected = executor.executeSingle(4);
+            List<CompactCaseRow> rows = executor.executeCompact(4);
+            
+            assertEquals(25, rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(expected.get(i).getTinsid(), rows.get(i).getLong(Column.TINSID));
+                assertEquals(expected.get(i).getTp(), rows.get(i).getString(Column.TP));
+                assertEquals(expected.get(i).getCGrade(), rows.get(i).getIntOrNull(Column.C_GRADE));
+            }
+            assertEquals(0, simulated.getActiveConnections());
+        }
     }
 }
@@ -0,0 +1,110 @@
+package com.example.tviewcaserelated.benchmark;
+
+import com.example.tviewcaserelated.SimulatedDataSource;
+import com.example.tviewcaserelated.mapper.ResultSetMapper;
+import com.example.tviewcaserelated.runtime.ConcurrencyLimiter;
+import com.example.tviewcaserelated.runtime.ExecutionMode;
+import com.example.tviewcaserelated.runtime.ExecutorFactory;
+import com.example.tviewcaserelated.runtime.FixedConcurrencyLimiter;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares platform and virtual thread execution against a simulated
+ * high-latency JDBC source: peak platform thread count, heap in use and rows/sec.
+ *
+ * <p>Run with (virtual mode needs a JDK 21+ runtime):</p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.tviewcaserelated.benchmark.ExecutionModeComparison
+ * </pre>
+ */
+public final class ExecutionModeComparison {
+
+    private static final int TASKS = 48;
+    private static final int ROWS_PER_TASK = 2_000;
+    private static final int FETCH_SIZE = 500;
+    private static final long EXECUTE_LATENCY_MS = 200;
+    private static final long FETCH_LATENCY_MS = 25;
+    private static final int POOL_SIZE = 10;
+    private static final int PLATFORM_THREADS = 4;
+
+    private ExecutionModeComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("Simulated source: %d tasks x %,d rows, execute %d ms, fetch %d ms per %d rows, "
+                        + "%d connections%n%n",
+                TASKS, ROWS_PER_TASK, EXECUTE_LATENCY_MS, FETCH_LATENCY_MS, FETCH_SIZE, POOL_SIZE);
+        System.out.printf("%-28s %12s %12s %14s %12s%n",
+                "MODE", "PEAK THREADS", "HEAP (MB)", "ROWS/SEC", "TIME (ms)");
+        System.out.println("-".repeat(82));
+
+        run("platform (" + PLATFORM_THREADS + " threads)", ExecutionMode.PLATFORM, PLATFORM_THREADS);
+        run("platform (" + POOL_SIZE + " threads)", ExecutionMode.PLATFORM, POOL_SIZE);
+        if (ExecutorFactory.isVirtualThreadSupported()) {
+            run("virtual (" + POOL_SIZE + " permits)", ExecutionMode.VIRTUAL, POOL_SIZE);
+        } else {
+            System.out.println("virtual: not available on JDK " + System.getProperty("java.version"));
+        }
+    }
+
+    private static void run(String label, ExecutionMode mode, int concurrency) throws Exception {
+        SimulatedDataSource simulated = new SimulatedDataSource(POOL_SIZE, ROWS_PER_TASK,
+                EXECUTE_LATENCY_MS, FETCH_LATENCY_MS);
+        DataSource dataSource = simulated.asDataSource();
+        ResultSetMapper mapper = new ResultSetMapper();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        System.gc();
+        threads.resetPeakThreadCount();
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        ExecutorService executor = ExecutorFactory.create(mode, concurrency, "Compare");
+        ConcurrencyLimiter limiter = new FixedConcurrencyLimiter(concurrency);
+        long start = System.nanoTime();
+
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            futures.add(executor.submit(limiter.wrap(() -> {
+                int rows = 0;
+                try (Connection conn = dataSource.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement("SELECT")) {
+                    stmt.setFetchSize(FETCH_SIZE);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            mapper.mapRow(rs);
+                            rows++;
+                        }
+                    }
+                }
+                return rows;
+            })));
+        }
+
+        long totalRows = 0;
+        for (Future<Integer> future : futures) {
+            totalRows += future.get();
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long heapUsed = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        System.out.printf("%-28s %12d %12.1f %,14.0f %,12d%n",
+                label, threads.getPeakThreadCount(), Math.max(0, heapUsed) / (1024.0 * 1024.0),
+                totalRows * 1000.0 / elapsedMs, elapsedMs);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.tviewcaserelated.benchmark;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.executor.LimitedQueryExecutor;
+import com.example.tviewcaserelated.mapper.ResultSetMapper;
+import com.example.tviewcaserelated.sql.SqlQueries;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+/**
+ * Compares the cost of a row-limited preview per grade against the configured
+ * database: the full query stopped client-side (the previous behaviour), the full
+ * query with {@code setMaxRows} and cancel, and the {@code FETCH FIRST} preview SQL.
+ *
+ * <p>The saving is made by the database (plan and materialized CTEs), so this runs
+ * against a real Oracle instance rather than the simulated source. Each variant runs
+ * {@value #ROUNDS} times per grade, interleaved, and the median is reported.</p>
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.tviewcaserelated.benchmark.LimitedPreviewComparison \
+ *     -Dexec.args="100"
+ * </pre>
+ */
+public final class LimitedPreviewComparison {
+
+    private static final int ROUNDS = 3;
+
+    private LimitedPreviewComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int limit = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int[] grades = DatabaseConfig.getGrades();
+        DataSource dataSource = DatabaseConfig.getDataSource();
+        LimitedQueryExecutor maxRows = new LimitedQueryExecutor(dataSource, limit, false);
+        LimitedQueryExecutor fetchFirst = new LimitedQueryExecutor(dataSource, limit, true);
+
+        System.out.printf("Preview of %d rows per grade, median of %d runs%n%n", limit, ROUNDS);
+        System.out.printf("%-6s %18s %18s %18s%n", "GRADE", "CLIENT STOP (ms)", "MAXROWS (ms)", "FETCH FIRST (ms)");
+        System.out.println("-".repeat(63));
+
+        long[] totals = new long[3];
+        try {
+            for (int grade : grades) {
+                long[][] times = new long[3][ROUNDS];
+                for (int round = 0; round < ROUNDS; round++) {
+                    times[0][round] = clientStop(dataSource, grade, limit);
+                    times[1][round] = maxRows.executeForGrade(grade).getExecutionTimeMs();
+                    times[2][round] = fetchFirst.executeForGrade(grade).getExecutionTimeMs();
+                }
+                long[] medians = new long[3];
+                for (int variant = 0; variant < 3; variant++) {
+                    Arrays.sort(times[variant]);
+                    medians[variant] = times[variant][ROUNDS / 2];
+                    totals[variant] += medians[variant];
+                }
+                System.out.printf("%-6d %,18d %,18d %,18d%n", grade, medians[0], medians[1], medians[2]);
+            }
+            System.out.println("-".repeat(63));
+            System.out.printf("%-6s %,18d %,18d %,18d%n", "TOTAL", totals[0], totals[1], totals[2]);
+        } finally {
+            DatabaseConfig.shutdown();
+        }
+    }
+
+    /**
+     * The previous preview path: full query, stop iterating after {@code limit} rows.
+     */
+    private static long clientStop(DataSource dataSource, int grade, int limit) throws Exception {
+        ResultSetMapper mapper = new ResultSetMapper();
+        long start = System.currentTimeMillis();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SqlQueries.TVIEWCASERELATED_QUERY)) {
+            stmt.setFetchSize(Math.min(limit, 500));
+            stmt.setInt(1, grade);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int count = 0;
+                while (rs.next() && count < limit) {
+                    mapper.mapRow(rs);
+                    count++;
+                }
+            }
+        }
+        return System.currentTimeMillis() - start;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.tviewcaserelated.benchmark;
+
+import com.example.tviewcaserelated.config.DatabaseConfig;
+import com.example.tviewcaserelated.enrich.FunctionCache;
+import com.example.tviewcaserelated.enrich.SplitEnricher;
+import com.example.tviewcaserelated.executor.CaseRelatedQueryExecutor;
+import com.example.tviewcaserelated.model.CaseRelatedData;
+import com.example.tviewcaserelated.runtime.ExecutionRuntime;
+import com.example.tviewcaserelated.schedule.GradeCostHistory;
+import com.example.tviewcaserelated.schedule.GradeGroupPlanner;
+import com.example.tviewcaserelated.schedule.GradeScheduler;
+import com.example.tviewcaserelated.schedule.HedgingPolicy;
+import com.example.tviewcaserelated.split.GradeRangeSplitter;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the main query with its PL/SQL functions called inline for every row
+ * against split enrichment, per grade, on the configured database: the split run
+ * with an empty cache (cold) and again with the cache of the cold run (warm).
+ *
+ * <p>The saving is the per-row SQL-to-PL/SQL context switches the database no
+ * longer makes, so this runs against a real Oracle instance rather than the
+ * simulated source. The function columns of the split run are also checked against
+ * the inline run, and the number of rows that differ is reported.</p>
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.tviewcaserelated.benchmark.SplitEnrichmentComparison \
+ *     -Dexec.args="100000 100"
+ * </pre>
+ */
+public final class SplitEnrichmentComparison {
+
+    private SplitEnrichmentComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int cacheSize = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int fetchSize = DatabaseConfig.getIntProperty("executor.fetch-size", 1000);
+        int timeout = DatabaseConfig.getIntProperty("executor.query-timeout", 300);
+        DataSource dataSource = DatabaseConfig.getDataSource();
+
+        System.out.printf("Split enrichment, cache %,d entries, %d calls per lookup%n%n", cacheSize, batchSize);
+        System.out.printf("%-6s %10s %12s %12s %12s %9s %9s%n",
+                "GRADE", "ROWS", "INLINE (ms)", "COLD (ms)", "WARM (ms)", "HIT RATE", "MISMATCH");
+        System.out.println("-".repeat(76));
+
+        try {
+            for (int grade : DatabaseConfig.getGrades()) {
+                CaseRelatedQueryExecutor inline = executor(dataSource, null, fetchSize, timeout);
+                SplitEnricher enricher = new SplitEnricher(new FunctionCache(cacheSize), batchSize, timeout);
+                CaseRelatedQueryExecutor split = executor(dataSource, enricher, fetchSize, timeout);
+
+                long start = System.currentTimeMillis();
+                List<CaseRelatedData> expected = inline.executeSingle(grade);
+                long inlineMs = System.currentTimeMillis() - start;
+
+                start = System.currentTimeMillis();
+                List<CaseRelatedData> cold = split.executeSingle(grade);
+                long coldMs = System.currentTimeMillis() - start;
+
+                start = System.currentTimeMillis();
+                split.executeSingle(grade);
+                long warmMs = System.currentTimeMillis() - start;
+
+                System.out.printf("%-6d %,10d %,12d %,12d %,12d %8.1f%% %,9d%n", grade, expected.size(),
+                        inlineMs, coldMs, warmMs, enricher.getCache().getHitRate() * 100, mismatches(expected, cold));
+            }
+        } finally {
+            ExecutionRuntime.shutdownShared();
+            DatabaseConfig.shutdown();
+        }
+    }
+
+    private static CaseRelatedQueryExecutor executor(DataSource dataSource, SplitEnricher enricher,
+                                                     int fetchSize, int timeout) {
+        GradeCostHistory history = new GradeCostHistory(null, 0.5);
+        return CaseRelatedQueryExecutor.builder(dataSource)
+                .splitter(new GradeRangeSplitter(dataSource, false, 0, 250_000, 32, Map.of()))
+                .scheduler(new GradeScheduler(dataSource, history, false, false))
+                .hedging(new HedgingPolicy(history, false, 0.95, 5, 1000, 0.1))
+                .planner(new GradeGroupPlanner(history, GradeGroupPlanner.Mode.PER_GRADE, 1))
+                .sharedCtes(false)
+                .enricher(enricher)
+                .fetchSize(fetchSize)
+                .queryTimeoutSeconds(timeout)
+                .build();
+    }
+
+    /**
+     * Rows of the split run whose TINSID and function columns do not occur in the
+     * inline run (compared as multisets; the query has no ORDER BY).
+     */
+    private static long mismatches(List<CaseRelatedData> expected, List<CaseRelatedData> actual) {
+        Map<List<Object>, Integer> remaining = new HashMap<>();
+        for (CaseRelatedData row : expected) {
+            remaining.merge(functionColumns(row), 1, Integer::sum);
+        }
+        long count = 0;
+        for (CaseRelatedData row : actual) {
+            if (remaining.merge(functionColumns(row), -1, Integer::sum) < 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<Object> functionColumns(CaseRelatedData row) {
+        return Arrays.asList(row.getTinsid(), row.getCCaseind(), row.getStatind(), row.getAssnque(),
+                row.getPickdt(), row.getQpickind());
+    }
+}
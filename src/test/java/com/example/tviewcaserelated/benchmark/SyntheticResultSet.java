@@ -0,0 +1,104 @@
+package com.example.tviewcaserelated.benchmark;
+
+import com.example.tviewcaserelated.mapper.Column;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * A ResultSet positioned on one row of the main query, for CPU benchmarks of the
+ * mapper with no I/O.
+ *
+ * <p>Labels are resolved like the Oracle driver does: a case-insensitive search
+ * over the column metadata on every by-label call. Every column has a fixed value
+ * of the requested type and is never NULL.</p>
+ */
+final class SyntheticResultSet {
+
+    private static final BigDecimal NUMBER = new BigDecimal("12345.67");
+    private static final Date DATE = Date.valueOf("2024-01-31");
+
+    private SyntheticResultSet() {
+    }
+
+    /**
+     * The mapped columns in reverse order (so no position equals its ordinal),
+     * followed by {@code extraColumns} unmapped ones.
+     */
+    static ResultSet create(int extraColumns) {
+        Column[] mapped = Column.values();
+        String[] labels = new String[mapped.length + extraColumns];
+        for (int i = 0; i < mapped.length; i++) {
+            labels[i] = mapped[mapped.length - 1 - i].name();
+        }
+        for (int i = mapped.length; i < labels.length; i++) {
+            labels[i] = "X_EXTRA_" + i;
+        }
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                SyntheticResultSet.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return labels.length;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return labels[(Integer) args[0] - 1];
+                        case "getColumnType":
+                            return Types.NUMERIC;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        return (ResultSet) Proxy.newProxyInstance(
+                SyntheticResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("getMetaData")) {
+                        return metaData;
+                    }
+                    if (name.equals("wasNull")) {
+                        return false;
+                    }
+                    if (name.equals("findColumn")) {
+                        return findColumn(labels, (String) args[0]);
+                    }
+                    if (args != null && args.length == 1) {
+                        int position = args[0] instanceof String
+                                ? findColumn(labels, (String) args[0]) : (Integer) args[0];
+                        if (position < 1 || position > labels.length) {
+                            throw new SQLException("Invalid column index: " + position);
+                        }
+                        switch (name) {
+                            case "getString":
+                                return labels[position - 1];
+                            case "getInt":
+                                return position;
+                            case "getLong":
+                                return (long) position;
+                            case "getBigDecimal":
+                            case "getObject":
+                                return NUMBER;
+                            case "getDate":
+                                return DATE;
+                            default:
+                                break;
+                        }
+                    }
+                    throw new UnsupportedOperationException(name);
+                });
+    }
+
+    private static int findColumn(String[] labels, String label) throws SQLException {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        throw new SQLException("Invalid column name: " + label);
+    }
+}